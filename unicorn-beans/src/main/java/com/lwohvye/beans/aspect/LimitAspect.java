@@ -20,13 +20,12 @@ import com.lwohvye.core.enums.LimitType;
 import com.lwohvye.core.exception.BadRequestException;
 import com.lwohvye.core.utils.RequestHolder;
 import com.lwohvye.core.utils.StringUtils;
-import lombok.RequiredArgsConstructor;
+import com.lwohvye.core.utils.limit.RateLimiters;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
 import org.aspectj.lang.reflect.MethodSignature;
-import org.redisson.api.RateType;
 import org.redisson.api.RedissonClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,13 +39,17 @@ import java.time.Duration;
  */
 @Aspect
 @Component
-@RequiredArgsConstructor
 @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET) // 在Spring为Web服务时生效
 public class LimitAspect {
 
     private static final Logger logger = LoggerFactory.getLogger(LimitAspect.class);
 
-    private final RedissonClient redissonClient;
+    // 限流器实例按key缓存，执行方式见 Limit.strategy
+    private final RateLimiters rateLimiters;
+
+    public LimitAspect(RedissonClient redissonClient) {
+        this.rateLimiters = new RateLimiters(redissonClient::getRateLimiter);
+    }
 
     @Pointcut("@annotation(com.lwohvye.core.annotation.Limit)")
     public void pointcut() {
@@ -68,11 +71,9 @@ public class LimitAspect {
             }
         }
 
-        var rateLimiter = redissonClient.getRateLimiter(key);
-
-        rateLimiter.trySetRate(RateType.OVERALL, limit.count(), Duration.ofSeconds(limit.period()));
-        if (rateLimiter.tryAcquire(1)) {
-            logger.info("key {}，availablePermits {}", limit.key(), rateLimiter.availablePermits());
+        if (rateLimiters.tryAcquire(key, limit.strategy(), limit.count(), Duration.ofSeconds(limit.period()), limit.leaseSize())) {
+            // 不再查询剩余令牌数，那会多一次Redis往返
+            logger.debug("key {}，strategy {} acquired", key, limit.strategy());
             return joinPoint.proceed();
         } else {
             throw new BadRequestException(limit.name() + " -> 访问次数受限制");
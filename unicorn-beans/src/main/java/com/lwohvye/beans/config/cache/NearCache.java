@@ -0,0 +1,190 @@
+/*
+ *    Copyright (c) 2024-2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.beans.config.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lwohvye.core.custom.ValueCopier;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.redisson.api.RMapCache;
+import org.redisson.api.map.event.EntryRemovedListener;
+import org.redisson.api.map.event.EntryUpdatedListener;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * 带本地L1的Cache，写操作先落到Redisson（L2），再失效本地并广播给其他节点
+ */
+@SuppressWarnings("unchecked")
+final class NearCache implements Cache {
+
+    private final Cache remoteCache;
+
+    private final com.github.benmanes.caffeine.cache.Cache<Object, ValueWrapper> localCache;
+
+    private final boolean copyOnRead;
+
+    private final ValueCopier copier;
+
+    private final BiConsumer<String, Object> invalidationPublisher;
+
+    // 每次失效都会自增。从L2读取前记下，回填L1前比对，避免在读取期间被失效的旧值回填到L1
+    private final AtomicLong generation = new AtomicLong();
+
+    NearCache(Cache remoteCache, NearCacheManager.LocalSpec localSpec, ValueCopier copier, BiConsumer<String, Object> invalidationPublisher, MeterRegistry meterRegistry) {
+        this.remoteCache = remoteCache;
+        this.copyOnRead = localSpec.copyOnRead();
+        this.copier = copier;
+        this.invalidationPublisher = invalidationPublisher;
+        var builder = Caffeine.newBuilder()
+                .maximumSize(localSpec.maxSize())
+                .expireAfterWrite(Duration.ofMillis(localSpec.ttl()));
+        if (Objects.nonNull(meterRegistry)) {
+            this.localCache = builder.recordStats().build();
+            CaffeineCacheMetrics.monitor(meterRegistry, localCache, "near-" + remoteCache.getName());
+        } else {
+            this.localCache = builder.build();
+        }
+        // 绕过Spring Cache直接操作RMapCache的场景（如RedisUtils.delInRC），通过Redisson的Entry事件失效本地
+        if (remoteCache.getNativeCache() instanceof RMapCache<?, ?> mapCache) {
+            var rMapCache = (RMapCache<Object, Object>) mapCache;
+            rMapCache.addListener((EntryRemovedListener<Object, Object>) event -> invalidateLocal(event.getKey()));
+            rMapCache.addListener((EntryUpdatedListener<Object, Object>) event -> invalidateLocal(event.getKey()));
+        }
+    }
+
+    @Override
+    public String getName() {
+        return remoteCache.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remoteCache.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        var wrapper = localCache.getIfPresent(key);
+        if (Objects.nonNull(wrapper))
+            return copyOf(wrapper);
+        var gen = generation.get();
+        wrapper = remoteCache.get(key);
+        if (Objects.isNull(wrapper))
+            return null;
+        populate(key, wrapper, gen);
+        return copyOf(wrapper);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        var wrapper = get(key);
+        var value = Objects.nonNull(wrapper) ? wrapper.get() : null;
+        if (Objects.nonNull(value) && Objects.nonNull(type) && !type.isInstance(value))
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        return (T) value;
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        var wrapper = localCache.getIfPresent(key);
+        if (Objects.nonNull(wrapper))
+            return (T) copyOf(wrapper).get();
+        var gen = generation.get();
+        var value = remoteCache.get(key, valueLoader);
+        var loaded = new SimpleValueWrapper(value);
+        populate(key, loaded, gen);
+        return (T) copyOf(loaded).get();
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        remoteCache.put(key, value);
+        evictAndPublish(key);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        var existing = remoteCache.putIfAbsent(key, value);
+        evictAndPublish(key);
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        remoteCache.evict(key);
+        evictAndPublish(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        var present = remoteCache.evictIfPresent(key);
+        evictAndPublish(key);
+        return present;
+    }
+
+    @Override
+    public void clear() {
+        remoteCache.clear();
+        evictAndPublish(null);
+    }
+
+    @Override
+    public boolean invalidate() {
+        var present = remoteCache.invalidate();
+        evictAndPublish(null);
+        return present;
+    }
+
+    /**
+     * 仅失效本节点的L1
+     *
+     * @param key 为null时清空
+     */
+    void invalidateLocal(Object key) {
+        generation.incrementAndGet();
+        if (Objects.isNull(key))
+            localCache.invalidateAll();
+        else
+            localCache.invalidate(key);
+    }
+
+    private void evictAndPublish(Object key) {
+        invalidateLocal(key);
+        invalidationPublisher.accept(getName(), key);
+    }
+
+    private void populate(Object key, ValueWrapper wrapper, long gen) {
+        localCache.put(key, wrapper);
+        // 读取期间发生了失效，回填的可能是旧值，撤销
+        if (generation.get() != gen)
+            localCache.invalidate(key);
+    }
+
+    private ValueWrapper copyOf(ValueWrapper wrapper) {
+        var value = wrapper.get();
+        if (!copyOnRead || Objects.isNull(value))
+            return wrapper;
+        return new SimpleValueWrapper(copier.copy(value));
+    }
+}
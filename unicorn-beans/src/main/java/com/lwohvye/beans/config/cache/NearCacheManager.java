@@ -0,0 +1,177 @@
+/*
+ *    Copyright (c) 2024-2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.beans.config.cache;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.lwohvye.core.custom.ValueCopier;
+import com.lwohvye.core.utils.json.JsonUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.listener.BaseStatusListener;
+import org.redisson.client.codec.StringCodec;
+import org.redisson.spring.cache.CacheConfig;
+import org.springframework.beans.factory.config.YamlMapFactoryBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.io.Resource;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 二级缓存：本地Caffeine（L1） + Redisson（L2）。
+ * 只有在cache-config.yaml中配置了local节点的缓存才会启用L1，其余直接透传给Redisson。
+ * 各节点的L1通过Redisson的RTopic广播失效消息保持一致，本节点发出的消息会被忽略。
+ */
+@Slf4j
+public class NearCacheManager implements CacheManager {
+
+    public static final String INVALIDATION_TOPIC = "unicorn:near-cache:invalidation";
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final CacheManager remoteCacheManager;
+
+    private final Map<String, LocalSpec> localSpecs;
+
+    // copyOnRead时L1取值的拷贝方式
+    private final ValueCopier copier;
+
+    private final MeterRegistry meterRegistry;
+
+    private final RTopic invalidationTopic;
+
+    private final ConcurrentMap<String, Cache> cacheMap = new ConcurrentHashMap<>(16);
+
+    public NearCacheManager(CacheManager remoteCacheManager, RedissonClient redissonClient, Map<String, LocalSpec> localSpecs, ValueCopier copier, MeterRegistry meterRegistry) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.localSpecs = localSpecs;
+        this.copier = copier;
+        this.meterRegistry = meterRegistry;
+        // 消息体自行序列化为JSON，不依赖Redisson全局配置的codec
+        this.invalidationTopic = redissonClient.getTopic(INVALIDATION_TOPIC, StringCodec.INSTANCE);
+        this.invalidationTopic.addListener(String.class, (channel, msg) -> onInvalidation(msg));
+        // 断线重连期间可能丢失失效消息，重新订阅后清空全部L1
+        this.invalidationTopic.addListener(new BaseStatusListener() {
+            @Override
+            public void onSubscribe(String channel) {
+                cacheMap.values().forEach(cache -> {
+                    if (cache instanceof NearCache nearCache) nearCache.invalidateLocal(null);
+                });
+            }
+        });
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        var cache = cacheMap.get(name);
+        if (Objects.nonNull(cache))
+            return cache;
+        var remoteCache = remoteCacheManager.getCache(name);
+        if (Objects.isNull(remoteCache))
+            return null;
+        var localSpec = localSpecs.get(name);
+        if (Objects.isNull(localSpec))
+            return cacheMap.computeIfAbsent(name, key -> remoteCache);
+        return cacheMap.computeIfAbsent(name, key -> new NearCache(remoteCache, localSpec, copier, this::publishInvalidation, meterRegistry));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remoteCacheManager.getCacheNames();
+    }
+
+    void publishInvalidation(String cacheName, Object key) {
+        // 非String的key无法可靠地在其他节点还原，直接让对端清空该缓存的L1
+        var message = new Invalidation(nodeId, cacheName, key instanceof String strKey ? strKey : null);
+        try {
+            invalidationTopic.publish(JsonUtils.toJSONString(message));
+        } catch (Exception e) {
+            // 发布失败时，对端只能依赖L1的过期时间兜底
+            log.error("Publish near cache invalidation failed: cache -> [{}], key -> [{}]", cacheName, key, e);
+        }
+    }
+
+    private void onInvalidation(String msg) {
+        var invalidation = JsonUtils.toJavaObject(msg, new TypeReference<Invalidation>() {
+        });
+        if (Objects.isNull(invalidation) || Objects.equals(nodeId, invalidation.origin()))
+            return;
+        if (cacheMap.get(invalidation.cacheName()) instanceof NearCache nearCache)
+            nearCache.invalidateLocal(invalidation.key());
+    }
+
+    /**
+     * 解析cache-config.yaml。Redisson自带的CacheConfig.fromYAML不认识local节点，这里自行解析
+     *
+     * @param location 配置文件
+     * @return Redisson的配置及L1的配置
+     */
+    public static Config loadConfig(Resource location) {
+        var factory = new YamlMapFactoryBean();
+        factory.setResources(location);
+        var yaml = factory.getObject();
+        var remote = new HashMap<String, CacheConfig>();
+        var local = new HashMap<String, LocalSpec>();
+        if (Objects.isNull(yaml))
+            return new Config(remote, local);
+        yaml.forEach((name, value) -> {
+            if (!(value instanceof Map<?, ?> props))
+                return;
+            var cacheConfig = new CacheConfig(toLong(props.get("ttl"), 0L), toLong(props.get("maxIdleTime"), 0L));
+            cacheConfig.setMaxSize((int) toLong(props.get("maxSize"), 0L));
+            remote.put(name, cacheConfig);
+            if (props.get("local") instanceof Map<?, ?> localProps)
+                local.put(name, new LocalSpec(toLong(localProps.get("maxSize"), 1024L), toLong(localProps.get("ttl"), 60000L),
+                        !Boolean.FALSE.equals(localProps.get("copyOnRead"))));
+        });
+        return new Config(remote, local);
+    }
+
+    private static long toLong(Object value, long defaultValue) {
+        if (value instanceof Number number)
+            return number.longValue();
+        if (value instanceof String str && !str.isBlank())
+            return Long.parseLong(str.trim());
+        return defaultValue;
+    }
+
+    /**
+     * @param remote Redisson各缓存的配置
+     * @param local  启用了L1的缓存的配置
+     */
+    public record Config(Map<String, CacheConfig> remote, Map<String, LocalSpec> local) {
+    }
+
+    /**
+     * @param maxSize    L1最大条目数
+     * @param ttl        L1写入后的过期时间(ms)，需小于Redisson的ttl，作为失效消息丢失时的兜底
+     * @param copyOnRead 读取时是否深拷贝，避免调用方修改L1中的对象（Redisson每次都会反序列化出新对象）。拷贝方式见 local.cache.fresh-mode
+     */
+    public record LocalSpec(long maxSize, long ttl, boolean copyOnRead) {
+    }
+
+    record Invalidation(String origin, String cacheName, String key) {
+    }
+}
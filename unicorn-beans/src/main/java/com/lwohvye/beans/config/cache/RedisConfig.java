@@ -21,14 +21,15 @@ import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
-import com.lwohvye.beans.config.LocalPropertyConfig;
 import com.lwohvye.core.custom.ConcurrentFreshCacheManager;
-import com.lwohvye.core.utils.json.JsonUtils;
+import com.lwohvye.core.custom.ConcurrentFreshMap;
 import com.lwohvye.core.utils.redis.RedisUtils;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.codec.digest.DigestUtils;
 import org.redisson.api.RedissonClient;
 import org.redisson.spring.cache.RedissonSpringCacheManager;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -44,6 +45,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Role;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
@@ -51,9 +53,6 @@ import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
-import java.lang.reflect.Method;
-import java.util.HashMap;
-
 /**
  * @author Zheng Jie
  * @date 2018-11-24
@@ -67,16 +66,23 @@ import java.util.HashMap;
 public class RedisConfig implements CachingConfigurer {
 
     // 这个是替换原来的RedisCacheManager的。通过该CacheManager，使用Cacheable 注解，缓存数据会被放在一个RMap 中，搞清楚这点后，可以比较精准的清除一些key
+    // 外面再套一层本地Caffeine，cache-config.yaml中配置了local的缓存，命中时不再走网络及反序列化
     @Bean
     @Primary
-    CacheManager redissonCacheManager(RedissonClient redissonClient) {
-        return new RedissonSpringCacheManager(redissonClient, "classpath:cache-config.yaml");
+    CacheManager redissonCacheManager(RedissonClient redissonClient, ObjectProvider<MeterRegistry> meterRegistry,
+                                      @Value("${local.cache.fresh-mode:json}") String freshMode) {
+        var config = NearCacheManager.loadConfig(new ClassPathResource("cache-config.yaml"));
+        var remoteCacheManager = new RedissonSpringCacheManager(redissonClient, config.remote());
+        return new NearCacheManager(remoteCacheManager, redissonClient, config.local(),
+                ConcurrentFreshMap.FreshMode.of(freshMode).getCopier(), meterRegistry.getIfAvailable());
     }
 
     // not suitable for caffeine
     @Bean
-    CacheManager localCacheManager() {
-        return new ConcurrentFreshCacheManager();
+    CacheManager localCacheManager(@Value("${local.cache.fresh-mode:json}") String freshMode) {
+        var cacheManager = new ConcurrentFreshCacheManager();
+        cacheManager.setFreshMode(ConcurrentFreshMap.FreshMode.of(freshMode));
+        return cacheManager;
     }
 
     /**
@@ -150,7 +156,7 @@ public class RedisConfig implements CachingConfigurer {
     }
 
     /**
-     * 自定义缓存key生成策略，默认将使用该策略。针对查询，使用toString作为key
+     * 自定义缓存key生成策略，默认将使用该策略。类名 + 方法名 + 参数的紧凑编码，详见StructuredKeyGenerator
      * 列表查询：放入缓存（包含条件筛选）
      * 新增操作：清除列表查询缓存。暂不做加入缓存操作
      * 修改操作：清除列表查询缓存、清除该记录相关的其他缓存（比如findById等）。暂不做加入缓存操作
@@ -159,36 +165,15 @@ public class RedisConfig implements CachingConfigurer {
     @Bean
     @Override
     public KeyGenerator keyGenerator() {
-        return (Object target, Method method, Object... params) -> {
-            // HashMap指定初始容量时，会根据给定的值，查找并设置不小于且距离给定值最近的2的幂为真正的初始容量。
-            // 因为若x为2的幂，则y%x = y&(x-1)，
-            // 默认初始容量为16，负载因子为0.75f。这里指定为8，当put的内容超过6时，将触发扩容，在当下一般一两个参数的情况下，够用了
-            var container = new HashMap<String, Object>(8);
-            var targetClassClass = target.getClass();
-            var methodName = method.getName();
-            // 类地址。可根据需要决定是否放入摘要中
-            container.put("class", targetClassClass.toGenericString());
-            // 方法名称。可根据需要决定是否放入摘要中
-            container.put("methodName", methodName);
-            // 包名称。可根据需要决定是否放入摘要中
-            container.put("package", targetClassClass.getPackage());
-            // 参数列表
-            for (int i = 0; i < params.length; i++) {
-                container.put(String.valueOf(i), params[i]);
-            }
-            // 转为JSON字符串
-            String jsonString = JsonUtils.toJSONString(container);
-            // 做SHA256 Hash计算，得到一个SHA256摘要作为Key
-            var sha256Hex = DigestUtils.sha256Hex(jsonString);
-            var classSimpleName = targetClassClass.getSimpleName();
-//            使用类名 + 方法名 + 摘要 做key，便于识别
-            return LocalPropertyConfig.SYS_NAME + classSimpleName + "::" + methodName + "::" + sha256Hex;
-        };
+        return new StructuredKeyGenerator();
     }
 
     @Bean
-    public RedisUtils redisUtils(RedisTemplate<Object, Object> redisTemplate, StringRedisTemplate stringRedisTemplate, RedissonClient redissonClient) {
-        return new RedisUtils(redisTemplate, stringRedisTemplate, redissonClient);
+    public RedisUtils redisUtils(RedisTemplate<Object, Object> redisTemplate, StringRedisTemplate stringRedisTemplate, RedissonClient redissonClient,
+                                 @Value("${local.redis.bulk-chunk-size:500}") int bulkChunkSize) {
+        var redisUtils = new RedisUtils(redisTemplate, stringRedisTemplate, redissonClient);
+        redisUtils.setBulkChunkSize(bulkChunkSize);
+        return redisUtils;
     }
 
     @Bean
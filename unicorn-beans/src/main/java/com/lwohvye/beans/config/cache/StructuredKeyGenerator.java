@@ -0,0 +1,375 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.beans.config.cache;
+
+import com.lwohvye.beans.config.LocalPropertyConfig;
+import com.lwohvye.core.annotation.Query;
+import com.lwohvye.core.utils.json.JsonUtils;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * 缓存key生成策略：类名 + 方法名作为前缀（每个方法只计算一次），参数按类型编码为紧凑的二进制后做Base64URL。
+ * 常见类型（基础类型、String、日期、集合、Pageable、QueryCriteria）直接编码，其余类型退化为JSON的SHA-256摘要；
+ * 编码结果过长时整体做SHA-256，避免过长的key。
+ * 编码需在集群各节点间保持一致，因此只依赖值本身与类名，不依赖本地的注册顺序等信息
+ */
+public class StructuredKeyGenerator implements KeyGenerator {
+
+    // 超过该长度的编码结果整体做摘要
+    static final int MAX_RAW_BYTES = 96;
+
+    // 摘要形式的key以此开头，Base64URL不含该字符，与原始编码不会冲突
+    static final char HASHED_MARK = '.';
+
+    private static final Base64.Encoder BASE64 = Base64.getUrlEncoder().withoutPadding();
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final Comparator<byte[]> BYTES_ORDER = Arrays::compare;
+
+    private final ConcurrentMap<MethodKey, String> prefixCache = new ConcurrentHashMap<>(256);
+
+    private final ClassValue<Encoder> encoders = new ClassValue<>() {
+        @Override
+        protected Encoder computeValue(Class<?> type) {
+            return encoderOf(type);
+        }
+    };
+
+    @Override
+    public Object generate(Object target, Method method, Object... params) {
+        var prefix = prefixCache.computeIfAbsent(new MethodKey(target.getClass(), method), StructuredKeyGenerator::prefixOf);
+        if (params.length == 0)
+            return prefix;
+        var buffer = new KeyBuffer(64);
+        for (var param : params)
+            encode(param, buffer);
+        return prefix + encodeKey(buffer.toByteArray());
+    }
+
+    static String encodeKey(byte[] bytes) {
+        if (bytes.length <= MAX_RAW_BYTES)
+            return BASE64.encodeToString(bytes);
+        return HASHED_MARK + BASE64.encodeToString(DigestUtils.sha256(bytes));
+    }
+
+    private static String prefixOf(MethodKey methodKey) {
+        var targetClass = methodKey.targetClass();
+        var method = methodKey.method();
+        var prefix = LocalPropertyConfig.SYS_NAME + targetClass.getSimpleName() + "::" + method.getName();
+        // 存在重载时补上参数类型，避免不同重载的参数编码恰好相同
+        var overloaded = Arrays.stream(targetClass.getMethods()).filter(m -> m.getName().equals(method.getName())).count() > 1;
+        if (overloaded)
+            prefix += Arrays.stream(method.getParameterTypes()).map(Class::getSimpleName).collect(Collectors.joining(",", "(", ")"));
+        return prefix + "::";
+    }
+
+    void encode(Object value, KeyBuffer buffer) {
+        if (value == null) {
+            buffer.write(Tag.NULL);
+            return;
+        }
+        encoders.get(value.getClass()).encode(value, this, buffer);
+    }
+
+    private Encoder encoderOf(Class<?> type) {
+        if (type == String.class)
+            return (value, generator, buffer) -> buffer.write(Tag.STRING).writeString((String) value);
+        if (type == Long.class || type == Integer.class || type == Short.class || type == Byte.class)
+            return (value, generator, buffer) -> buffer.write(Tag.INTEGRAL).writeVarLong(((Number) value).longValue());
+        if (type == Double.class || type == Float.class)
+            return (value, generator, buffer) -> buffer.write(Tag.FLOATING).writeVarLong(Double.doubleToLongBits(((Number) value).doubleValue()));
+        if (type == Boolean.class)
+            return (value, generator, buffer) -> buffer.write((Boolean) value ? Tag.TRUE : Tag.FALSE);
+        if (type == Character.class)
+            return (value, generator, buffer) -> buffer.write(Tag.CHAR).writeVarLong((Character) value);
+        if (type.isEnum() || Enum.class.isAssignableFrom(type))
+            return (value, generator, buffer) -> buffer.write(Tag.ENUM).writeString(((Enum<?>) value).getDeclaringClass().getName()).writeString(((Enum<?>) value).name());
+        if (type == BigDecimal.class || type == BigInteger.class)
+            return (value, generator, buffer) -> buffer.write(Tag.DECIMAL).writeString(value.toString());
+        if (Date.class.isAssignableFrom(type))
+            return StructuredKeyGenerator::encodeDate;
+        if (TemporalAccessor.class.isAssignableFrom(type) && type.getPackageName().equals("java.time"))
+            return (value, generator, buffer) -> buffer.write(Tag.TEMPORAL).writeString(type.getSimpleName()).writeString(value.toString());
+        if (Pageable.class.isAssignableFrom(type))
+            return StructuredKeyGenerator::encodePageable;
+        if (Sort.class.isAssignableFrom(type))
+            return (value, generator, buffer) -> encodeSort((Sort) value, buffer.write(Tag.SORT));
+        if (type.isArray())
+            return StructuredKeyGenerator::encodeArray;
+        if (Set.class.isAssignableFrom(type))
+            return StructuredKeyGenerator::encodeSet;
+        if (Collection.class.isAssignableFrom(type))
+            return StructuredKeyGenerator::encodeList;
+        if (Map.class.isAssignableFrom(type))
+            return StructuredKeyGenerator::encodeMap;
+        if (isCriteria(type)) {
+            var criteriaEncoder = CriteriaEncoder.of(type);
+            if (criteriaEncoder != null)
+                return criteriaEncoder;
+        }
+        return StructuredKeyGenerator::encodeUnknown;
+    }
+
+    private static boolean isCriteria(Class<?> type) {
+        if (type.getSimpleName().endsWith("QueryCriteria"))
+            return true;
+        for (Class<?> clazz = type; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass())
+            for (var field : clazz.getDeclaredFields())
+                if (field.isAnnotationPresent(Query.class))
+                    return true;
+        return false;
+    }
+
+    private static void encodeDate(Object value, StructuredKeyGenerator generator, KeyBuffer buffer) {
+        if (value instanceof java.sql.Timestamp timestamp)
+            buffer.write(Tag.TIMESTAMP).writeVarLong(timestamp.getTime()).writeVarLong(timestamp.getNanos());
+        else
+            buffer.write(Tag.DATE).writeVarLong(((Date) value).getTime());
+    }
+
+    private static void encodePageable(Object value, StructuredKeyGenerator generator, KeyBuffer buffer) {
+        var pageable = (Pageable) value;
+        if (pageable.isUnpaged()) {
+            encodeSort(pageable.getSort(), buffer.write(Tag.UNPAGED));
+            return;
+        }
+        buffer.write(Tag.PAGEABLE).writeVarLong(pageable.getPageNumber()).writeVarLong(pageable.getPageSize());
+        encodeSort(pageable.getSort(), buffer);
+    }
+
+    private static void encodeSort(Sort sort, KeyBuffer buffer) {
+        var orders = sort.toList();
+        buffer.writeVarLong(orders.size());
+        for (var order : orders)
+            buffer.writeString(order.getProperty()).writeVarLong(order.getDirection().ordinal())
+                    .writeVarLong(order.isIgnoreCase() ? 1 : 0).writeVarLong(order.getNullHandling().ordinal());
+    }
+
+    private static void encodeArray(Object value, StructuredKeyGenerator generator, KeyBuffer buffer) {
+        var length = Array.getLength(value);
+        buffer.write(Tag.LIST).writeVarLong(length);
+        for (int i = 0; i < length; i++)
+            generator.encode(Array.get(value, i), buffer);
+    }
+
+    private static void encodeList(Object value, StructuredKeyGenerator generator, KeyBuffer buffer) {
+        var collection = (Collection<?>) value;
+        buffer.write(Tag.LIST).writeVarLong(collection.size());
+        for (var element : collection)
+            generator.encode(element, buffer);
+    }
+
+    // 相等的Set迭代顺序未必相同，元素各自编码后排序
+    private static void encodeSet(Object value, StructuredKeyGenerator generator, KeyBuffer buffer) {
+        var set = (Set<?>) value;
+        var elements = new ArrayList<byte[]>(set.size());
+        for (var element : set) {
+            var elementBuffer = new KeyBuffer(16);
+            generator.encode(element, elementBuffer);
+            elements.add(elementBuffer.toByteArray());
+        }
+        elements.sort(BYTES_ORDER);
+        buffer.write(Tag.SET).writeVarLong(elements.size());
+        elements.forEach(buffer::writeRaw);
+    }
+
+    private static void encodeMap(Object value, StructuredKeyGenerator generator, KeyBuffer buffer) {
+        var map = (Map<?, ?>) value;
+        var entries = new ArrayList<byte[]>(map.size());
+        for (var entry : map.entrySet()) {
+            var entryBuffer = new KeyBuffer(32);
+            generator.encode(entry.getKey(), entryBuffer);
+            generator.encode(entry.getValue(), entryBuffer);
+            entries.add(entryBuffer.toByteArray());
+        }
+        entries.sort(BYTES_ORDER);
+        buffer.write(Tag.MAP).writeVarLong(entries.size());
+        entries.forEach(buffer::writeRaw);
+    }
+
+    // 未知类型：类名 + JSON的摘要。与之前的策略一致，依赖JSON序列化结果的稳定性
+    private static void encodeUnknown(Object value, StructuredKeyGenerator generator, KeyBuffer buffer) {
+        buffer.write(Tag.HASHED).writeString(value.getClass().getName()).writeRaw(DigestUtils.sha256(JsonUtils.toJSONString(value)));
+    }
+
+    @FunctionalInterface
+    interface Encoder {
+        void encode(Object value, StructuredKeyGenerator generator, KeyBuffer buffer);
+    }
+
+    /**
+     * QueryCriteria的编码：类名 + 按属性名排序的各public getter的值。getter的MethodHandle按类生成一次
+     *
+     * @param className 类名，前缀中已有方法信息，简单类名即可
+     * @param names     getter名，与值一同写入编码，避免字段增减后与旧的key混淆
+     * @param getters   与names一一对应
+     */
+    record CriteriaEncoder(String className, String[] names, MethodHandle[] getters) implements Encoder {
+
+        static CriteriaEncoder of(Class<?> type) {
+            if (!Modifier.isPublic(type.getModifiers()))
+                return null;
+            try {
+                // 只访问public getter，QueryCriteria所在的包exports即可，不需要opens
+                var lookup = MethodHandles.publicLookup();
+                var methods = Arrays.stream(type.getMethods())
+                        .filter(m -> !Modifier.isStatic(m.getModifiers()) && m.getParameterCount() == 0 && m.getDeclaringClass() != Object.class)
+                        .filter(m -> m.getName().startsWith("get") && m.getName().length() > 3
+                                     || m.getName().startsWith("is") && m.getName().length() > 2 && m.getReturnType() == boolean.class)
+                        .sorted(Comparator.comparing(Method::getName))
+                        .toList();
+                var names = new String[methods.size()];
+                var getters = new MethodHandle[methods.size()];
+                for (int i = 0; i < names.length; i++) {
+                    names[i] = methods.get(i).getName();
+                    getters[i] = lookup.unreflect(methods.get(i)).asType(GETTER_TYPE);
+                }
+                return new CriteriaEncoder(type.getSimpleName(), names, getters);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public void encode(Object value, StructuredKeyGenerator generator, KeyBuffer buffer) {
+            var properties = new KeyBuffer(32);
+            var count = 0;
+            for (int i = 0; i < getters.length; i++) {
+                Object property;
+                try {
+                    property = (Object) getters[i].invokeExact(value);
+                } catch (Throwable e) {
+                    throw new IllegalStateException("Read " + names[i] + " of " + className + " failed", e);
+                }
+                // 空值跳过，新增字段且未赋值时不影响已有的key
+                if (property == null)
+                    continue;
+                properties.writeString(names[i]);
+                generator.encode(property, properties);
+                count++;
+            }
+            buffer.write(Tag.CRITERIA).writeString(className).writeVarLong(count).writeRaw(properties.toByteArray());
+        }
+    }
+
+    static final class Tag {
+        static final int NULL = 0;
+        static final int STRING = 1;
+        static final int INTEGRAL = 2;
+        static final int FLOATING = 3;
+        static final int TRUE = 4;
+        static final int FALSE = 5;
+        static final int CHAR = 6;
+        static final int ENUM = 7;
+        static final int DECIMAL = 8;
+        static final int DATE = 9;
+        static final int TEMPORAL = 10;
+        static final int PAGEABLE = 11;
+        static final int UNPAGED = 12;
+        static final int SORT = 13;
+        static final int LIST = 14;
+        static final int SET = 15;
+        static final int MAP = 16;
+        static final int CRITERIA = 17;
+        static final int HASHED = 18;
+        static final int TIMESTAMP = 19;
+
+        private Tag() {
+        }
+    }
+
+    /**
+     * 简单的可扩容字节缓冲，字符串及集合均带长度前缀，保证编码无歧义
+     */
+    static final class KeyBuffer {
+
+        private byte[] bytes;
+        private int size;
+
+        KeyBuffer(int capacity) {
+            this.bytes = new byte[capacity];
+        }
+
+        KeyBuffer write(int b) {
+            ensure(1);
+            bytes[size++] = (byte) b;
+            return this;
+        }
+
+        // ZigZag + varint，小的数（含负数）只占1~2个字节
+        KeyBuffer writeVarLong(long value) {
+            var zigzag = (value << 1) ^ (value >> 63);
+            ensure(10);
+            while ((zigzag & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            bytes[size++] = (byte) zigzag;
+            return this;
+        }
+
+        KeyBuffer writeString(String value) {
+            var utf8 = value.getBytes(StandardCharsets.UTF_8);
+            return writeVarLong(utf8.length).writeRaw(utf8);
+        }
+
+        KeyBuffer writeRaw(byte[] raw) {
+            ensure(raw.length);
+            System.arraycopy(raw, 0, bytes, size, raw.length);
+            size += raw.length;
+            return this;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length)
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length << 1, size + extra));
+        }
+    }
+
+    private record MethodKey(Class<?> targetClass, Method method) {
+    }
+}
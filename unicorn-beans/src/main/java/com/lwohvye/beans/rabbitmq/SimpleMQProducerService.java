@@ -20,7 +20,9 @@ import com.lwohvye.core.utils.rabbitmq.XRabbitAbstractProducer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.core.AmqpTemplate;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.stereotype.Component;
 
@@ -35,7 +37,7 @@ import org.springframework.stereotype.Component;
 // @ConditionalOnMissingBean(SimpleMQProducerService.class) // 但这玩意不能标注自身，似乎默认规则是先把Component标注的Bean放入一个Cache中，然后matchCondition(根据Cache中的内容)，不满足再从Cache中移除
 @ConditionalOnMissingBean(ExtensionProducerService.class)
 // One way to salve this problem is to define a subClass for extension
-public sealed class SimpleMQProducerService extends XRabbitAbstractProducer permits ExtensionProducerService {
+public sealed class SimpleMQProducerService extends XRabbitAbstractProducer implements DisposableBean permits ExtensionProducerService {
 
     @Autowired
     public void setAmqpTemplate(AmqpTemplate amqpTemplate) {
@@ -43,6 +45,23 @@ public sealed class SimpleMQProducerService extends XRabbitAbstractProducer perm
         super.amqpTemplate = amqpTemplate;
     }
 
+    /**
+     * 异步发送(sendMsgAsync)的攒批参数
+     *
+     * @param lingerMillis 攒批的最长等待时间(ms)，为0时不攒批
+     * @param batchSize    每批最多的消息数
+     */
+    @Autowired
+    public void setLinger(@Value("${local.rabbitmq.producer.linger-ms:0}") long lingerMillis,
+                          @Value("${local.rabbitmq.producer.batch-size:64}") int batchSize) {
+        super.configureLinger(lingerMillis, batchSize);
+    }
+
+    @Override
+    public void destroy() {
+        super.stopLinger();
+    }
+
     /**
      * 定制RabbitTemplate
      * 1、服务收到消息就会回调
@@ -64,7 +83,13 @@ public sealed class SimpleMQProducerService extends XRabbitAbstractProducer perm
          * cause：失败的原因
          */
         //设置确认回调
-        rabbitTemplate.setConfirmCallback((correlationData, ack, cause) -> log.debug("confirm...correlationData[{}]==>ack:[{}]==>cause:[{}]", correlationData, ack, cause));
+        // 异步发送时，各消息的确认结果由CorrelationData的Future单独回传，这里只做记录
+        rabbitTemplate.setConfirmCallback((correlationData, ack, cause) -> {
+            if (ack)
+                log.debug("confirm...correlationData[{}]==>ack:[{}]==>cause:[{}]", correlationData, ack, cause);
+            else
+                log.warn("confirm...correlationData[{}]==>ack:[{}]==>cause:[{}]", correlationData, ack, cause);
+        });
 
 
         /*
@@ -12,7 +12,7 @@ module lwohvye.unicorn.beans {
     exports com.lwohvye.beans.rabbitmq;
 
     opens com.lwohvye.beans.config to spring.core;
-    opens com.lwohvye.beans.config.cache to spring.core;
+    opens com.lwohvye.beans.config.cache to spring.core, com.fasterxml.jackson.databind;
     opens com.lwohvye.beans.rabbitmq to spring.core;
     opens com.lwohvye.beans.config.security; // 这里应该能细化，先这样粗化，后续再说
     opens com.lwohvye.beans.config.swagger to spring.core;
@@ -0,0 +1,105 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.beans.config.cache;
+
+import com.lwohvye.core.bench.BenchmarkSupport;
+import com.lwohvye.core.utils.json.JsonUtils;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.runner.RunnerException;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Set;
+
+/**
+ * 对比原先的 HashMap + JSON + SHA-256 的key生成方式与StructuredKeyGenerator
+ */
+public class CacheKeyGeneratorBenchmark extends BenchmarkSupport {
+
+    public static class SampleService {
+        public Object queryAll(SampleQueryCriteria criteria, Pageable pageable) {
+            return null;
+        }
+
+        public Object findById(Long id) {
+            return null;
+        }
+    }
+
+    private final SampleService target = new SampleService();
+    private final KeyGenerator structured = new StructuredKeyGenerator();
+    private final KeyGenerator legacy = CacheKeyGeneratorBenchmark::legacyGenerate;
+
+    private Method queryAll;
+    private Method findById;
+    private SampleQueryCriteria criteria;
+    private Pageable pageable;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        queryAll = SampleService.class.getMethod("queryAll", SampleQueryCriteria.class, Pageable.class);
+        findById = SampleService.class.getMethod("findById", Long.class);
+        criteria = new SampleQueryCriteria();
+        criteria.setBlurry("admin");
+        criteria.setEnabled(true);
+        criteria.setDeptIds(Set.of(2L, 5L, 7L));
+        pageable = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "id"));
+    }
+
+    @Benchmark
+    public Object legacyCriteria() {
+        return legacy.generate(target, queryAll, criteria, pageable);
+    }
+
+    @Benchmark
+    public Object structuredCriteria() {
+        return structured.generate(target, queryAll, criteria, pageable);
+    }
+
+    @Benchmark
+    public Object legacyId() {
+        return legacy.generate(target, findById, 1L);
+    }
+
+    @Benchmark
+    public Object structuredId() {
+        return structured.generate(target, findById, 1L);
+    }
+
+    // 原RedisConfig.keyGenerator的实现
+    private static Object legacyGenerate(Object target, Method method, Object... params) {
+        var container = new HashMap<String, Object>(8);
+        var targetClassClass = target.getClass();
+        container.put("class", targetClassClass.toGenericString());
+        container.put("methodName", method.getName());
+        container.put("package", targetClassClass.getPackage());
+        for (int i = 0; i < params.length; i++)
+            container.put(String.valueOf(i), params[i]);
+        var sha256Hex = DigestUtils.sha256Hex(JsonUtils.toJSONString(container));
+        return targetClassClass.getSimpleName() + "::" + method.getName() + "::" + sha256Hex;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        run(CacheKeyGeneratorBenchmark.class);
+    }
+}
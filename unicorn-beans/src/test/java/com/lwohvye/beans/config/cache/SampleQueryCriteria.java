@@ -0,0 +1,44 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.beans.config.cache;
+
+import com.lwohvye.core.annotation.Query;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 测试用的QueryCriteria，字段取自UserQueryCriteria中的常见条件。需为public，StructuredKeyGenerator只读取public getter
+ */
+@Getter
+@Setter
+public class SampleQueryCriteria {
+
+    @Query
+    private Long id;
+
+    @Query(propName = "id", type = Query.Type.IN, joinName = "dept")
+    private Set<Long> deptIds = new HashSet<>();
+
+    @Query(blurry = "email,username,nickName")
+    private String blurry;
+
+    @Query
+    private Boolean enabled;
+}
@@ -0,0 +1,143 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.beans.config.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.lang.reflect.Method;
+import java.sql.Timestamp;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StructuredKeyGeneratorTest {
+
+    public static class SampleService {
+        public Object queryAll(SampleQueryCriteria criteria, Pageable pageable) {
+            return null;
+        }
+
+        public Object find(Object first, Object second) {
+            return null;
+        }
+
+        public Object find(Object first) {
+            return null;
+        }
+    }
+
+    private final StructuredKeyGenerator generator = new StructuredKeyGenerator();
+
+    private final SampleService target = new SampleService();
+
+    private String key(Method method, Object... params) {
+        return (String) generator.generate(target, method, params);
+    }
+
+    private static Method method(String name, Class<?>... types) throws NoSuchMethodException {
+        return SampleService.class.getMethod(name, types);
+    }
+
+    private static SampleQueryCriteria criteria(Long id, String blurry, Set<Long> deptIds) {
+        var criteria = new SampleQueryCriteria();
+        criteria.setId(id);
+        criteria.setBlurry(blurry);
+        criteria.setDeptIds(deptIds);
+        return criteria;
+    }
+
+    @Test
+    void testCriteriaAndPageable() throws NoSuchMethodException {
+        var queryAll = method("queryAll", SampleQueryCriteria.class, Pageable.class);
+        var page0 = PageRequest.of(0, 10);
+        var base = key(queryAll, criteria(1L, "admin", Set.of(1L, 2L)), page0);
+        assertTrue(base.contains("SampleService::queryAll::"));
+        assertEquals(base, key(queryAll, criteria(1L, "admin", Set.of(1L, 2L)), PageRequest.of(0, 10)));
+        assertNotEquals(base, key(queryAll, criteria(2L, "admin", Set.of(1L, 2L)), page0));
+        assertNotEquals(base, key(queryAll, criteria(1L, "admin2", Set.of(1L, 2L)), page0));
+        assertNotEquals(base, key(queryAll, criteria(1L, "admin", Set.of(1L)), page0));
+        assertNotEquals(base, key(queryAll, criteria(1L, "admin", Set.of(1L, 2L)), PageRequest.of(1, 10)));
+        assertNotEquals(base, key(queryAll, criteria(1L, "admin", Set.of(1L, 2L)), PageRequest.of(0, 20)));
+        assertNotEquals(base, key(queryAll, criteria(1L, "admin", Set.of(1L, 2L)), PageRequest.of(0, 10, Sort.by("id"))));
+        assertNotEquals(key(queryAll, null, PageRequest.of(0, 10, Sort.by("id"))),
+                key(queryAll, null, PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "id"))));
+        assertNotEquals(base, key(queryAll, criteria(1L, "admin", Set.of(1L, 2L)), Pageable.unpaged()));
+    }
+
+    @Test
+    void testSetOrderIndependent() throws NoSuchMethodException {
+        var find = method("find", Object.class);
+        var ascending = new LinkedHashSet<Long>();
+        var descending = new LinkedHashSet<Long>();
+        for (long i = 0; i < 100; i++) {
+            ascending.add(i);
+            descending.add(99 - i);
+        }
+        assertEquals(key(find, ascending), key(find, descending));
+        assertEquals(key(find, ascending), key(find, new HashSet<>(descending)));
+        // List保留顺序
+        assertNotEquals(key(find, List.copyOf(ascending)), key(find, List.copyOf(descending)));
+    }
+
+    @Test
+    void testNoAmbiguity() throws NoSuchMethodException {
+        var find2 = method("find", Object.class, Object.class);
+        var find1 = method("find", Object.class);
+        assertNotEquals(key(find2, "ab", "c"), key(find2, "a", "bc"));
+        assertNotEquals(key(find2, null, "x"), key(find2, "x", null));
+        assertNotEquals(key(find2, 1L, null), key(find2, "1", null));
+        assertNotEquals(key(find2, List.of("a", "b"), null), key(find2, List.of("a"), "b"));
+        assertNotEquals(key(find2, new Timestamp(1000L), null), key(find2, new java.util.Date(1000L), null));
+        // 重载方法的前缀不同
+        assertNotEquals(key(find1, "x"), key(find2, "x", null));
+        assertNotEquals(key(find1, true), key(find1, false));
+    }
+
+    @Test
+    void testLongKeyHashed() throws NoSuchMethodException {
+        var find = method("find", Object.class);
+        var longKey = key(find, "x".repeat(1000));
+        var other = key(find, "x".repeat(999) + "y");
+        assertTrue(longKey.length() < 200);
+        assertNotEquals(longKey, other);
+    }
+
+    @Test
+    void testNoCollisionInBulk() throws NoSuchMethodException {
+        var queryAll = method("queryAll", SampleQueryCriteria.class, Pageable.class);
+        var keys = new HashSet<String>();
+        var distinctInputs = new HashSet<List<Object>>();
+        for (long id = 0; id < 50; id++)
+            for (var blurry : List.of("", "a", "ab", "admin", "管理员"))
+                for (long dept = 0; dept < 20; dept++)
+                    for (int page = 0; page < 20; page++) {
+                        // id为0时deptIds只有一个元素，部分组合的输入相同，按输入去重后比较
+                        var deptIds = new HashSet<>(List.of(dept, dept + id));
+                        keys.add(key(queryAll, criteria(id, blurry, deptIds), PageRequest.of(page, 10)));
+                        distinctInputs.add(List.of(id, blurry, deptIds, page));
+                    }
+        assertEquals(distinctInputs.size(), keys.size());
+    }
+}
@@ -80,4 +80,8 @@ publishing {
 
 dependencies {
     api(project(":unicorn-core"))
+    testImplementation("org.springframework.boot:spring-boot-starter-test")
+    // JMH benchmarks live in src/test, run them via their main method
+    testImplementation(testFixtures(project(":unicorn-core")))
+    testAnnotationProcessor(libs.jmh.generator)
 }
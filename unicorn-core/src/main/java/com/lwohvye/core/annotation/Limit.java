@@ -16,6 +16,7 @@
 package com.lwohvye.core.annotation;
 
 
+import com.lwohvye.core.enums.LimitStrategy;
 import com.lwohvye.core.enums.LimitType;
 
 import java.lang.annotation.ElementType;
@@ -45,4 +46,11 @@ public @interface Limit {
     // 限制类型
     LimitType limitType() default LimitType.CUSTOMER;
 
+    // 执行方式
+    LimitStrategy strategy() default LimitStrategy.STRICT_REMOTE;
+
+    // LEASED时每次从Redis租借的令牌数，不大于count，小于等于0时取count的1/20（至少1个）。
+    // 租借的令牌可在下个周期用掉，单个周期内最多可能放行 count + 实例数×leaseSize，越大越接近2倍的count
+    int leaseSize() default 0;
+
 }
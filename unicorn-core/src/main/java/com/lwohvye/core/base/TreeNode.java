@@ -0,0 +1,23 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.core.base;
+
+/**
+ * 树形结构（菜单、部门）中只与层级相关的部分，用于构建 {@link com.lwohvye.core.custom.Hierarchy}
+ */
+public record TreeNode(Long id, String name, Long pid, Boolean enabled) {
+}
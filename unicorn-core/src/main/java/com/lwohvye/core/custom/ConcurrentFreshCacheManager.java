@@ -25,8 +25,18 @@ import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
  * CustomLocalCacheManager with fresh cache
  */
 public class ConcurrentFreshCacheManager extends ConcurrentMapCacheManager {
+
+    private ConcurrentFreshMap.FreshMode freshMode = ConcurrentFreshMap.FreshMode.JSON;
+
+    /**
+     * 需在获取Cache之前设置，已创建的Cache不受影响
+     */
+    public void setFreshMode(ConcurrentFreshMap.FreshMode freshMode) {
+        this.freshMode = freshMode;
+    }
+
     @Override
     protected @NotNull Cache createConcurrentMapCache(@NotNull String name) {
-        return new ConcurrentMapCache(name, new ConcurrentFreshMap<>(256), isAllowNullValues());
+        return new ConcurrentMapCache(name, new ConcurrentFreshMap<>(256, freshMode), isAllowNullValues());
     }
 }
@@ -16,31 +16,83 @@
 
 package com.lwohvye.core.custom;
 
-import com.lwohvye.core.utils.json.JsonUtils;
-import lombok.NoArgsConstructor;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Locale;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 
 // only override get/put for some specific scenario (need fresh value)
-@NoArgsConstructor
-@SuppressWarnings("unchecked")
 public class ConcurrentFreshMap<K, V> extends ConcurrentHashMap<K, V> {
 
+    // 存值时的拷贝，隔离调用方后续对原对象的修改
+    private final transient ValueCopier putCopier;
+
+    // 取值时的拷贝，隔离调用方对取出对象的修改
+    private final transient ValueCopier getCopier;
+
+    public ConcurrentFreshMap() {
+        this(16, FreshMode.JSON);
+    }
+
     public ConcurrentFreshMap(int initialCapacity) {
+        this(initialCapacity, FreshMode.JSON);
+    }
+
+    public ConcurrentFreshMap(int initialCapacity, FreshMode freshMode) {
+        this(initialCapacity, freshMode.putCopier, freshMode.getCopier);
+    }
+
+    public ConcurrentFreshMap(int initialCapacity, ValueCopier putCopier, ValueCopier getCopier) {
         super(initialCapacity);
+        this.putCopier = putCopier;
+        this.getCopier = getCopier;
     }
 
     @Override
     public V get(Object key) {
         var value = super.get(key);
-        if (Objects.nonNull(value)) return JsonUtils.deepCopy(value, (Class<V>) value.getClass());
+        if (Objects.nonNull(value)) return getCopier.copy(value);
         else return null;
     }
 
     @Override
     public V put(@NotNull K key, @NotNull V value) {
-        return super.put(key, JsonUtils.deepCopy(value, (Class<V>) value.getClass()));
+        return super.put(key, putCopier.copy(value));
+    }
+
+    public enum FreshMode {
+        /**
+         * 存取时都做JSON深拷贝，与早期行为一致，默认
+         */
+        JSON(ValueCopier.json(), ValueCopier.json()),
+        /**
+         * 存取时都做逐字段深拷贝，需显式开启
+         */
+        CLONER(ValueCopier.cloner(), ValueCopier.cloner()),
+        /**
+         * 存值时拷贝一份并将其中的集合冻结为不可修改，取值时不再拷贝。
+         * 只适用于取出后只读的场景，DTO本身的setter无法冻结，调用方需自觉不修改
+         */
+        SNAPSHOT(ValueCopier.freezer(), ValueCopier.identity());
+
+        private final ValueCopier putCopier;
+        private final ValueCopier getCopier;
+
+        FreshMode(ValueCopier putCopier, ValueCopier getCopier) {
+            this.putCopier = putCopier;
+            this.getCopier = getCopier;
+        }
+
+        /**
+         * 取值时的拷贝，其他本地缓存（如NearCache的L1）按同一模式拷贝时使用
+         */
+        public ValueCopier getCopier() {
+            return getCopier;
+        }
+
+        public static FreshMode of(String value) {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
     }
 }
@@ -0,0 +1,359 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.core.custom;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.lwohvye.core.utils.json.JsonUtils;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.PriorityBlockingQueue;
+
+/**
+ * 逐字段的深拷贝。按Class生成一次拷贝计划（构造器及各字段的getter/setter MethodHandle），之后的拷贝不再走反射。
+ * 需要DTO所在的包对本模块open，无法访问或没有无参构造的类型回退到JSON深拷贝。
+ * 与JSON方式一致，transient及@JsonIgnore的字段不拷贝，保持默认值；集合按原类型创建
+ */
+@Slf4j
+@SuppressWarnings("unchecked")
+final class FieldCloner implements ValueCopier {
+
+    static final FieldCloner MUTABLE = new FieldCloner(false);
+
+    static final FieldCloner FROZEN = new FieldCloner(true);
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType CTOR_TYPE = MethodType.methodType(Object.class);
+    private static final MethodType COMPARATOR_CTOR_TYPE = MethodType.methodType(Object.class, Comparator.class);
+
+    // 拷贝计划与是否冻结无关，两个实例共用
+    private static final ClassValue<Plan> PLANS = new ClassValue<>() {
+        @Override
+        protected Plan computeValue(Class<?> type) {
+            return planOf(type);
+        }
+    };
+
+    private final boolean freeze;
+
+    private FieldCloner(boolean freeze) {
+        this.freeze = freeze;
+    }
+
+    @Override
+    public <T> T copy(T value) {
+        if (value == null)
+            return null;
+        var plan = PLANS.get(value.getClass());
+        // 不可变的值最常见，不必创建IdentityHashMap
+        if (plan == ImmutablePlan.INSTANCE)
+            return value;
+        return (T) plan.copySafely(value, this, new IdentityHashMap<>());
+    }
+
+    private Object copy(Object value, IdentityHashMap<Object, Object> copied) {
+        if (value == null)
+            return null;
+        var existing = copied.get(value);
+        if (existing != null)
+            return existing;
+        return PLANS.get(value.getClass()).copySafely(value, this, copied);
+    }
+
+    private static Plan planOf(Class<?> type) {
+        if (isImmutable(type))
+            return ImmutablePlan.INSTANCE;
+        if (type.isArray())
+            return new ArrayPlan(type.getComponentType());
+        if (Date.class.isAssignableFrom(type))
+            return (value, cloner, copied) -> ((Date) value).clone(); // Timestamp的clone会保留nanos
+        if (Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type))
+            return CollectionPlan.of(type);
+        try {
+            // 本模块并未声明requires DTO所在的模块，MethodHandle访问前需补上readability
+            FieldCloner.class.getModule().addReads(type.getModule());
+            return type.isRecord() ? RecordPlan.of(type) : BeanPlan.of(type);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.debug("Fall back to json copy for [{}]: {}", type.getName(), e.getMessage());
+            return (value, cloner, copied) -> JsonUtils.deepCopy(value, (Class<Object>) value.getClass());
+        }
+    }
+
+    private static boolean isImmutable(Class<?> type) {
+        return type.isPrimitive() || type == String.class || type == Boolean.class || type == Character.class
+               || Number.class.isAssignableFrom(type) && (type.getName().startsWith("java.lang.") || type == BigDecimal.class || type == BigInteger.class)
+               || type.isEnum() || Enum.class.isAssignableFrom(type)
+               || type == UUID.class || type == Locale.class || type == Class.class
+               || type.getPackageName().equals("java.time");
+    }
+
+    @FunctionalInterface
+    private interface Plan {
+        Object copy(Object value, FieldCloner cloner, IdentityHashMap<Object, Object> copied) throws Throwable;
+
+        default Object copySafely(Object value, FieldCloner cloner, IdentityHashMap<Object, Object> copied) {
+            try {
+                return copy(value, cloner, copied);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("Copy value of " + value.getClass().getName() + " failed", e);
+            }
+        }
+    }
+
+    private enum ImmutablePlan implements Plan {
+        INSTANCE;
+
+        @Override
+        public Object copy(Object value, FieldCloner cloner, IdentityHashMap<Object, Object> copied) {
+            return value;
+        }
+    }
+
+    private record ArrayPlan(Class<?> componentType) implements Plan {
+        @Override
+        public Object copy(Object value, FieldCloner cloner, IdentityHashMap<Object, Object> copied) {
+            var length = Array.getLength(value);
+            if (componentType.isPrimitive()) {
+                var target = Array.newInstance(componentType, length);
+                System.arraycopy(value, 0, target, 0, length);
+                return target;
+            }
+            var source = (Object[]) value;
+            var target = (Object[]) Array.newInstance(componentType, length);
+            copied.put(value, target);
+            for (int i = 0; i < length; i++)
+                target[i] = cloner.copy(source[i], copied);
+            return target;
+        }
+    }
+
+    /**
+     * 集合按原类型创建，java.util下有（带Comparator的）公开构造的才行；
+     * 其他的（不可变集合、ORM的集合等）与JSON反序列化类似，按接口创建常用的实现
+     *
+     * @param constructor           无参构造，没有时为null
+     * @param comparatorConstructor 带Comparator的构造，没有时为null
+     */
+    private record CollectionPlan(MethodHandle constructor, MethodHandle comparatorConstructor) implements Plan {
+
+        static CollectionPlan of(Class<?> type) {
+            if (!type.getPackageName().startsWith("java.util") || Modifier.isAbstract(type.getModifiers()))
+                return new CollectionPlan(null, null);
+            var lookup = MethodHandles.publicLookup();
+            return new CollectionPlan(findConstructor(lookup, type, MethodType.methodType(void.class), CTOR_TYPE),
+                    findConstructor(lookup, type, MethodType.methodType(void.class, Comparator.class), COMPARATOR_CTOR_TYPE));
+        }
+
+        private static MethodHandle findConstructor(MethodHandles.Lookup lookup, Class<?> type, MethodType methodType, MethodType erased) {
+            try {
+                return lookup.findConstructor(type, methodType).asType(erased);
+            } catch (ReflectiveOperationException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public Object copy(Object value, FieldCloner cloner, IdentityHashMap<Object, Object> copied) throws Throwable {
+            var comparator = comparatorOf(value);
+            Object target;
+            if (comparator != null && comparatorConstructor != null)
+                target = (Object) comparatorConstructor.invokeExact(comparator);
+            else if (comparator == null && constructor != null)
+                target = (Object) constructor.invokeExact();
+            else
+                target = fallback(value, comparator);
+            copied.put(value, target);
+            if (value instanceof Map<?, ?> source) {
+                var map = (Map<Object, Object>) target;
+                for (var entry : source.entrySet())
+                    map.put(cloner.copy(entry.getKey(), copied), cloner.copy(entry.getValue(), copied));
+            } else {
+                var collection = (Collection<Object>) target;
+                for (var element : (Collection<Object>) value)
+                    collection.add(cloner.copy(element, copied));
+            }
+            return cloner.freeze ? freeze(target) : target;
+        }
+
+        // core的主代码按17编译，不使用switch的模式匹配
+        private static Comparator<Object> comparatorOf(Object value) {
+            Comparator<?> comparator = null;
+            if (value instanceof SortedSet<?> sortedSet)
+                comparator = sortedSet.comparator();
+            else if (value instanceof SortedMap<?, ?> sortedMap)
+                comparator = sortedMap.comparator();
+            else if (value instanceof PriorityQueue<?> priorityQueue)
+                comparator = priorityQueue.comparator();
+            else if (value instanceof PriorityBlockingQueue<?> priorityQueue)
+                comparator = priorityQueue.comparator();
+            return (Comparator<Object>) comparator;
+        }
+
+        private static Object fallback(Object value, Comparator<Object> comparator) {
+            if (value instanceof SortedMap<?, ?>)
+                return new TreeMap<>(comparator);
+            if (value instanceof Map<?, ?>)
+                return new LinkedHashMap<>();
+            if (value instanceof SortedSet<?>)
+                return new TreeSet<>(comparator);
+            if (value instanceof Set<?>)
+                return new LinkedHashSet<>();
+            if (value instanceof Queue<?> && !(value instanceof List<?>))
+                return comparator != null ? new PriorityQueue<>(comparator) : new LinkedList<>();
+            return new ArrayList<>();
+        }
+
+        // 只能按接口冻结，字段声明为具体类型时，由BeanPlan改用未冻结的拷贝
+        private static Object freeze(Object target) {
+            if (target instanceof SortedMap<?, ?> sortedMap)
+                return Collections.unmodifiableSortedMap(sortedMap);
+            if (target instanceof Map<?, ?> map)
+                return Collections.unmodifiableMap(map);
+            if (target instanceof SortedSet<?> sortedSet)
+                return Collections.unmodifiableSortedSet(sortedSet);
+            if (target instanceof Set<?> set)
+                return Collections.unmodifiableSet(set);
+            if (target instanceof List<?> list)
+                return Collections.unmodifiableList(list);
+            if (target instanceof Collection<?> collection)
+                return Collections.unmodifiableCollection(collection);
+            return target;
+        }
+    }
+
+    /**
+     * @param constructor 无参构造
+     * @param getters     各字段的getter，含父类的字段
+     * @param setters     与getters一一对应
+     * @param deep        与getters一一对应，字段类型本身不可变时为false，直接引用
+     * @param types       与getters一一对应，字段声明的类型
+     */
+    private record BeanPlan(MethodHandle constructor, MethodHandle[] getters, MethodHandle[] setters, boolean[] deep, Class<?>[] types) implements Plan {
+
+        static BeanPlan of(Class<?> type) throws ReflectiveOperationException {
+            var lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            var constructor = lookup.findConstructor(type, MethodType.methodType(void.class)).asType(CTOR_TYPE);
+            var getters = new ArrayList<MethodHandle>();
+            var setters = new ArrayList<MethodHandle>();
+            var deep = new ArrayList<Boolean>();
+            var types = new ArrayList<Class<?>>();
+            for (Class<?> clazz = type; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+                var fieldLookup = clazz == type ? lookup : MethodHandles.privateLookupIn(clazz, MethodHandles.lookup());
+                for (Field field : clazz.getDeclaredFields()) {
+                    // JSON方式不会拷贝的字段，这里也不拷贝
+                    if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers()) || isJsonIgnored(field))
+                        continue;
+                    // final字段的setter需要先setAccessible
+                    if (Modifier.isFinal(field.getModifiers()) && !field.trySetAccessible())
+                        throw new IllegalAccessException("final field not accessible: " + field);
+                    getters.add(fieldLookup.unreflectGetter(field).asType(GETTER_TYPE));
+                    setters.add(fieldLookup.unreflectSetter(field).asType(SETTER_TYPE));
+                    deep.add(!isImmutable(field.getType()));
+                    types.add(field.getType());
+                }
+            }
+            var deepArray = new boolean[deep.size()];
+            for (int i = 0; i < deepArray.length; i++)
+                deepArray[i] = deep.get(i);
+            return new BeanPlan(constructor, getters.toArray(MethodHandle[]::new), setters.toArray(MethodHandle[]::new), deepArray,
+                    types.toArray(Class<?>[]::new));
+        }
+
+        private static boolean isJsonIgnored(Field field) {
+            var jsonIgnore = field.getAnnotation(JsonIgnore.class);
+            return jsonIgnore != null && jsonIgnore.value();
+        }
+
+        @Override
+        public Object copy(Object value, FieldCloner cloner, IdentityHashMap<Object, Object> copied) throws Throwable {
+            var target = (Object) constructor.invokeExact();
+            copied.put(value, target);
+            for (int i = 0; i < getters.length; i++) {
+                var fieldValue = (Object) getters[i].invokeExact(value);
+                setters[i].invokeExact(target, deep[i] ? copyField(fieldValue, types[i], cloner, copied) : fieldValue);
+            }
+            return target;
+        }
+    }
+
+    // 冻结后的集合与字段声明的具体类型（如ArrayList）不符时，该字段不冻结
+    private static Object copyField(Object fieldValue, Class<?> fieldType, FieldCloner cloner, IdentityHashMap<Object, Object> copied) {
+        var copy = cloner.copy(fieldValue, copied);
+        return copy == null || fieldType.isPrimitive() || fieldType.isInstance(copy) ? copy : MUTABLE.copy(fieldValue);
+    }
+
+    /**
+     * record的字段无法通过setter写入，通过canonical constructor重建
+     */
+    private record RecordPlan(MethodHandle constructor, MethodHandle[] accessors, Class<?>[] types) implements Plan {
+
+        static RecordPlan of(Class<?> type) throws ReflectiveOperationException {
+            var lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            var components = type.getRecordComponents();
+            var accessors = new MethodHandle[components.length];
+            var types = new Class<?>[components.length];
+            for (int i = 0; i < components.length; i++) {
+                accessors[i] = lookup.unreflect(components[i].getAccessor()).asType(GETTER_TYPE);
+                types[i] = components[i].getType();
+            }
+            var constructor = lookup.findConstructor(type, MethodType.methodType(void.class, types))
+                    .asSpreader(Object[].class, components.length)
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+            return new RecordPlan(constructor, accessors, types);
+        }
+
+        @Override
+        public Object copy(Object value, FieldCloner cloner, IdentityHashMap<Object, Object> copied) throws Throwable {
+            var args = new Object[accessors.length];
+            for (int i = 0; i < accessors.length; i++)
+                args[i] = copyField((Object) accessors[i].invokeExact(value), types[i], cloner, copied);
+            var target = (Object) constructor.invokeExact(args);
+            copied.put(value, target);
+            return target;
+        }
+    }
+}
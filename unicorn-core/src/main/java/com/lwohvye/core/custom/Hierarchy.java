@@ -0,0 +1,223 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.core.custom;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * id/pid 结构（菜单、部门等）的只读索引。一次性传入全部节点，建立 id -> 下标 与 子节点的索引，
+ * 之后查子节点、子树、祖先都是线性的，不需要再逐层查库。建好后不可修改，可在多线程间共享。
+ * <p>
+ * pid为null或pid对应的节点不存在时，视为顶级节点；id重复的节点只保留第一个
+ *
+ * @param <T> 节点类型
+ */
+public final class Hierarchy<T> {
+
+    private final List<T> nodes;
+
+    private final LongIntMap index;
+
+    // 父节点下标，顶级节点为-1
+    private final int[] parents;
+
+    // 子节点下标，按CSR方式存放：节点i的子节点为 children[childStart[i], childStart[i + 1])，顺序与传入顺序一致
+    private final int[] childStart;
+    private final int[] children;
+
+    private final int[] roots;
+
+    private Hierarchy(List<T> nodes, Function<? super T, Long> idGetter, Function<? super T, Long> pidGetter) {
+        this.index = new LongIntMap(nodes.size());
+        var distinct = new ArrayList<T>(nodes.size());
+        for (var node : nodes) {
+            var id = Objects.requireNonNull(idGetter.apply(node), "id");
+            // id重复的只保留第一个
+            if (index.putIfAbsent(id, distinct.size()) == LongIntMap.MISSING)
+                distinct.add(node);
+        }
+        this.nodes = Collections.unmodifiableList(distinct);
+        var size = distinct.size();
+        this.parents = new int[size];
+        var childCount = new int[size + 1];
+        var rootCount = 0;
+        for (int i = 0; i < size; i++) {
+            var pid = pidGetter.apply(distinct.get(i));
+            var parent = Objects.isNull(pid) ? LongIntMap.MISSING : index.get(pid);
+            // 自己是自己的上级时按顶级处理，避免死循环
+            parents[i] = parent == i ? LongIntMap.MISSING : parent;
+            if (parents[i] == LongIntMap.MISSING)
+                rootCount++;
+            else
+                childCount[parents[i] + 1]++;
+        }
+        for (int i = 0; i < size; i++)
+            childCount[i + 1] += childCount[i];
+        this.childStart = childCount;
+        this.children = new int[size - rootCount];
+        this.roots = new int[rootCount];
+        var cursor = new int[size];
+        var r = 0;
+        for (int i = 0; i < size; i++) {
+            var parent = parents[i];
+            if (parent == LongIntMap.MISSING)
+                roots[r++] = i;
+            else
+                children[childStart[parent] + cursor[parent]++] = i;
+        }
+    }
+
+    /**
+     * @param nodes     全部节点，子节点及顶级节点的顺序与此一致，通常已按sort排好
+     * @param idGetter  /
+     * @param pidGetter /
+     */
+    public static <T> Hierarchy<T> of(List<T> nodes, Function<? super T, Long> idGetter, Function<? super T, Long> pidGetter) {
+        return new Hierarchy<>(nodes, idGetter, pidGetter);
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * @return 节点，不存在时为null
+     */
+    public T get(long id) {
+        var i = index.get(id);
+        return i == LongIntMap.MISSING ? null : nodes.get(i);
+    }
+
+    public boolean contains(long id) {
+        return index.get(id) != LongIntMap.MISSING;
+    }
+
+    /**
+     * 顶级节点
+     */
+    public List<T> roots() {
+        return collect(roots, 0, roots.length);
+    }
+
+    /**
+     * 直接子节点，id不存在时为空
+     */
+    public List<T> children(long id) {
+        var i = index.get(id);
+        if (i == LongIntMap.MISSING)
+            return Collections.emptyList();
+        return collect(children, childStart[i], childStart[i + 1]);
+    }
+
+    /**
+     * 同级节点（包含自身）。顶级节点的同级为全部顶级节点
+     */
+    public List<T> siblings(long id) {
+        var i = index.get(id);
+        if (i == LongIntMap.MISSING)
+            return Collections.emptyList();
+        var parent = parents[i];
+        return parent == LongIntMap.MISSING ? roots() : collect(children, childStart[parent], childStart[parent + 1]);
+    }
+
+    /**
+     * 上级节点，由近到远，不包含自身
+     */
+    public List<T> ancestors(long id) {
+        var i = index.get(id);
+        if (i == LongIntMap.MISSING)
+            return Collections.emptyList();
+        var result = new ArrayList<T>();
+        // 正常数据不会有环，以节点数为上限兜底
+        for (int p = parents[i], depth = 0; p != LongIntMap.MISSING && depth < parents.length; p = parents[p], depth++)
+            result.add(nodes.get(p));
+        return result;
+    }
+
+    /**
+     * 子孙节点，广度优先
+     *
+     * @param id          /
+     * @param includeSelf 是否包含自身
+     * @param filter      不满足的节点及其子树都会被跳过，自身不受影响
+     * @return id不存在时为空
+     */
+    public List<T> descendants(long id, boolean includeSelf, Predicate<? super T> filter) {
+        var i = index.get(id);
+        if (i == LongIntMap.MISSING)
+            return Collections.emptyList();
+        var queue = new int[nodes.size()];
+        var visited = new boolean[nodes.size()];
+        var head = 0;
+        var tail = 0;
+        queue[tail++] = i;
+        visited[i] = true;
+        var result = new ArrayList<T>();
+        if (includeSelf)
+            result.add(nodes.get(i));
+        while (head < tail) {
+            var current = queue[head++];
+            for (int c = childStart[current]; c < childStart[current + 1]; c++) {
+                var child = children[c];
+                if (visited[child] || !filter.test(nodes.get(child)))
+                    continue;
+                visited[child] = true;
+                result.add(nodes.get(child));
+                queue[tail++] = child;
+            }
+        }
+        return result;
+    }
+
+    public List<T> descendants(long id, boolean includeSelf) {
+        return descendants(id, includeSelf, node -> true);
+    }
+
+    private List<T> collect(int[] indexes, int from, int to) {
+        var result = new ArrayList<T>(to - from);
+        for (int i = from; i < to; i++)
+            result.add(nodes.get(indexes[i]));
+        return result;
+    }
+
+    /**
+     * 把一组节点组装成树，线性复杂度。有子节点的会通过childrenSetter设置（顺序与传入顺序一致），没有的不设置
+     *
+     * @param nodes          /
+     * @param idGetter       /
+     * @param pidGetter      /
+     * @param childrenSetter /
+     * @return 顶级节点（pid为null或上级不在nodes中），顺序与传入顺序一致
+     */
+    public static <T> List<T> assemble(List<T> nodes, Function<? super T, Long> idGetter, Function<? super T, Long> pidGetter,
+                                       BiConsumer<? super T, List<T>> childrenSetter) {
+        var hierarchy = of(nodes, idGetter, pidGetter);
+        for (int i = 0; i < hierarchy.nodes.size(); i++) {
+            var from = hierarchy.childStart[i];
+            var to = hierarchy.childStart[i + 1];
+            if (to > from)
+                childrenSetter.accept(hierarchy.nodes.get(i), hierarchy.collect(hierarchy.children, from, to));
+        }
+        return hierarchy.roots();
+    }
+}
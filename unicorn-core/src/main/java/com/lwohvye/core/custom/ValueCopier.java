@@ -0,0 +1,66 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.core.custom;
+
+import com.lwohvye.core.utils.json.JsonUtils;
+
+/**
+ * 本地缓存取值/存值时的拷贝策略，可自行实现后传给 {@link ConcurrentFreshMap}
+ */
+public interface ValueCopier {
+
+    <T> T copy(T value);
+
+    /**
+     * 原有的方式，序列化为JSON再反序列化回来。最通用，但也最慢
+     */
+    @SuppressWarnings("unchecked")
+    static ValueCopier json() {
+        return new ValueCopier() {
+            @Override
+            public <T> T copy(T value) {
+                return value == null ? null : JsonUtils.deepCopy(value, (Class<T>) value.getClass());
+            }
+        };
+    }
+
+    /**
+     * 基于MethodHandle逐字段拷贝，每个Class的拷贝计划只生成一次。不支持的类型回退到JSON
+     */
+    static ValueCopier cloner() {
+        return FieldCloner.MUTABLE;
+    }
+
+    /**
+     * 与cloner相同，但其中的集合都会被包装为不可修改的，用于snapshot模式下存值
+     */
+    static ValueCopier freezer() {
+        return FieldCloner.FROZEN;
+    }
+
+    /**
+     * 不拷贝，直接返回原对象
+     */
+    static ValueCopier identity() {
+        return new ValueCopier() {
+            @Override
+            public <T> T copy(T value) {
+                return value;
+            }
+        };
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.core.enums;
+
+/**
+ * 限流的执行方式
+ *
+ * @date 2025/10/16
+ */
+public enum LimitStrategy {
+    // 每次请求都到Redis取令牌，集群内严格限流，每次一个往返
+    STRICT_REMOTE,
+    // 从Redis按批租借令牌，在本地扣减，集群内近似限流，大部分请求无需访问Redis。
+    // 租借的令牌可跨窗口使用，单个周期内最多可能放行 限制 + 实例数×租借数，最坏接近2倍
+    LEASED,
+    // 仅本地令牌桶，按实例限流，不访问Redis
+    LOCAL
+}
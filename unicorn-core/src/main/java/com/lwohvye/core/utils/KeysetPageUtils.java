@@ -0,0 +1,109 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.core.utils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lwohvye.core.exception.BadRequestException;
+import com.lwohvye.core.utils.json.JsonUtils;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Keyset(seek)分页。按主键倒序，以上一页最后一条的主键作为下一页的起点（where id < ? order by id desc limit ?），
+ * 不受页码深度影响，适合sys_log、sys_quartz_log这类无限增长的表。
+ * <p>
+ * 查询条件同样由QueryHelp根据@Query生成。总数默认不查，需要时走短时缓存，避免每翻一页都count(*)
+ *
+ * @author lWoHvYe
+ * @date 2025/10/16
+ */
+public class KeysetPageUtils {
+
+    private KeysetPageUtils() {
+    }
+
+    /**
+     * 排序键。需要单调且唯一，这里用自增主键
+     */
+    public static final String SORT_KEY = "id";
+
+    public static final int MAX_SIZE = 500;
+
+    // 实体 + 查询条件 -> 总数。日志类的表只增不改，短时间内的误差可以接受
+    private static final Cache<String, Long> COUNT_CACHE = Caffeine.newBuilder()
+            .maximumSize(1024)
+            .expireAfterWrite(Duration.ofSeconds(30))
+            .build();
+
+    /**
+     * Keyset分页查询
+     *
+     * @param domainClass 实体类，用于总数缓存的key
+     * @param executor    /
+     * @param criteria    带@Query注解的查询条件
+     * @param cursor      上一页返回的next，首页传null
+     * @param size        每页条数，不超过MAX_SIZE
+     * @param withTotal   是否返回总数
+     * @param mapper      实体转换为返回的对象
+     * @return content、next（没有下一页时为null），withTotal时还有totalElements
+     */
+    public static <T> Map<String, Object> scroll(Class<T> domainClass, JpaSpecificationExecutor<T> executor, Object criteria,
+                                                 String cursor, int size, boolean withTotal, Function<? super T, ?> mapper) {
+        Specification<T> spec = (root, criteriaQuery, criteriaBuilder) -> QueryHelp.getPredicate(root, criteria, criteriaBuilder);
+        var limit = Math.max(1, Math.min(size, MAX_SIZE));
+        Window<T> window = executor.findBy(spec, query -> query.sortBy(Sort.by(Sort.Direction.DESC, SORT_KEY)).limit(limit).scroll(decodeCursor(cursor)));
+        var map = new LinkedHashMap<String, Object>(4);
+        map.put("content", window.map(mapper).getContent());
+        map.put("next", window.hasNext() && !window.isEmpty() ? encodeCursor(window.positionAt(window.size() - 1)) : null);
+        if (withTotal) {
+            var countKey = domainClass.getName() + ":" + JsonUtils.toJSONString(criteria);
+            map.put("totalElements", COUNT_CACHE.get(countKey, key -> executor.count(spec)));
+        }
+        return map;
+    }
+
+    private static ScrollPosition decodeCursor(String cursor) {
+        if (StringUtils.isBlank(cursor)) {
+            return ScrollPosition.keyset();
+        }
+        try {
+            var lastKey = Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+            return ScrollPosition.forward(Map.of(SORT_KEY, lastKey));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private static String encodeCursor(ScrollPosition position) {
+        var lastKey = ((KeysetScrollPosition) position).getKeys().get(SORT_KEY);
+        Objects.requireNonNull(lastKey, "Missing sort key in scroll position");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(lastKey.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -26,7 +26,11 @@ import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -39,6 +43,9 @@ import java.util.Objects;
  * on fields of a given query object. It supports simple multiple condition and join queries, but does
  * not support complex And, Or combination queries. For complex queries, it is recommended to use
  * QueryDSL or Native SQL.
+ * <p>
+ * The fields and annotations of each query class are analyzed only once and compiled into a {@link QueryPlan},
+ * building a predicate afterward only walks the fields that have a value.
  *
  * @author Zheng Jie, lWoHvYe
  * @since 2.6.0
@@ -50,6 +57,16 @@ import java.util.Objects;
 // @SuppressWarnings({"unchecked", "rawtypes", "unused"})
 public class QueryHelp {
 
+    private static final MethodType READER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    // 查询器Class -> 编译好的查询计划。Field、Annotation、blurry、joinName等只在首次使用时解析
+    private static final ClassValue<QueryPlan> QUERY_PLANS = new ClassValue<>() {
+        @Override
+        protected QueryPlan computeValue(@NotNull Class<?> type) {
+            return QueryPlan.compile(type);
+        }
+    };
+
     /**
      * 解析属性上的查询注解。贫瘠相应的查询
      * 当前已经支持了简单多条件的连表查询，但无法支持复杂的 And, Or 组合查询，这种要么使用QueryDSL要么干脆使用Native SQL。
@@ -68,7 +85,7 @@ public class QueryHelp {
             return cb.and(list.toArray(new Predicate[0]));
         }
         try {
-            // 根据Field及上面的Annotation，拼接Query & Join
+            // 根据编译好的查询计划，拼接Query & Join
             analyzeFieldQuery(root, query, cb, list);
         } catch (Exception e) {
             log.error(e.getMessage(), e);
@@ -78,71 +95,46 @@ public class QueryHelp {
         return cb.and(list.toArray(new Predicate[0]));
     }
 
-    private static <R, Q> void analyzeFieldQuery(Root<R> root, Q query, CriteriaBuilder cb, ArrayList<Predicate> list) throws IllegalAccessException {
-        for (var field : ReflectUtil.getFields(query.getClass())) {
-            // AccessibleObject 类是 Field、Method 和 Constructor 对象的基类。它提供了将反射的对象标记为在使用时取消默认 Java 语言访问控制检查的能力。
-            // 对于公共成员、默认（打包）访问成员、受保护成员和私有成员，在分别使用 Field、Method 或 Constructor 对象来设置或获得字段、调用方法，或者创建和初始化类的新实例的时候，会执行访问检查。
-            // 在反射对象中设置 accessible 标志允许具有足够特权的复杂应用程序（比如 Java Object Serialization 或其他持久性机制）以某种通常禁止使用的方式来操作对象，
-            // 需注意flag=true：指示反射的对象在使用时应该取消 Java 语言访问检查。flag=false：指示反射的对象应该实施 Java 语言访问检查。
-            // 所以setAccessible只是启用和禁用访问安全检查的开关,并不是为true就能访问，为false就不能访问
-            // ⚠️ Reflect获取的都是副本Duplicate，对其的Modifier理论上不会影响其他地方获取的结果，但有的框架或工具会对Reflect做Cache，所以建议在Use后Reset Accessible
-            // field.canAccess(filed对应的查询器实例)
-            var accessible = field.canAccess(query);
-            // boolean accessible = field.isAccessible(); // 方法已过期，改用canAccess
-            // 设置对象的访问权限，保证对private的属性的访
-            // field.setAccessible(true); // 用下面这种方式
-            if (!field.trySetAccessible()) // 设置成功/或本就是true。会返回true
-                continue; // 若设置失败，则跳过
-            Query q = field.getAnnotation(Query.class);
-            if (q != null) {
-                var blurry = q.blurry();
-                var value = field.get(query);
-                if (Objects.isNull(value) || Objects.equals("", value)) {
-                    continue;
-                }
-                // 模糊多字段
-                if (!blurry.isBlank()) {
-                    var blurrys = blurry.split(",");
-                    var orPredicate = new ArrayList<Predicate>();
-                    for (String s : blurrys) {
-                        orPredicate.add(cb.like(root.get(s).as(String.class), "%" + value + "%"));
-                    }
-                    var p = new Predicate[orPredicate.size()];
-                    list.add(cb.or(orPredicate.toArray(p)));
-                    continue;
+    private static <R, Q> void analyzeFieldQuery(Root<R> root, Q query, CriteriaBuilder cb, ArrayList<Predicate> list) {
+        for (var fieldPlan : QUERY_PLANS.get(query.getClass()).fields()) {
+            var value = fieldPlan.read(query);
+            if (Objects.isNull(value) || Objects.equals("", value)) {
+                continue;
+            }
+            // 模糊多字段
+            if (fieldPlan.blurryColumns().length > 0) {
+                var orPredicate = new Predicate[fieldPlan.blurryColumns().length];
+                for (int i = 0; i < orPredicate.length; i++) {
+                    orPredicate[i] = cb.like(root.get(fieldPlan.blurryColumns()[i]).as(String.class), "%" + value + "%");
                 }
-                // 解析查询类型
-                analyzeQueryType(root, query, cb, list, field);
+                list.add(cb.or(orPredicate));
+                continue;
             }
-            field.setAccessible(accessible); // 该回原来的属性
+            var join = analyzeJoinType(root, fieldPlan, value);
+            fieldPlan.factory().append(cb, getExpression(fieldPlan.attributeName(), join, root), value, list);
         }
     }
 
     /**
      * 解析joinType
      *
-     * @param root  /
-     * @param q     /
-     * @param value /
+     * @param root      /
+     * @param fieldPlan /
+     * @param value     /
      * @return jakarta.persistence.criteria.Join
      * @date 2021/6/24 10:52 上午
      */
     @Nullable
-    private static <R> Join<R, ?> analyzeJoinType(Root<R> root, Query q, Object value) {
+    private static <R> Join<R, ?> analyzeJoinType(Root<R> root, FieldPlan fieldPlan, Object value) {
         Join<R, ?> join = null;
-        var joinName = q.joinName();
-        if (joinName.isBlank())
-            return null;
-        // 首先获取已经设置的join。只用一次的话，使用聚合会降低性能，所以再次调整为循环的方式
-        // var existJoinNames = root.getJoins().stream().collect(Collectors.toMap(rJoin -> rJoin.getAttribute().getName(), rJoin -> rJoin, (o, o2) -> o2)); 只用一次，聚合不划算
         // 这里支持属性套属性。比如查User时，配置了连Role表 joinName = "roles"，若需要用Role中的Menus属性做一些过滤，则 joinName = "roles>menus" 这样配置即可，此时会连上sys_roles_menus和sys_menu两张表
-        var joinNames = joinName.split(">");
+        // joinName在编译查询计划时已按 > 拆分好
         checkJoin:
-        for (var entity : joinNames) {
+        for (var entity : fieldPlan.joinNames()) {
             // 若join已经有值了，就不走下面这段逻辑了。这里还保证了如果使用了>，只有第一层会走进来，避免一些问题，比如 roles>dept 和 dept。这俩个dept是不应用同一个join的
             // 业务中应该没有需要对同一张table多次join，甚至joinType还不同的情形。这里是不支持此类场景的
             if (Objects.isNull(join)) {
-//                    var rJoin = existJoinNames.get(entity); 同上
+                // root上的join通常只有一两个，循环比聚合划算
                 for (var rJoin : root.getJoins()) {
                     // 若已经设置过该joinName，则将已设置的rJoin赋值给join，开启下一循环
                     if (Objects.equals(rJoin.getAttribute().getName(), entity)) {
@@ -151,154 +143,129 @@ public class QueryHelp {
                     }
                 }
             }
-            // Switch Expressions。这个只是一个sweets 语法糖
             var stubJoin = Objects.nonNull(join) && Objects.nonNull(value);
-            join = switch (q.join()) {
-                case LEFT:
-                    yield stubJoin ? join.join(entity, JoinType.LEFT) : root.join(entity, JoinType.LEFT);
-                case RIGHT:
-                    yield stubJoin ? join.join(entity, JoinType.RIGHT) : root.join(entity, JoinType.RIGHT);
-                case INNER:
-                    yield stubJoin ? join.join(entity, JoinType.INNER) : root.join(entity, JoinType.INNER);
-            };
+            join = stubJoin ? join.join(entity, fieldPlan.joinType()) : root.join(entity, fieldPlan.joinType());
         }
         return join;
     }
 
     /**
-     * 解析query.type()。抽取主要为了方便调用
+     * 解析query.type()，为Field生成对应的PredicateFactory。只在编译查询计划时调用
      *
-     * @param root  /
-     * @param query /
-     * @param cb    /
-     * @param list  /
-     * @param field /
-     * @date 2021/6/24 10:52 上午
+     * @param field         /
+     * @param q             /
+     * @param attributeName /
+     * @return com.lwohvye.core.utils.QueryHelp.PredicateFactory
      */
     // ? extends E:接收E类型或者E的子类型。
     // ? super E:接收E类型或者E的父类型 https://www.lwohvye.com/2021/12/04/t%e3%80%81-super-t%e3%80%81-extends-t/
-    private static <R, Q> void analyzeQueryType(Root<R> root,
-                                                Q query,
-                                                CriteriaBuilder cb,
-                                                ArrayList<Predicate> list,
-                                                Field field) throws IllegalAccessException {
-        Query q = field.getAnnotation(Query.class);
-        var attributeName = defineAttrName(field, q);
-        var value = field.get(query);
+    private static PredicateFactory analyzeQueryType(Field field, Query q, String attributeName) {
         var fieldType = field.getType();
-        var comparableFieldType = value.castComparableFieldType();
-        var join = analyzeJoinType(root, q, value);
-
         // switch 的 -> 语法也只是语法糖
-        switch (q.type()) {
-            case EQUAL -> list.add(cb.equal(getExpression(attributeName, join, root).as(fieldType), value));
-            case NOT_EQUAL -> list.add(cb.notEqual(getExpression(attributeName, join, root), value));
-            case GREATER_THAN ->
-                // var comparableFieldType = (Class<? extends Comparable>) fieldType; // 最终试下来，这一步的强转是少不了的了。
-                // 需要的参数是这个样子的 (Expression<? extends Y> var1, Y var2)
-                //pt1：list.add(cb.greaterThanOrEqualTo(getExpression(attributeName, join, root).as(fieldType), ele));  fieldType未声明为Comparable的子类，不得行
-                //pt2：list.add(cb.greaterThanOrEqualTo(getExpression(attributeName, join, root).as(Comparable.class), ele));  Comparable无法转为Hibernate type，不得行
-                //pt3：list.add(cb.greaterThanOrEqualTo(getExpression(attributeName, join, root).as(comparableFieldType), comparableFieldType.cast(ele))); 当不采用C的方式定义时，这样也是不得行的
-                    list.add(cb.greaterThanOrEqualTo(getExpression(attributeName, join, root).as(comparableFieldType),
-                            value.castToComparable(attributeName, comparableFieldType)));
-            case LESS_THAN ->
-                    list.add(cb.lessThanOrEqualTo(getExpression(attributeName, join, root).as(comparableFieldType),
-                            value.castToComparable(attributeName, comparableFieldType)));
-            case LESS_THAN_NQ -> list.add(cb.lessThan(getExpression(attributeName, join, root).as(comparableFieldType),
-                    value.castToComparable(attributeName, comparableFieldType)));
-            case INNER_LIKE ->
-                    list.add(cb.like(getExpression(attributeName, join, root).as(String.class), "%" + value + "%"));
-            case LEFT_LIKE -> list.add(cb.like(getExpression(attributeName, join, root).as(String.class), "%" + value));
-            case RIGHT_LIKE ->
-                    list.add(cb.like(getExpression(attributeName, join, root).as(String.class), value + "%"));
-            case LIKE_STR ->
-                    list.add(cb.like(getExpression(attributeName, join, root).as(String.class), value.toString()));
-            case IN_INNER_LIKE -> {
+        return switch (q.type()) {
+            case EQUAL -> (cb, expression, value, list) -> list.add(cb.equal(expression.as(fieldType), value));
+            case NOT_EQUAL -> (cb, expression, value, list) -> list.add(cb.notEqual(expression, value));
+            case GREATER_THAN -> (cb, expression, value, list) -> list.add(greaterThanOrEqualTo(cb, expression, value, attributeName));
+            case LESS_THAN -> (cb, expression, value, list) -> list.add(lessThanOrEqualTo(cb, expression, value, attributeName));
+            case LESS_THAN_NQ -> (cb, expression, value, list) -> list.add(lessThan(cb, expression, value, attributeName));
+            case INNER_LIKE -> (cb, expression, value, list) -> list.add(cb.like(expression.as(String.class), "%" + value + "%"));
+            case LEFT_LIKE -> (cb, expression, value, list) -> list.add(cb.like(expression.as(String.class), "%" + value));
+            case RIGHT_LIKE -> (cb, expression, value, list) -> list.add(cb.like(expression.as(String.class), value + "%"));
+            case LIKE_STR -> (cb, expression, value, list) -> list.add(cb.like(expression.as(String.class), value.toString()));
+            case IN_INNER_LIKE -> (cb, expression, value, list) -> {
                 if (value instanceof List<?> objList) {
-//                                构建数组
+                    // 构建数组
                     var predicates = new Predicate[objList.size()];
                     for (int i = 0; i < objList.size(); i++) {
-                        var obj = objList.get(i);
-                        predicates[i] = cb.like(getExpression(attributeName, join, root).as(String.class), "%" + obj.toString() + "%");
+                        predicates[i] = cb.like(expression.as(String.class), "%" + objList.get(i).toString() + "%");
                     }
-//                                设置or查询
+                    // 设置or查询
                     list.add(cb.or(predicates));
                 }
-            }
-            case IN -> {
+            };
+            case IN -> (cb, expression, value, list) -> {
                 if (value instanceof Collection<?> col && !col.isEmpty()) {
                     // 这里不能用fieldType.cast(value)。因为in()方法的重载，会走进in(Object... var1)中，正常要进in(Collection<?> var1)
-                    list.add(getExpression(attributeName, join, root).in(col));
+                    list.add(expression.in(col));
                 }
-            }
-            case NOT_IN -> {
+            };
+            case NOT_IN -> (cb, expression, value, list) -> {
                 if (value instanceof Collection<?> col && !col.isEmpty()) {
-                    list.add(cb.not(getExpression(attributeName, join, root).in(col)));
+                    list.add(cb.not(expression.in(col)));
                 }
-            }
-            case BETWEEN -> {
-                if (value instanceof List<?> col && col.size() == 2 && col.get(0) instanceof Comparable<?> start && col.get(1) instanceof Comparable<?> end) {
-                    var eleType = start.castComparableFieldType();
-                    assert eleType != null;
-                    list.add(cb.between(getExpression(attributeName, join, root).as(eleType),
-                            start.castToComparable(attributeName, eleType), eleType.cast(end)));
+            };
+            case BETWEEN -> (cb, expression, value, list) -> {
+                var predicate = between(cb, expression, value, attributeName);
+                if (Objects.nonNull(predicate)) {
+                    list.add(predicate);
                 }
-            }
-            case NOT_NULL -> list.add(cb.isNotNull(getExpression(attributeName, join, root)));
-            case IS_NULL -> list.add(cb.isNull(getExpression(attributeName, join, root)));
-            case IN_OR_ISNULL -> {
+            };
+            case NOT_NULL -> (cb, expression, value, list) -> list.add(cb.isNotNull(expression));
+            case IS_NULL -> (cb, expression, value, list) -> list.add(cb.isNull(expression));
+            case IN_OR_ISNULL -> (cb, expression, value, list) -> {
                 if (value instanceof Collection<?> col && !col.isEmpty()) {
-                    list.add(
-//                                        在集合中
-                            cb.or(getExpression(attributeName, join, root).in(col)
-//                                                或值为null
-                                    , cb.isNull(getExpression(attributeName, join, root))
-//                                                或值为空字符串
-                                    , cb.equal(getExpression(attributeName, join, root).as(String.class), ""))
-                    );
+                    // 在集合中 或值为null 或值为空字符串
+                    list.add(cb.or(expression.in(col), cb.isNull(expression), cb.equal(expression.as(String.class), "")));
                 }
-            }
-            case IS_OR_NULL -> list.add((Long) value == -1L ?
-                    cb.isNull(getExpression(attributeName, join, root).as(fieldType)) :
-                    cb.equal(getExpression(attributeName, join, root).as(fieldType), value));
-            case EQUAL_IN_MULTI -> {
+            };
+            case IS_OR_NULL -> (cb, expression, value, list) -> list.add((Long) value == -1L ?
+                    cb.isNull(expression.as(fieldType)) :
+                    cb.equal(expression.as(fieldType), value));
+            case EQUAL_IN_MULTI -> (cb, expression, value, list) -> {
+                var strExpression = expression.as(String.class);
                 var predicates = new Predicate[4];
-//                            like value
-                predicates[0] = cb.like(getExpression(attributeName, join, root).as(String.class), value.toString());
-//                            like value,%
-                predicates[1] = cb.like(getExpression(attributeName, join, root).as(String.class), value + ",%");
-//                            like %,value,%
-                predicates[2] = cb.like(getExpression(attributeName, join, root).as(String.class), "%," + value + ",%");
-//                            like %,value
-                predicates[3] = cb.like(getExpression(attributeName, join, root).as(String.class), "%," + value);
-//                            设置查询
+                // like value
+                predicates[0] = cb.like(strExpression, value.toString());
+                // like value,%
+                predicates[1] = cb.like(strExpression, value + ",%");
+                // like %,value,%
+                predicates[2] = cb.like(strExpression, "%," + value + ",%");
+                // like %,value
+                predicates[3] = cb.like(strExpression, "%," + value);
+                // 设置查询
                 list.add(cb.or(predicates));
+            };
+            // https://github.com/elunez/eladmin/pull/745
+            // if we have a table with column tags， the column value of tags is comma split string, like："a,b,c"
+            // we want to quey it by 'querytag' (ex 'a'), using follow sql：
+            // SELECT * FROM table WHERE FIND_IN_SET('a', table.tags); 这是很常见的用法
+            // FIND_IN_SET函数是IN函数的升级版.功能类似.区别在于:如果是常量，则可以直接用IN， 否则要用FIND_IN_SET()函数
+            // MySQL中原型为：FIND_IN_SET(str,strlist)。 假如字符串str 在由N 子链组成的字符串列表strlist 中(子链指的是`,`分隔的字符串)，则返回值的范围在 1 到 N 之间.
+            // 如果str不在strlist 或strlist 为空字符串，则返回值为 0 。如任意一个参数为NULL，则返回值为 NULL。这个函数在第一个参数包含一个逗号( , )时将无法正常运行。
+            // 需注意，调用function后会产生结果，在外层要指定对结果的使用
+            case FUNCTION_FIND_IN_SET -> (cb, expression, value, list) ->
+                    list.add(cb.greaterThan(cb.function("FIND_IN_SET", Integer.class, cb.literal(value.toString()), expression), 0));
+            case FUNCTION_4_EQUAL -> {
+                var functionName = q.functionName();
+                yield (cb, expression, value, list) -> list.add(cb.equal(cb.function(functionName, fieldType, expression), value));
             }
-            case FUNCTION_FIND_IN_SET ->
-                // https://github.com/elunez/eladmin/pull/745
-                // if we have a table with column tags， the column value of tags is comma split string, like："a,b,c"
-                // we want to quey it by 'querytag' (ex 'a'), using follow sql：
-                // SELECT * FROM table WHERE FIND_IN_SET('a', table.tags); 这是很常见的用法
-                // FIND_IN_SET函数是IN函数的升级版.功能类似.区别在于:如果是常量，则可以直接用IN， 否则要用FIND_IN_SET()函数
-                // MySQL中原型为：FIND_IN_SET(str,strlist)。 假如字符串str 在由N 子链组成的字符串列表strlist 中(子链指的是`,`分隔的字符串)，则返回值的范围在 1 到 N 之间.
-                // 如果str不在strlist 或strlist 为空字符串，则返回值为 0 。如任意一个参数为NULL，则返回值为 NULL。这个函数在第一个参数包含一个逗号( , )时将无法正常运行。
-                // 注意；以下只是纯sql查询的情况，这里用了cb是没问题的，in也正常，估价如果用Mybatis可能会遇到这种坑
-                // select * from table where xxx in (list); // list = List.of("abc","def","str"); 这里是查不出来的，虽然list中有str，但list是变量
-                // select * from table where xxx in ('abc','def','str'); // 这个可以，因为in 里面是常量
-                // select * from table where FIND_IN_SET('str', list); // 这种也可以
-                // 需注意，调用function后会产生结果，在外层要指定对结果的使用
-                    list.add(cb.greaterThan(cb.function("FIND_IN_SET", Integer.class, cb.literal(value.toString()), getExpression(attributeName, join, root)), 0));
-//            case FUNCTION_FROM_BASE64:
-            // where (from_base64(user0_.description) like to_base64(user0_.description))。如何设置to_base64的参数为 fieldValue，是接下来的事情
-            //    list.add(cb.like(cb.function("from_base64", fieldType, getExpression(attributeName, join, root)), cb.function("to_base64", fieldType, getExpression(attributeName, join, root)))); // 多个是支持的
-            // where (from_base64(user0_.description) like '%ABC%') 。已基本可以使用
-//                list.add(cb.like(cb.function("from_base64", fieldType, getExpression(attributeName, join, root)).as(String.class), "%" + value.toString() + "%")); // 这种把调用函数硬编码了
-//                break; 后续移除
-            case FUNCTION_4_EQUAL ->
-                    list.add(cb.equal(cb.function(q.functionName(), fieldType, getExpression(attributeName, join, root)), value));
-            default -> {
-            }
+        };
+    }
+
+    // 需要的参数是这个样子的 (Expression<? extends Y> var1, Y var2)，fieldType未声明为Comparable的子类，所以需要根据value强转
+    private static Predicate greaterThanOrEqualTo(CriteriaBuilder cb, Expression<?> expression, Object value, String attributeName) {
+        var comparableFieldType = value.castComparableFieldType();
+        return cb.greaterThanOrEqualTo(expression.as(comparableFieldType), value.castToComparable(attributeName, comparableFieldType));
+    }
+
+    private static Predicate lessThanOrEqualTo(CriteriaBuilder cb, Expression<?> expression, Object value, String attributeName) {
+        var comparableFieldType = value.castComparableFieldType();
+        return cb.lessThanOrEqualTo(expression.as(comparableFieldType), value.castToComparable(attributeName, comparableFieldType));
+    }
+
+    private static Predicate lessThan(CriteriaBuilder cb, Expression<?> expression, Object value, String attributeName) {
+        var comparableFieldType = value.castComparableFieldType();
+        return cb.lessThan(expression.as(comparableFieldType), value.castToComparable(attributeName, comparableFieldType));
+    }
+
+    @Nullable
+    private static Predicate between(CriteriaBuilder cb, Expression<?> expression, Object value, String attributeName) {
+        if (value instanceof List<?> col && col.size() == 2 && col.get(0) instanceof Comparable<?> start && col.get(1) instanceof Comparable<?> end) {
+            var eleType = start.castComparableFieldType();
+            assert eleType != null;
+            return cb.between(expression.as(eleType), start.castToComparable(attributeName, eleType), eleType.cast(end));
         }
+        return null;
     }
 
     private static <R> Expression<?> getExpression(String attributeName, Join<R, ?> join, Root<R> root) {
@@ -317,6 +284,100 @@ public class QueryHelp {
         return !propName.isBlank() ? propName : field.getName();
     }
 
+    /**
+     * 读取Field的值。优先直接读Field（所在的包需要opens），否则退回到public getter（所在的包exports即可）
+     *
+     * @param field /
+     * @return java.lang.invoke.MethodHandle (Object)Object，都不可访问时返回null
+     */
+    @Nullable
+    private static MethodHandle fieldReader(Field field) {
+        var declaringClass = field.getDeclaringClass();
+        try {
+            QueryHelp.class.getModule().addReads(declaringClass.getModule());
+            return MethodHandles.privateLookupIn(declaringClass, MethodHandles.lookup()).unreflectGetter(field).asType(READER_TYPE);
+        } catch (IllegalAccessException | RuntimeException ignored) {
+            // 包未opens，尝试getter
+        }
+        var capitalized = StringUtils.capitalize(field.getName());
+        var getterName = field.getType() == boolean.class ? "is" + capitalized : "get" + capitalized;
+        try {
+            return MethodHandles.publicLookup().findVirtual(declaringClass, getterName, MethodType.methodType(field.getType())).asType(READER_TYPE);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 给Field生成查询条件
+     */
+    @FunctionalInterface
+    private interface PredicateFactory {
+        void append(CriteriaBuilder cb, Expression<?> expression, Object value, List<Predicate> list);
+    }
+
+    /**
+     * 单个Field编译后的查询计划
+     *
+     * @param name          field名，用于日志
+     * @param reader        (Object)Object 读取Field值的MethodHandle
+     * @param attributeName 查询的属性名
+     * @param blurryColumns 多字段模糊时的各列，非blurry时为空数组
+     * @param joinNames     按 > 拆分后的joinName，无join时为空数组
+     * @param joinType      /
+     * @param factory       blurry时为null
+     */
+    private record FieldPlan(String name, MethodHandle reader, String attributeName, String[] blurryColumns,
+                             String[] joinNames, JoinType joinType, PredicateFactory factory) {
+
+        Object read(Object query) {
+            try {
+                return (Object) reader.invokeExact(query);
+            } catch (Throwable e) {
+                throw new UtilsException("Fail to read " + name + ", error: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 查询器Class编译后的查询计划，只包含带有@Query且可读取的Field
+     */
+    private record QueryPlan(FieldPlan[] fields) {
+
+        static QueryPlan compile(Class<?> type) {
+            var fields = new ArrayList<FieldPlan>();
+            for (var field : ReflectUtil.getFields(type)) {
+                var q = field.getAnnotation(Query.class);
+                if (Objects.isNull(q) || Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                var reader = fieldReader(field);
+                if (Objects.isNull(reader)) {
+                    // 无法访问的跳过
+                    log.warn("Skip unreadable query field {}.{}", type.getName(), field.getName());
+                    continue;
+                }
+                var blurry = q.blurry();
+                var fieldName = type.getSimpleName() + "." + field.getName();
+                if (!blurry.isBlank()) {
+                    var blurryColumns = blurry.split(",");
+                    fields.add(new FieldPlan(fieldName, reader, field.getName(), blurryColumns, new String[0], JoinType.LEFT, null));
+                    continue;
+                }
+                var attributeName = defineAttrName(field, q);
+                var joinName = q.joinName();
+                var joinNames = joinName.isBlank() ? new String[0] : joinName.split(">");
+                var joinType = switch (q.join()) {
+                    case LEFT -> JoinType.LEFT;
+                    case RIGHT -> JoinType.RIGHT;
+                    case INNER -> JoinType.INNER;
+                };
+                fields.add(new FieldPlan(fieldName, reader, attributeName, new String[0], joinNames, joinType, analyzeQueryType(field, q, attributeName)));
+            }
+            return new QueryPlan(fields.toArray(FieldPlan[]::new));
+        }
+    }
+
     // 2021/11/6 使用JPA 2.1 引入的 CriteriaUpdate 和 CriteriaDelete 进行批量更新/删除。不是很实用，期待后续的使用场景
     public static <R, Q> void criteria4Update(Root<R> root, Q query, CriteriaBuilder cb) {
 //        var em = new EntityManager(); //获取em
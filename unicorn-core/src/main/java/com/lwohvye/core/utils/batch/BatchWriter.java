@@ -0,0 +1,288 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.core.utils.batch;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 攒批写入的公共部分。数据先进入有界的无锁环形队列，由单独的线程按条数或时间间隔攒批，交给{@link #write(List)}写入。
+ * 写入线程随容器启动，容器关闭时先写完队列中剩余的数据再退出；未启动或已停止时提交的数据在调用方线程直接写入。
+ * 队列满时按{@link Overflow}处理，调用方线程最多等待blockTimeout，不会被无限期占用
+ *
+ * @param <T> 队列中的元素，提交后不应再被修改
+ * @date 2025/10/17
+ */
+@Slf4j
+public abstract class BatchWriter<T> implements SmartLifecycle {
+
+    /**
+     * 晚于Web服务器、Quartz、MQ监听等生产方停止，早于它们启动
+     */
+    public static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private static final long STOP_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    public enum Overflow {
+        /**
+         * 丢弃，记入dropped
+         */
+        DROP,
+        /**
+         * 等待队列腾出空间，超过blockTimeout后按SPILL处理
+         */
+        BLOCK,
+        /**
+         * 交给{@link #spill(List)}，默认实现为丢弃
+         */
+        SPILL;
+
+        public static Overflow of(String value) {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private final String name;
+
+    private final int batchSize;
+
+    private final long flushIntervalNanos;
+
+    private final Overflow overflow;
+
+    private final long blockTimeoutNanos;
+
+    private final RingBuffer<T> buffer;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Counter droppedCounter;
+
+    private final Counter failedCounter;
+
+    private final DistributionSummary batchSizeSummary;
+
+    private final Timer flushTimer;
+
+    private volatile Thread drainer;
+
+    private volatile boolean running;
+
+    /**
+     * @param name          写入线程名，指标以其中的'-'换成'.'为前缀，如 bzlog-writer 对应 bzlog.writer.queue.depth
+     * @param capacity      队列容量，向上取整为2的幂
+     * @param blockTimeout  BLOCK时调用方最长的等待时间(ms)
+     * @param meterRegistry 指标注册
+     */
+    protected BatchWriter(String name, int capacity, int batchSize, long flushIntervalMillis, Overflow overflow, long blockTimeout,
+                          MeterRegistry meterRegistry) {
+        this.name = name;
+        this.batchSize = Math.max(batchSize, 1);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(flushIntervalMillis, 1));
+        this.overflow = Objects.requireNonNull(overflow);
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(blockTimeout, 0));
+        this.buffer = new RingBuffer<>(capacity);
+        this.meterRegistry = meterRegistry;
+
+        var prefix = name.replace('-', '.');
+        Gauge.builder(prefix + ".queue.depth", buffer, RingBuffer::size).description("待写入的条数").register(meterRegistry);
+        this.droppedCounter = Counter.builder(prefix + ".dropped").description("丢弃的条数").register(meterRegistry);
+        this.failedCounter = Counter.builder(prefix + ".failed").description("写入失败的条数").register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder(prefix + ".batch.size").description("每批写入的条数").register(meterRegistry);
+        this.flushTimer = Timer.builder(prefix + ".flush.latency").description("每批写入的耗时").register(meterRegistry);
+    }
+
+    /**
+     * 写入一批数据，失败时抛出异常
+     */
+    protected abstract void write(List<T> batch);
+
+    /**
+     * 队列满且不能等待时的处理，默认丢弃。子类可落到本地文件等，并在{@link #idle()}中回放
+     */
+    protected void spill(List<T> items) {
+        dropped(items.size());
+    }
+
+    /**
+     * 后台写入失败时的处理，默认记录日志后丢弃
+     */
+    protected void onFailure(List<T> batch, Exception e) {
+        log.error("Flush {} items of [{}] failed, drop them", batch.size(), name, e);
+    }
+
+    /**
+     * 队列为空时在写入线程中调用，可用于回放溢出的数据
+     */
+    protected void idle() {
+    }
+
+    protected final void dropped(int count) {
+        droppedCounter.increment(count);
+    }
+
+    protected final int batchSize() {
+        return batchSize;
+    }
+
+    protected final MeterRegistry meterRegistry() {
+        return meterRegistry;
+    }
+
+    /**
+     * 提交一条数据，异步写入。队列满时按overflow处理
+     */
+    protected final void enqueue(T item) {
+        if (!running) {
+            flush(List.of(item));
+            return;
+        }
+        if (buffer.offer(item)) {
+            if (buffer.size() >= batchSize)
+                LockSupport.unpark(drainer);
+            return;
+        }
+        switch (overflow) {
+            case DROP -> dropped(1);
+            case SPILL -> spill(List.of(item));
+            case BLOCK -> {
+                var deadline = System.nanoTime() + blockTimeoutNanos;
+                while (!buffer.offer(item)) {
+                    if (!running) {
+                        flush(List.of(item));
+                        return;
+                    }
+                    if (System.nanoTime() - deadline >= 0) {
+                        spill(List.of(item));
+                        return;
+                    }
+                    LockSupport.unpark(drainer);
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                }
+            }
+        }
+    }
+
+    /**
+     * 同步写入一批数据并记录指标，失败时抛出异常，由调用方处理
+     */
+    protected final void writeTimed(List<T> batch) {
+        var start = System.nanoTime();
+        try {
+            write(batch);
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            batchSizeSummary.record(batch.size());
+        }
+    }
+
+    private void flush(List<T> batch) {
+        try {
+            writeTimed(batch);
+        } catch (Exception e) {
+            failedCounter.increment(batch.size());
+            onFailure(batch, e);
+        }
+    }
+
+    private void drainLoop() {
+        var batch = new ArrayList<T>(batchSize);
+        var lastFlush = System.nanoTime();
+        while (running || !buffer.isEmpty()) {
+            T item;
+            while (batch.size() < batchSize && (item = buffer.poll()) != null)
+                batch.add(item);
+            var elapsed = System.nanoTime() - lastFlush;
+            if (batch.size() >= batchSize || (!batch.isEmpty() && (elapsed >= flushIntervalNanos || !running))) {
+                flush(List.copyOf(batch));
+                batch.clear();
+                lastFlush = System.nanoTime();
+            } else if (batch.isEmpty()) {
+                if (!running)
+                    continue;
+                try {
+                    idle();
+                } catch (RuntimeException e) {
+                    log.error("Idle task of [{}] failed", name, e);
+                }
+                lastFlush = System.nanoTime();
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            } else {
+                LockSupport.parkNanos(this, flushIntervalNanos - elapsed);
+            }
+        }
+        if (!batch.isEmpty())
+            flush(List.copyOf(batch));
+    }
+
+    @Override
+    public void start() {
+        synchronized (this) {
+            if (running)
+                return;
+            running = true;
+            var thread = new Thread(this::drainLoop, name);
+            thread.setDaemon(true);
+            drainer = thread;
+            thread.start();
+        }
+    }
+
+    /**
+     * 停止接收新数据，等待写入线程写完队列中剩余的数据
+     */
+    @Override
+    public void stop() {
+        Thread thread;
+        synchronized (this) {
+            if (!running)
+                return;
+            running = false;
+            thread = drainer;
+        }
+        LockSupport.unpark(thread);
+        try {
+            thread.join(STOP_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive())
+            log.warn("Writer [{}] did not finish in {}ms, {} items left in queue", name, STOP_TIMEOUT_MILLIS, buffer.size());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+}
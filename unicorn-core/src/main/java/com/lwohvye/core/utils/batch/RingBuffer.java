@@ -0,0 +1,97 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.core.utils.batch;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 有界的无锁环形队列，多生产者单消费者。每个槽位带一个序号，生产者CAS抢占tail后写入并发布序号，消费者按序号判断槽位是否可读
+ */
+final class RingBuffer<E> {
+
+    private final int mask;
+
+    private final AtomicReferenceArray<E> slots;
+
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong tail = new AtomicLong();
+
+    // 只有消费者写，volatile读取供size使用
+    private volatile long head;
+
+    RingBuffer(int capacity) {
+        var size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.mask = size - 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++)
+            sequences.set(i, i);
+    }
+
+    /**
+     * @return 队列已满时返回false
+     */
+    boolean offer(E element) {
+        while (true) {
+            var pos = tail.get();
+            var index = (int) (pos & mask);
+            var diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    slots.lazySet(index, element);
+                    sequences.set(index, pos + 1);
+                    return true;
+                }
+            } else if (diff < 0) {
+                return false;
+            }
+            // diff > 0 说明其他生产者已抢到该位置，重读tail
+        }
+    }
+
+    /**
+     * 仅供单个消费者线程调用
+     *
+     * @return 队列为空（或下一个槽位尚未发布）时返回null
+     */
+    E poll() {
+        var pos = head;
+        var index = (int) (pos & mask);
+        if (sequences.get(index) != pos + 1)
+            return null;
+        var element = slots.get(index);
+        slots.lazySet(index, null);
+        head = pos + 1;
+        sequences.set(index, pos + mask + 1);
+        return element;
+    }
+
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+}
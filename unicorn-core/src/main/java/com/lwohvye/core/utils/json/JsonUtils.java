@@ -33,6 +33,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -55,6 +57,8 @@ public class JsonUtils {
     // enable DefaultType for deserialize
     private static final ObjectMapper objectMapper5Details;
 
+    private static final String TRUNCATED_MARK = "...(truncated)";
+
     /**
      * 设置一些通用的属性
      */
@@ -130,6 +134,85 @@ public class JsonUtils {
         return defaultSupplier.get();
     }
 
+    /**
+     * 直接序列化为UTF-8字节，不经过中间String，用于发消息等最终需要byte[]的场景
+     *
+     * @param obj 要转json的对象，若是String类型，直接取UTF-8字节
+     * @return byte[] 失败时为空数组
+     */
+    public static byte[] toJSONBytes(Object obj) {
+        try {
+            if (Objects.isNull(obj))
+                return new byte[0];
+
+            if (obj instanceof String str)
+                return str.getBytes(StandardCharsets.UTF_8);
+
+            return objectMapper.writeValueAsBytes(obj);
+        } catch (Exception e) {
+            log.error("toJSONBytes {}", obj.getClass().getName(), e);
+        }
+        return new byte[0];
+    }
+
+    /**
+     * 序列化，结果超过maxLength个字符时停止序列化并截断，用于日志等只需要前一部分内容的场景
+     *
+     * @param obj       要转json的对象，若是String类型，只做截断
+     * @param maxLength 最大字符数，截断时会在末尾追加标记
+     * @return java.lang.String
+     */
+    public static String toJSONString(Object obj, int maxLength) {
+        if (Objects.isNull(obj))
+            return "";
+        if (obj instanceof String str)
+            return str.length() > maxLength ? str.substring(0, maxLength) + TRUNCATED_MARK : str;
+        var writer = new LimitedWriter(maxLength);
+        try {
+            objectMapper.writeValue(writer, obj);
+        } catch (Exception e) {
+            if (!writer.truncated) {
+                log.error("toJSONString {}", obj.getClass().getName(), e);
+                return "";
+            }
+        }
+        return writer.truncated ? writer.builder + TRUNCATED_MARK : writer.builder.toString();
+    }
+
+    /**
+     * 超出长度后抛出异常，让ObjectMapper提前结束，不必把整个对象序列化完
+     */
+    private static final class LimitedWriter extends Writer {
+        private final StringBuilder builder = new StringBuilder(256);
+        private final int maxLength;
+        private boolean truncated;
+
+        private LimitedWriter(int maxLength) {
+            this.maxLength = maxLength;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            var remaining = maxLength - builder.length();
+            if (len > remaining) {
+                builder.append(cbuf, off, Math.max(remaining, 0));
+                truncated = true;
+                throw new IOException("Exceed max length " + maxLength);
+            }
+            builder.append(cbuf, off, len);
+        }
+
+        @Override
+        public void flush() {
+            // nothing to flush
+        }
+
+        @Override
+        public void close() {
+            // nothing to close
+        }
+    }
+
     // endregion
 
     // region   toJavaObject
@@ -0,0 +1,92 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.core.utils.limit;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 从Redis按批租借令牌，在本地扣减。
+ * <p>
+ * 令牌都是从集群共享的限流器中取的，长期看集群的放行数不超过限制；但租借的令牌在租借后的一个周期内都可用，
+ * 上个窗口末尾租下没用完的会在下个窗口放行，所以任一周期内集群最多可能放行 限制 + 实例数×leaseSize，最坏接近2倍的限制。
+ * 没用完的令牌在一个周期后作废，其他时候集群实际放行的可能略少于限制。需要严格不超限时用STRICT_REMOTE。
+ * 本地租借的令牌用完时才访问Redis，同一时间只有一个线程去租借，租不到整批时退回到只取一个
+ *
+ * @date 2025/10/16
+ */
+public final class LeasedRateLimiter implements RequestLimiter {
+
+    private final RemoteRateLimiter remote;
+
+    private final long leaseSize;
+
+    private final long leaseTtlNanos;
+
+    private final ReentrantLock leaseLock = new ReentrantLock();
+
+    private volatile Lease lease = new Lease(0L, System.nanoTime());
+
+    private static final class Lease {
+        private final AtomicLong remaining;
+        private final long expireAt;
+
+        private Lease(long remaining, long expireAt) {
+            this.remaining = new AtomicLong(remaining);
+            this.expireAt = expireAt;
+        }
+
+        private boolean tryTake(long now) {
+            if (now - expireAt >= 0)
+                return false;
+            return remaining.getAndUpdate(value -> value > 0 ? value - 1 : 0) > 0;
+        }
+    }
+
+    /**
+     * @param remote    集群共享的限流器
+     * @param leaseSize 每次租借的令牌数
+     * @param period    限流周期，租借的令牌在一个周期后作废
+     */
+    public LeasedRateLimiter(RemoteRateLimiter remote, long leaseSize, Duration period) {
+        this.remote = remote;
+        this.leaseSize = Math.max(leaseSize, 1L);
+        this.leaseTtlNanos = period.toNanos();
+    }
+
+    @Override
+    public boolean tryAcquire() {
+        var current = lease;
+        if (current.tryTake(System.nanoTime()))
+            return true;
+        leaseLock.lock();
+        try {
+            var now = System.nanoTime();
+            // 等锁期间可能已被其他线程续上
+            if (lease != current && lease.tryTake(now))
+                return true;
+            long granted = remote.tryAcquire(leaseSize) ? leaseSize : remote.tryAcquire(1L) ? 1L : 0L;
+            if (granted == 0L)
+                return false;
+            lease = new Lease(granted - 1L, now + leaseTtlNanos);
+            return true;
+        } finally {
+            leaseLock.unlock();
+        }
+    }
+}
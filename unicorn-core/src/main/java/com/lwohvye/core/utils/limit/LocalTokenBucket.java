@@ -0,0 +1,58 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.core.utils.limit;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地令牌桶，无锁。按GCRA实现：只记录“理论上下一个令牌可用的时间”，每取一个令牌后移一个生成间隔，
+ * 超前当前时间一个周期以上即桶已取空。桶容量为permits，初始是满的
+ *
+ * @date 2025/10/16
+ */
+public final class LocalTokenBucket implements RequestLimiter {
+
+    // 每个令牌的生成间隔
+    private final long intervalNanos;
+
+    // 桶容量对应的时长
+    private final long burstNanos;
+
+    private final AtomicLong theoreticalArrival;
+
+    public LocalTokenBucket(long permits, Duration period) {
+        var count = Math.max(permits, 1L);
+        this.intervalNanos = Math.max(period.toNanos() / count, 1L);
+        this.burstNanos = intervalNanos * count;
+        this.theoreticalArrival = new AtomicLong(System.nanoTime());
+    }
+
+    @Override
+    public boolean tryAcquire() {
+        var now = System.nanoTime();
+        while (true) {
+            var current = theoreticalArrival.get();
+            // 空闲过一段时间后，不累积超过容量的令牌
+            var next = (current - now > 0 ? current : now) + intervalNanos;
+            if (next - now > burstNanos)
+                return false;
+            if (theoreticalArrival.compareAndSet(current, next))
+                return true;
+        }
+    }
+}
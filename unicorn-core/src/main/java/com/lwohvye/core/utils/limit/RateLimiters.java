@@ -0,0 +1,83 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.core.utils.limit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lwohvye.core.enums.LimitStrategy;
+import org.redisson.api.RRateLimiter;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * 按key缓存限流器实例，避免每次请求都重新获取、设置Redis限流器。
+ * 长时间未使用的会被移除（如按IP限流时的大量key），再次使用时重新创建
+ *
+ * @date 2025/10/16
+ */
+public final class RateLimiters {
+
+    private static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+
+    private static final Duration DEFAULT_EXPIRE_AFTER_ACCESS = Duration.ofMinutes(30L);
+
+    // 限流参数也作为key的一部分，修改注解后不会沿用旧的实例
+    private record Spec(String key, LimitStrategy strategy, long permits, Duration period, long leaseSize) {
+    }
+
+    private final Function<String, RRateLimiter> remoteFactory;
+
+    private final Cache<Spec, RequestLimiter> limiters;
+
+    /**
+     * @param remoteFactory key -> Redis限流器，如 redissonClient::getRateLimiter
+     */
+    public RateLimiters(Function<String, RRateLimiter> remoteFactory) {
+        this.remoteFactory = remoteFactory;
+        this.limiters = Caffeine.newBuilder()
+                .maximumSize(DEFAULT_MAXIMUM_SIZE)
+                .expireAfterAccess(DEFAULT_EXPIRE_AFTER_ACCESS)
+                .build();
+    }
+
+    /**
+     * 尝试获取一个令牌
+     *
+     * @param key       限流的key，也是Redis中限流器的key
+     * @param strategy  执行方式
+     * @param permits   每个周期的令牌数
+     * @param period    周期
+     * @param leaseSize LEASED时每次租借的令牌数，小于等于0时取permits的1/20
+     * @return 获取到为true
+     */
+    public boolean tryAcquire(String key, LimitStrategy strategy, long permits, Duration period, long leaseSize) {
+        return limiters.get(new Spec(key, strategy, permits, period, leaseSize), this::create).tryAcquire();
+    }
+
+    private RequestLimiter create(Spec spec) {
+        return switch (spec.strategy()) {
+            case LOCAL -> new LocalTokenBucket(spec.permits(), spec.period());
+            case STRICT_REMOTE -> new RemoteRateLimiter(remoteFactory.apply(spec.key()), spec.permits(), spec.period());
+            case LEASED -> {
+                var leaseSize = spec.leaseSize() > 0 ? spec.leaseSize() : spec.permits() / 20;
+                yield new LeasedRateLimiter(new RemoteRateLimiter(remoteFactory.apply(spec.key()), spec.permits(), spec.period()),
+                        Math.min(Math.max(leaseSize, 1L), spec.permits()), spec.period());
+            }
+        };
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.core.utils.limit;
+
+import org.redisson.api.RRateLimiter;
+import org.redisson.api.RateType;
+import org.redisson.client.RedisException;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Redis限流器，集群内共享。速率只在首次使用时设置一次，之后每次取令牌一个往返
+ *
+ * @date 2025/10/16
+ */
+public final class RemoteRateLimiter implements RequestLimiter {
+
+    private final RRateLimiter rateLimiter;
+
+    private final long permits;
+
+    private final Duration period;
+
+    private volatile boolean initialized;
+
+    public RemoteRateLimiter(RRateLimiter rateLimiter, long permits, Duration period) {
+        this.rateLimiter = rateLimiter;
+        this.permits = permits;
+        this.period = period;
+    }
+
+    @Override
+    public boolean tryAcquire() {
+        return tryAcquire(1L);
+    }
+
+    public boolean tryAcquire(long count) {
+        if (!initialized)
+            initialize();
+        try {
+            return rateLimiter.tryAcquire(count);
+        } catch (RedisException e) {
+            // 限流配置被清除（如key被删除）时重新设置一次
+            if (Objects.isNull(e.getMessage()) || !e.getMessage().contains("not initialized"))
+                throw e;
+            initialize();
+            return rateLimiter.tryAcquire(count);
+        }
+    }
+
+    private void initialize() {
+        // 已存在时不覆盖，与之前每次调用trySetRate的效果一致
+        rateLimiter.trySetRate(RateType.OVERALL, permits, period);
+        initialized = true;
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.core.utils.limit;
+
+/**
+ * 限流器，线程安全
+ *
+ * @date 2025/10/16
+ */
+public interface RequestLimiter {
+
+    /**
+     * 尝试获取一个令牌，不等待
+     *
+     * @return 获取到为true
+     */
+    boolean tryAcquire();
+}
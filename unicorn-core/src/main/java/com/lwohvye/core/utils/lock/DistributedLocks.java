@@ -0,0 +1,234 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.core.utils.lock;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 分布式锁，等待时不轮询。
+ * <p>
+ * 同一进程内对同一key的竞争先在本地排队（公平），只有队首去Redis加锁，加锁失败时等待释放通知，
+ * 通知丢失或持有者宕机时，最迟在持有者租期到时重试。本进程释放后，本地的下一个等待者直接去加锁，不依赖通知。
+ * <p>
+ * 未指定租期时由看门狗按租期的1/3续期，直到释放；续期失败（锁已过期被他人获取）时停止续期，受保护的写入应校验防护令牌。
+ * 本地的排队与租期绑定：指定租期且到期未释放、或看门狗确认锁已丢失时，视为本地也已释放，下一个等待者可以去加锁。
+ * 不可重入
+ *
+ * @date 2025/10/16
+ */
+@Slf4j
+public final class DistributedLocks {
+
+    public static final Duration DEFAULT_LEASE = Duration.ofSeconds(30L);
+
+    // 持有者没有租期信息时，重试的最长间隔
+    private static final long MAX_RECHECK_NANOS = TimeUnit.SECONDS.toNanos(1L);
+
+    // 所有实例共用，只做续期及租期到期的处理
+    private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        var thread = new Thread(runnable, "lock-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LockStore store;
+
+    // 本进程的标识，与序号组成每次加锁的owner
+    private final String node = UUID.randomUUID().toString();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final ConcurrentHashMap<String, KeyState> states = new ConcurrentHashMap<>();
+
+    // owner -> 持有中的锁
+    private final ConcurrentHashMap<String, Held> helds = new ConcurrentHashMap<>();
+
+    private static final class KeyState {
+
+        // 本地排队，不绑定线程，可在其他线程释放
+        private final Semaphore gate = new Semaphore(1, true);
+
+        // 收到释放通知时放入许可，唤醒等待者
+        private final Semaphore released = new Semaphore(0);
+
+        // 正在使用的线程数，只在compute中修改，为0时移除
+        private int users;
+    }
+
+    private static final class Held {
+
+        private final KeyState state;
+
+        // 续期或租期到期的任务
+        private volatile ScheduledFuture<?> task;
+
+        // 看门狗最近一次续期成功后，锁在Redis中的到期时间
+        private volatile long expiresAt;
+
+        private Held(KeyState state, long expiresAt) {
+            this.state = state;
+            this.expiresAt = expiresAt;
+        }
+
+        private void cancel() {
+            var future = task;
+            if (future != null)
+                future.cancel(false);
+        }
+    }
+
+    public DistributedLocks(LockStore store) {
+        this.store = store;
+        store.subscribe(this::onReleased);
+    }
+
+    /**
+     * 尝试加锁
+     *
+     * @param key       锁的key
+     * @param waitTime  最长等待时间
+     * @param leaseTime 租期，为null或不大于0时使用DEFAULT_LEASE并由看门狗续期
+     * @return 成功时为本次加锁，超时为null
+     * @throws InterruptedException 等待时被中断
+     */
+    public LockLease tryLock(String key, Duration waitTime, Duration leaseTime) throws InterruptedException {
+        var deadline = System.nanoTime() + waitTime.toNanos();
+        var state = retain(key);
+        var acquired = false;
+        try {
+            if (!state.gate.tryAcquire(waitTime.toNanos(), TimeUnit.NANOSECONDS))
+                return null;
+            try {
+                var watchdog = leaseTime == null || leaseTime.isZero() || leaseTime.isNegative();
+                var leaseMillis = (watchdog ? DEFAULT_LEASE : leaseTime).toMillis();
+                var owner = node + ":" + sequence.incrementAndGet();
+                while (true) {
+                    // 先清掉之前的通知，加锁失败后到达的通知才能唤醒
+                    state.released.drainPermits();
+                    var result = store.tryAcquire(key, owner, leaseMillis);
+                    if (result > 0) {
+                        acquired = true;
+                        hold(key, owner, state, leaseMillis, watchdog);
+                        return new LockLease(key, owner, result);
+                    }
+                    var remaining = deadline - System.nanoTime();
+                    if (remaining <= 0)
+                        return null;
+                    var holderTtl = result < 0 ? TimeUnit.MILLISECONDS.toNanos(-result) : MAX_RECHECK_NANOS;
+                    state.released.tryAcquire(Math.min(remaining, holderTtl), TimeUnit.NANOSECONDS);
+                }
+            } finally {
+                if (!acquired)
+                    state.gate.release();
+            }
+        } finally {
+            if (!acquired)
+                release(key);
+        }
+    }
+
+    /**
+     * 释放锁
+     *
+     * @param lease tryLock的返回
+     * @return 是否释放成功，锁已过期（含租期到期后本地已视为释放）、或已释放过时为false
+     */
+    public boolean unlock(LockLease lease) {
+        var held = helds.remove(lease.owner());
+        if (held == null)
+            return false;
+        held.cancel();
+        try {
+            return store.release(lease.key(), lease.owner());
+        } catch (RuntimeException e) {
+            log.error("Release lock {} failed, it will expire with its lease, reason: {}", lease.key(), e.getMessage());
+            return false;
+        } finally {
+            held.state.gate.release();
+            release(lease.key());
+        }
+    }
+
+    private void hold(String key, String owner, KeyState state, long leaseMillis, boolean watchdog) {
+        var held = new Held(state, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(leaseMillis));
+        helds.put(owner, held);
+        if (!watchdog) {
+            // 到期未释放时锁在Redis中已过期，本地也不再占着排队
+            held.task = WATCHDOG.schedule(() -> expire(key, owner), leaseMillis, TimeUnit.MILLISECONDS);
+            return;
+        }
+        var interval = Math.max(leaseMillis / 3, 1L);
+        held.task = WATCHDOG.scheduleWithFixedDelay(() -> renew(key, owner, held, leaseMillis), interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private void renew(String key, String owner, Held held, long leaseMillis) {
+        try {
+            if (store.renew(key, owner, leaseMillis)) {
+                held.expiresAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(leaseMillis);
+                return;
+            }
+            log.warn("Lock {} lost before release, stop renewing", key);
+        } catch (RuntimeException e) {
+            // 租期内恢复即可，下次再试
+            if (System.nanoTime() - held.expiresAt < 0) {
+                log.warn("Renew lock {} failed, reason: {}", key, e.getMessage());
+                return;
+            }
+            log.warn("Renew lock {} failed until its lease ended, treat it as lost, reason: {}", key, e.getMessage());
+        }
+        expire(key, owner);
+    }
+
+    // 锁已过期，尚未unlock时代为释放本地的排队。之后的unlock返回false
+    private void expire(String key, String owner) {
+        var held = helds.remove(owner);
+        if (held == null)
+            return;
+        held.cancel();
+        held.state.gate.release();
+        release(key);
+    }
+
+    private void onReleased(String key) {
+        var state = states.get(key);
+        if (state != null)
+            state.released.release();
+    }
+
+    private KeyState retain(String key) {
+        return states.compute(key, (k, state) -> {
+            if (state == null)
+                state = new KeyState();
+            state.users++;
+            return state;
+        });
+    }
+
+    private void release(String key) {
+        states.computeIfPresent(key, (k, state) -> --state.users == 0 ? null : state);
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.core.utils.lock;
+
+/**
+ * 一次成功的加锁
+ *
+ * @param key          锁的key
+ * @param owner        本次加锁的标识，释放、续期时校验
+ * @param fencingToken 防护令牌，同一key每次加锁单调递增。写入受保护的资源时一并带上，资源方拒绝比已见过的更小的令牌，
+ *                     以防持有者停顿（GC、网络）导致锁过期后仍继续写入
+ * @date 2025/10/16
+ */
+public record LockLease(String key, String owner, long fencingToken) {
+}
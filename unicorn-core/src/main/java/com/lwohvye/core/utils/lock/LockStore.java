@@ -0,0 +1,58 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.core.utils.lock;
+
+import java.util.function.Consumer;
+
+/**
+ * 锁在远端（Redis）的存储，每个方法都应是原子的
+ *
+ * @date 2025/10/16
+ */
+public interface LockStore {
+
+    /**
+     * 尝试加锁
+     *
+     * @param key         锁的key
+     * @param owner       本次加锁的标识
+     * @param leaseMillis 租期(ms)
+     * @return 成功时为防护令牌(大于0)；已被持有时为持有者剩余租期的相反数(小于等于0)，未知时为0
+     */
+    long tryAcquire(String key, String owner, long leaseMillis);
+
+    /**
+     * 续期，仍是owner持有时才续
+     *
+     * @return 是否续期成功
+     */
+    boolean renew(String key, String owner, long leaseMillis);
+
+    /**
+     * 释放，仍是owner持有时才释放，并通知等待者
+     *
+     * @return 是否释放成功
+     */
+    boolean release(String key, String owner);
+
+    /**
+     * 订阅释放通知
+     *
+     * @param listener 参数为被释放的锁的key
+     */
+    void subscribe(Consumer<String> listener);
+}
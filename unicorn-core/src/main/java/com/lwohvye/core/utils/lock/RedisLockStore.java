@@ -0,0 +1,122 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.core.utils.lock;
+
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 基于lua脚本的锁存储。锁与防护令牌的key带相同的hash tag，集群下位于同一slot；释放时在脚本中PUBLISH，经Redisson的RTopic订阅
+ * <p>
+ * 防护令牌的key在FENCE_TTL内无人加锁时过期，之后重新以Redis的当前时间(μs)起算，令牌仍单调递增
+ *
+ * @date 2025/10/16
+ */
+public final class RedisLockStore implements LockStore {
+
+    private static final String LOCK_PREFIX = "redis-lock:{";
+
+    private static final String FENCE_PREFIX = "redis-lock-fence:{";
+
+    private static final String RELEASED_CHANNEL = "redis-lock::released";
+
+    // 防护令牌的key的过期时间(ms)，每次加锁时顺延
+    private static final String FENCE_TTL = String.valueOf(Duration.ofDays(1L).toMillis());
+
+    // 成功返回INCR后的令牌，失败返回持有者剩余租期的相反数。令牌的key新建时以当前时间起算，保证比过期前发出的都大
+    private static final String LUA_ACQUIRE_SCRIPT =
+            """
+                    if redis.call('SET', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then
+                       local fence = redis.call('INCR', KEYS[2])
+                       if fence == 1 then
+                          local now = redis.call('TIME')
+                          local seed = now[1] .. string.format('%06d', tonumber(now[2]))
+                          redis.call('SET', KEYS[2], seed)
+                          fence = tonumber(seed)
+                       end
+                       redis.call('PEXPIRE', KEYS[2], ARGV[3])
+                       return fence
+                    end
+                    local ttl = redis.call('PTTL', KEYS[1])
+                    if ttl > 0 then
+                       return -ttl
+                    end
+                    return 0
+                    """;
+    private static final RedisScript<Long> ACQUIRE_SCRIPT = new DefaultRedisScript<>(LUA_ACQUIRE_SCRIPT, Long.class);
+
+    private static final String LUA_RENEW_SCRIPT =
+            """
+                    if redis.call('GET', KEYS[1]) == ARGV[1] then
+                       return redis.call('PEXPIRE', KEYS[1], ARGV[2])
+                    end
+                    return 0
+                    """;
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(LUA_RENEW_SCRIPT, Long.class);
+
+    private static final String LUA_RELEASE_SCRIPT =
+            """
+                    if redis.call('GET', KEYS[1]) == ARGV[1] then
+                       redis.call('DEL', KEYS[1])
+                       redis.call('PUBLISH', ARGV[2], ARGV[3])
+                       return 1
+                    end
+                    return 0
+                    """;
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(LUA_RELEASE_SCRIPT, Long.class);
+
+    private static final Long SUCCESS = 1L;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final RTopic releasedTopic;
+
+    public RedisLockStore(StringRedisTemplate stringRedisTemplate, RedissonClient redissonClient) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.releasedTopic = redissonClient.getTopic(RELEASED_CHANNEL, StringCodec.INSTANCE);
+    }
+
+    @Override
+    public long tryAcquire(String key, String owner, long leaseMillis) {
+        var result = stringRedisTemplate.execute(ACQUIRE_SCRIPT, List.of(LOCK_PREFIX + key + "}", FENCE_PREFIX + key + "}"),
+                owner, String.valueOf(leaseMillis), FENCE_TTL);
+        return result == null ? 0L : result;
+    }
+
+    @Override
+    public boolean renew(String key, String owner, long leaseMillis) {
+        return SUCCESS.equals(stringRedisTemplate.execute(RENEW_SCRIPT, List.of(LOCK_PREFIX + key + "}"), owner, String.valueOf(leaseMillis)));
+    }
+
+    @Override
+    public boolean release(String key, String owner) {
+        return SUCCESS.equals(stringRedisTemplate.execute(RELEASE_SCRIPT, List.of(LOCK_PREFIX + key + "}"), owner, RELEASED_CHANNEL, key));
+    }
+
+    @Override
+    public void subscribe(Consumer<String> listener) {
+        releasedTopic.addListener(String.class, (channel, key) -> listener.accept(key));
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.core.utils.rabbitmq;
+
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RMapCache;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 消息去重，两级：本地按时间分桶的布隆过滤器，Redis的RMapCache兜底。
+ * <p>
+ * 绝大多数消息都是首次投递，布隆过滤器判定“一定没见过”时不访问Redis，消费过的id攒批后异步写入Redis；
+ * 判定“可能见过”（真的重复或误判）时，才同步到Redis确认。另外启动时Redis中已有记录（重启前消费过的消息可能被重新投递），
+ * 则启动后的一个ttl内都同步确认。
+ * <p>
+ * 桶每ttl轮换一次，保留当前与上一个，所以一个id至少在ttl内可被识别。本地数据量超过预期时只是误判率上升、访问Redis变多，不影响正确性
+ * <p>
+ * 不再使用时需close，取消定时写入并把攒下的id写入Redis
+ *
+ * @date 2025/10/16
+ */
+@Slf4j
+public final class MessageIdFilter implements AutoCloseable {
+
+    public static final int DEFAULT_EXPECTED_INSERTIONS = 65_536;
+
+    // 误判率约1%对应的参数：每个元素约9.6bit，7个hash
+    private static final int BITS_PER_ELEMENT = 10;
+    private static final int HASH_COUNT = 7;
+
+    private static final int BATCH_SIZE = 256;
+
+    private static final long FLUSH_INTERVAL_MILLIS = 1000L;
+
+    // close时等待最后一批写入的时长
+    private static final long CLOSE_TIMEOUT_MILLIS = 5000L;
+
+    // 所有Filter共用，只做攒批的定时写入
+    private static final ScheduledExecutorService FLUSHER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        var thread = new Thread(runnable, "msg-id-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final String PLACEHOLDER = "";
+
+    // pending中还没有开始写入的id
+    private static final CompletableFuture<Void> UNSENT = new CompletableFuture<>();
+
+    private final RMapCache<String, String> remote;
+
+    private final long ttlMillis;
+
+    private final long ttlNanos;
+
+    private final int bucketBits;
+
+    private volatile BloomBucket current;
+
+    private volatile BloomBucket previous;
+
+    private volatile long rotateAt;
+
+    // 已消费、但还没有写入Redis的id。value为UNSENT，或所在批次的写入，完成前以此为准
+    private final ConcurrentHashMap<String, CompletableFuture<Void>> pending = new ConcurrentHashMap<>();
+
+    private final AtomicInteger unsent = new AtomicInteger();
+
+    // 在此之前需要同步到Redis确认
+    private final long verifyUntil;
+
+    private final ScheduledFuture<?> flushTask;
+
+    public MessageIdFilter(RMapCache<String, String> remote, Duration ttl, int expectedInsertions) {
+        this.remote = remote;
+        this.ttlMillis = ttl.toMillis();
+        this.ttlNanos = ttl.toNanos();
+        this.bucketBits = Math.max(64, expectedInsertions * BITS_PER_ELEMENT);
+        this.current = new BloomBucket(bucketBits);
+        this.previous = new BloomBucket(bucketBits);
+        var now = System.nanoTime();
+        this.rotateAt = now + ttlNanos;
+        this.verifyUntil = remoteExists() ? now + ttlNanos : now;
+        this.flushTask = FLUSHER.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 标记消息已消费
+     *
+     * @param messageId /
+     * @return 首次消费为true，消费过的为false
+     */
+    public boolean markIfAbsent(String messageId) {
+        if (pending.containsKey(messageId))
+            return false;
+        var now = System.nanoTime();
+        rotateIfNeeded(now);
+        var hash = hash(messageId);
+        var bucket = current;
+        if (now - verifyUntil < 0 || bucket.mightContain(hash) || previous.mightContain(hash)) {
+            var first = remote.fastPutIfAbsent(messageId, PLACEHOLDER, ttlMillis, TimeUnit.MILLISECONDS);
+            bucket.put(hash);
+            return first;
+        }
+        // 并发的同一id只有一个能放入
+        if (pending.putIfAbsent(messageId, UNSENT) != null)
+            return false;
+        bucket.put(hash);
+        if (unsent.incrementAndGet() >= BATCH_SIZE)
+            flush();
+        return true;
+    }
+
+    /**
+     * 取消已消费的标记，用于消费失败后重新消费。布隆过滤器中无法移除，之后该id会走Redis确认。
+     * 该id正在写入Redis时，等写入完成再删除，否则删除可能先于写入到达
+     *
+     * @param messageId /
+     */
+    public void remove(String messageId) {
+        var written = pending.remove(messageId);
+        if (written == UNSENT)
+            unsent.decrementAndGet();
+        else if (written != null)
+            written.join();
+        remote.fastRemove(messageId);
+    }
+
+    /**
+     * 将攒下的id批量写入Redis，异步。写入完成后才从pending中移除
+     */
+    public void flush() {
+        var batch = new HashMap<String, String>();
+        var written = new CompletableFuture<Void>();
+        for (var messageId : pending.keySet()) {
+            if (pending.replace(messageId, UNSENT, written)) {
+                unsent.decrementAndGet();
+                batch.put(messageId, PLACEHOLDER);
+            }
+        }
+        if (batch.isEmpty())
+            return;
+        remote.putAllAsync(batch, ttlMillis, TimeUnit.MILLISECONDS).whenComplete((result, throwable) -> {
+            if (throwable != null)
+                log.warn("Flush consumed message ids to {} failed, size: {}, reason: {}", remote.getName(), batch.size(), throwable.getMessage());
+            batch.keySet().forEach(messageId -> pending.remove(messageId, written));
+            written.complete(null);
+        });
+    }
+
+    /**
+     * 取消定时写入，并把攒下的id写入Redis，最多等待CLOSE_TIMEOUT_MILLIS
+     */
+    @Override
+    public void close() {
+        flushTask.cancel(false);
+        flush();
+        var writing = pending.values().stream().filter(written -> written != UNSENT).distinct().toArray(CompletableFuture[]::new);
+        try {
+            CompletableFuture.allOf(writing).get(CLOSE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("Close filter of {} before all ids written, size: {}, reason: {}", remote.getName(), pending.size(), e.getMessage());
+        }
+    }
+
+    private boolean remoteExists() {
+        try {
+            return remote.isExists();
+        } catch (RuntimeException e) {
+            log.warn("Check {} failed, verify with redis for a while, reason: {}", remote.getName(), e.getMessage());
+            return true;
+        }
+    }
+
+    private void rotateIfNeeded(long now) {
+        if (now - rotateAt < 0)
+            return;
+        synchronized (this) {
+            if (now - rotateAt < 0)
+                return;
+            previous = current;
+            current = new BloomBucket(bucketBits);
+            rotateAt = now + ttlNanos;
+        }
+    }
+
+    // FNV-1a 64位
+    private static long hash(String messageId) {
+        var hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < messageId.length(); i++) {
+            hash ^= messageId.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static final class BloomBucket {
+
+        private final AtomicLongArray words;
+
+        private final long bits;
+
+        private BloomBucket(int bits) {
+            this.words = new AtomicLongArray((bits + 63) >>> 6);
+            this.bits = (long) words.length() << 6;
+        }
+
+        // 双重hash生成HASH_COUNT个位置
+        private void put(long hash) {
+            var h1 = (int) hash;
+            var h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= HASH_COUNT; i++) {
+                var index = Math.floorMod(h1 + (long) i * h2, bits);
+                var mask = 1L << index;
+                var word = (int) (index >>> 6);
+                if ((words.get(word) & mask) == 0)
+                    words.accumulateAndGet(word, mask, (a, b) -> a | b);
+            }
+        }
+
+        private boolean mightContain(long hash) {
+            var h1 = (int) hash;
+            var h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= HASH_COUNT; i++) {
+                var index = Math.floorMod(h1 + (long) i * h2, bits);
+                if ((words.get((int) (index >>> 6)) & (1L << index)) == 0)
+                    return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.core.utils.rabbitmq;
+
+import com.lwohvye.core.exception.UtilsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.util.ClassUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 消息的extraData -> 目标方法 的分发表。启动时扫描目标对象上签名符合的public方法，一次性解析为MethodHandle，
+ * 之后不可修改，消费时只是一次Map查找加invokeExact，不再每条消息都findVirtual。
+ * <p>
+ * 不在表中的action直接拒绝（返回false），不抛异常、不走失败回调。每个action的耗时记在 rabbit.consumer.dispatch 下
+ *
+ * @date 2025/10/16
+ */
+public final class MsgDispatcher {
+
+    private static final String METRIC_NAME = "rabbit.consumer.dispatch";
+
+    private final String consumer;
+
+    // action -> 方法句柄（参数已展开为Object[]）及其耗时指标
+    private final Map<String, Action> actions;
+
+    private final Counter rejectedCounter;
+
+    private record Action(MethodHandle handle, Timer timer) {
+    }
+
+    private MsgDispatcher(String consumer, Map<String, Action> actions, Counter rejectedCounter) {
+        this.consumer = consumer;
+        this.actions = actions;
+        this.rejectedCounter = rejectedCounter;
+    }
+
+    /**
+     * @param consumer      消费者标识，用作指标的tag
+     * @param lookup        调用方的Lookup，需能访问target的类
+     * @param target        目标对象，可以是代理，方法按其原始类扫描，调用时仍经过代理
+     * @param type          目标方法的签名，返回值需为void
+     * @param meterRegistry /
+     */
+    public static MsgDispatcher of(String consumer, MethodHandles.Lookup lookup, Object target, MethodType type, MeterRegistry meterRegistry) {
+        var userClass = ClassUtils.getUserClass(target);
+        var parameterCount = type.parameterCount();
+        var erased = MethodType.methodType(void.class, Object[].class);
+        var actions = new HashMap<String, Action>();
+        for (var method : userClass.getMethods()) {
+            if (Modifier.isStatic(method.getModifiers()) || method.isBridge() || method.isSynthetic()
+                || method.getDeclaringClass() == Object.class
+                || method.getReturnType() != type.returnType()
+                || !Arrays.equals(method.getParameterTypes(), type.parameterArray()))
+                continue;
+            try {
+                var handle = lookup.unreflect(method).bindTo(target).asSpreader(Object[].class, parameterCount).asType(erased);
+                var timer = Timer.builder(METRIC_NAME).tag("consumer", consumer).tag("action", method.getName())
+                        .description("消息消费的耗时").register(meterRegistry);
+                actions.put(method.getName(), new Action(handle, timer));
+            } catch (IllegalAccessException e) {
+                throw new UtilsException("Cannot access " + method + ": " + e.getMessage());
+            }
+        }
+        var rejectedCounter = Counter.builder(METRIC_NAME + ".rejected").tag("consumer", consumer)
+                .description("不支持的action数").register(meterRegistry);
+        return new MsgDispatcher(consumer, Map.copyOf(actions), rejectedCounter);
+    }
+
+    public Set<String> actions() {
+        return actions.keySet();
+    }
+
+    /**
+     * @param action 即消息的extraData，对应目标方法名
+     * @param args   参数，个数与类型需与构建时的签名一致
+     * @return action不存在时为false，不做调用
+     * @throws UtilsException 目标方法执行失败
+     */
+    public boolean dispatch(String action, Object... args) {
+        var target = action == null ? null : actions.get(action);
+        if (target == null) {
+            rejectedCounter.increment();
+            return false;
+        }
+        var start = System.nanoTime();
+        try {
+            target.handle().invokeExact(args);
+            return true;
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new UtilsException(consumer + "." + action + " failed: " + e.getMessage());
+        } finally {
+            target.timer().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -18,18 +18,47 @@ package com.lwohvye.core.utils.rabbitmq;
 
 import cn.hutool.core.util.IdUtil;
 import com.lwohvye.core.utils.json.JsonUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
 import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.core.MessageBuilder;
 import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.util.Assert;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
+@Slf4j
 public abstract class XRabbitAbstractProducer {
 
     protected AmqpTemplate amqpTemplate;
 
+    // 异步发送的攒批等待时间，为0时不攒批
+    private long lingerNanos;
+
+    private int lingerBatchSize = 1;
+
+    // 攒批线程退出时置空，之后不再放入
+    private volatile BlockingQueue<Publish> lingerQueue;
+
+    private Thread lingerThread;
+
+    // stopLinger后不再重新启动攒批线程
+    private volatile boolean lingerStopped;
+
+    private record Publish(String exchangeName, String routeKey, Message message, CorrelationData correlationData,
+                           CompletableFuture<Void> result) {
+    }
+
     /**
      * 通用发送普通消息
      *
@@ -44,7 +73,7 @@ public abstract class XRabbitAbstractProducer {
 
     public void sendMsgEntity(String exchangeName, String routeKey, AmqpMsgEntity amqpMsgEntity) {
         amqpTemplate.send(exchangeName, routeKey,
-                MessageBuilder.withBody(JsonUtils.toJSONString(amqpMsgEntity).getBytes())
+                MessageBuilder.withBody(JsonUtils.toJSONBytes(amqpMsgEntity))
                         .setContentType(MessageProperties.CONTENT_TYPE_JSON)
                         .setContentEncoding("utf-8")
                         .setMessageId(String.valueOf(IdUtil.getSnowflakeNextId()))
@@ -99,7 +128,7 @@ public abstract class XRabbitAbstractProducer {
         var timeUnit = commonEntity.getTimeUnit();
         Assert.notNull(expire, "请设置消息延迟时间");
         Assert.notNull(timeUnit, "请设置时间单位");
-        var message = MessageBuilder.withBody(JsonUtils.toJSONString(commonEntity).getBytes())
+        var message = MessageBuilder.withBody(JsonUtils.toJSONBytes(commonEntity))
                 .setContentType(MessageProperties.CONTENT_TYPE_JSON)
                 .setContentEncoding("utf-8")
                 //通过给消息设置x-delay头来设置消息从交换机发送到队列的延迟时间；
@@ -108,4 +137,172 @@ public abstract class XRabbitAbstractProducer {
                 .build();
         amqpTemplate.send(exchangeName, routeKey, message);
     }
+
+    // region   异步发送
+
+    /**
+     * 异步发送普通消息，不等待上一条的确认就发下一条，确认通过CorrelationData流水线式地回来。
+     * 返回的Future在broker确认(ack)后完成，nack或消息未能路由到队列(returned)时异常完成；
+     * 未开启 publisher-confirm-type: correlated 时，发出即完成。
+     * <p>
+     * 消息体直接序列化为UTF-8字节，格式与sendMsg一致(text/plain)，消费方无需调整。设置了linger时，先在linger时间内攒批，再在同一个channel上连续发出
+     *
+     * @param exchangeName  /
+     * @param routeKey      /
+     * @param amqpMsgEntity /
+     * @return java.util.concurrent.CompletableFuture
+     * @date 2025/10/16
+     */
+    public CompletableFuture<Void> sendMsgAsync(String exchangeName, String routeKey, AmqpMsgEntity amqpMsgEntity) {
+        var messageId = String.valueOf(IdUtil.getSnowflakeNextId());
+        var message = MessageBuilder.withBody(JsonUtils.toJSONBytes(amqpMsgEntity))
+                .setContentType(MessageProperties.CONTENT_TYPE_TEXT_PLAIN)
+                .setContentEncoding(StandardCharsets.UTF_8.name())
+                .setMessageId(messageId)
+                .build();
+        var publish = new Publish(exchangeName, routeKey, message, new CorrelationData(messageId), new CompletableFuture<>());
+        if (!(amqpTemplate instanceof RabbitTemplate rabbitTemplate)) {
+            try {
+                amqpTemplate.send(exchangeName, routeKey, message);
+                publish.result().complete(null);
+            } catch (RuntimeException e) {
+                publish.result().completeExceptionally(e);
+            }
+            return publish.result();
+        }
+        if (rabbitTemplate.getConnectionFactory().isPublisherConfirms())
+            publish.correlationData().getFuture().whenComplete((confirm, throwable) -> {
+                var returned = publish.correlationData().getReturned();
+                if (throwable != null)
+                    publish.result().completeExceptionally(throwable);
+                else if (!confirm.isAck())
+                    publish.result().completeExceptionally(new AmqpException("Message " + messageId + " nacked, cause: " + confirm.getReason()));
+                else if (Objects.nonNull(returned))
+                    publish.result().completeExceptionally(new AmqpException("Message " + messageId + " returned, replyText: " + returned.getReplyText()));
+                else
+                    publish.result().complete(null);
+            });
+        var queue = lingerQueue(rabbitTemplate);
+        // 未开启攒批，或队列已满时在当前线程直接发送
+        if (Objects.isNull(queue) || !queue.offer(publish))
+            publish(rabbitTemplate, List.of(publish));
+        // 放入时攒批线程恰好退出，它最后一次取队列时可能已错过这条，还在队列里就自己发
+        else if (lingerQueue != queue && queue.remove(publish))
+            publish(rabbitTemplate, List.of(publish));
+        return publish.result();
+    }
+
+    /**
+     * 设置异步发送的攒批参数，需在首次异步发送前设置
+     *
+     * @param lingerMillis 攒批的最长等待时间(ms)，为0时不攒批
+     * @param batchSize    每批最多的消息数
+     */
+    protected void configureLinger(long lingerMillis, int batchSize) {
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(lingerMillis, 0L));
+        this.lingerBatchSize = Math.max(batchSize, 1);
+    }
+
+    /**
+     * 停止攒批线程，已攒下的消息在当前线程发出
+     */
+    protected void stopLinger() {
+        lingerStopped = true;
+        var thread = lingerThread;
+        if (Objects.isNull(thread))
+            return;
+        thread.interrupt();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5L));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private BlockingQueue<Publish> lingerQueue(RabbitTemplate rabbitTemplate) {
+        if (lingerNanos <= 0L || lingerBatchSize <= 1 || lingerStopped)
+            return null;
+        var queue = lingerQueue;
+        if (Objects.nonNull(queue))
+            return queue;
+        synchronized (this) {
+            if (Objects.isNull(lingerQueue) && !lingerStopped) {
+                // 容量有限，满了由调用方线程直接发送，相当于背压
+                var newQueue = new LinkedBlockingQueue<Publish>(lingerBatchSize * 64);
+                lingerThread = new Thread(() -> lingerLoop(rabbitTemplate, newQueue), "rabbit-producer-linger");
+                lingerThread.setDaemon(true);
+                lingerThread.start();
+                lingerQueue = newQueue;
+            }
+            return lingerQueue;
+        }
+    }
+
+    // 取到第一条后，在linger时间内攒够一批（或到时）即发出
+    private void lingerLoop(RabbitTemplate rabbitTemplate, BlockingQueue<Publish> queue) {
+        var batch = new ArrayList<Publish>(lingerBatchSize);
+        Throwable failure = null;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                batch.add(queue.take());
+                var deadline = System.nanoTime() + lingerNanos;
+                queue.drainTo(batch, lingerBatchSize - batch.size());
+                while (batch.size() < lingerBatchSize) {
+                    var next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (Objects.isNull(next))
+                        break;
+                    batch.add(next);
+                    queue.drainTo(batch, lingerBatchSize - batch.size());
+                }
+                publish(rabbitTemplate, batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+            // 先置空再取剩下的，之后放入的由调用方自己发
+            synchronized (this) {
+                if (lingerQueue == queue)
+                    lingerQueue = null;
+            }
+            queue.drainTo(batch);
+            if (Objects.nonNull(failure)) {
+                log.error("Linger thread exited unexpectedly, fail {} pending messages", batch.size(), failure);
+                var cause = failure;
+                batch.forEach(publish -> publish.result().completeExceptionally(cause));
+            } else if (!batch.isEmpty())
+                // 正常停止时把剩下的发完
+                publish(rabbitTemplate, batch);
+        }
+    }
+
+    // 同一批在一个channel上连续发出。未开启确认时，发出即完成
+    private static void publish(RabbitTemplate rabbitTemplate, List<Publish> batch) {
+        var confirms = rabbitTemplate.getConnectionFactory().isPublisherConfirms();
+        var sent = new int[]{0};
+        try {
+            rabbitTemplate.invoke(operations -> {
+                for (var publish : batch) {
+                    sent[0]++;
+                    try {
+                        operations.send(publish.exchangeName(), publish.routeKey(), publish.message(), publish.correlationData());
+                        if (!confirms)
+                            publish.result().complete(null);
+                    } catch (RuntimeException e) {
+                        // 序列化、路由等任何异常只影响这一条
+                        publish.result().completeExceptionally(e);
+                    }
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Publish {} messages failed, reason: {}", batch.size() - sent[0], e.getMessage());
+            batch.subList(sent[0], batch.size()).forEach(publish -> publish.result().completeExceptionally(e));
+        }
+    }
+
+    // endregion
 }
@@ -20,10 +20,14 @@ import com.lwohvye.core.utils.UnicornAbstractThreadUtils;
 import com.lwohvye.core.utils.json.JsonUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.amqp.core.Message;
 import org.springframework.util.StringUtils;
 
+import java.time.Duration;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.LockSupport;
 import java.util.function.Consumer;
@@ -35,7 +39,10 @@ import java.util.function.Function;
  * @date 2022/3/25 4:50 PM
  */
 @Slf4j
-public abstract class YRabbitAbstractConsumer {
+public abstract class YRabbitAbstractConsumer implements DisposableBean {
+
+    // 消费过的messageId保留的时长
+    private static final Duration CHECKED_TTL = Duration.ofMinutes(5L);
 
     // 使用线程池，做资源隔离。这里从19开始使用Virtual Threads（不再是一个用后归还的pool）。这个是类变量(static)，所有子类(实例)共享
     // As for Virtual Threads We create it, run it and then forget it. So this pool is just used for creating Threads.
@@ -50,6 +57,9 @@ public abstract class YRabbitAbstractConsumer {
     // 若用到该属性，子类需通过set注入
     protected RedissonClient redissonClient;
 
+    // checkedCache + curOrigin -> 该key下消费过的messageId
+    private final Map<String, MessageIdFilter> messageIdFilters = new ConcurrentHashMap<>();
+
     /**
      * @param msgStr           消息
      * @param allowedMsgType   支持的消息类型
@@ -112,7 +122,8 @@ public abstract class YRabbitAbstractConsumer {
             if (StringUtils.hasText(curOrigin) && Objects.equals(origin, curOrigin))
                 return null;
             // 通过messageId判断是否重复消费，因为事件可能会有广播类的，所以这里的cacheKey需根据情况确定是通用类、服务色彩、单个实例色彩
-            var noConsumer = !StringUtils.hasText(checkedCache) || redissonClient.getMapCache(checkedCache + curOrigin).fastPutIfAbsent(messageId, "", 5L, TimeUnit.MINUTES);
+            // 先查本地，本地不能确定时才访问Redis，见MessageIdFilter
+            var noConsumer = !StringUtils.hasText(checkedCache) || messageIdFilter(checkedCache, curOrigin).markIfAbsent(messageId);
             // 已经消费过，则跳过
             if (Boolean.FALSE.equals(noConsumer))
                 return null;
@@ -129,6 +140,29 @@ public abstract class YRabbitAbstractConsumer {
 
     public abstract void baseBeforeMessageConsumer(AmqpMsgEntity msgEntity);
 
+    protected MessageIdFilter messageIdFilter(String checkedCache, String curOrigin) {
+        return messageIdFilters.computeIfAbsent(checkedCache + curOrigin,
+                key -> new MessageIdFilter(redissonClient.getMapCache(key), CHECKED_TTL, MessageIdFilter.DEFAULT_EXPECTED_INSERTIONS));
+    }
+
+    // 关闭时写入各Filter攒下的id，并取消其定时任务
+    @Override
+    public void destroy() {
+        messageIdFilters.values().forEach(MessageIdFilter::close);
+        messageIdFilters.clear();
+    }
+
+    /**
+     * 移除消费过的标志，用于重新消费
+     *
+     * @param checkedCache 重复消费校验用key
+     * @param curOrigin    当前实例标识
+     * @param messageId    /
+     */
+    protected void removeConsumedMark(String checkedCache, String curOrigin, String messageId) {
+        messageIdFilter(checkedCache, curOrigin).remove(messageId);
+    }
+
     /**
      * 暂停2s后，重新消费，只会重复一次，经验证，这个不会造成block
      *
@@ -0,0 +1,29 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.core.utils.redis;
+
+import java.util.List;
+
+/**
+ * 二级索引（有序集合）分页的一页key
+ *
+ * @param keys  本页的key，按失效时间升序，相同时按key的字典序
+ * @param total 索引中未失效的key总数
+ * @date 2025/10/16
+ */
+public record IndexPage(List<String> keys, long total) {
+}
@@ -18,10 +18,14 @@ package com.lwohvye.core.utils.redis;
 import cn.hutool.core.util.ObjectUtil;
 import cn.hutool.core.util.StrUtil;
 import com.lwohvye.core.constant.LocalCoreConstant;
+import com.lwohvye.core.utils.lock.DistributedLocks;
+import com.lwohvye.core.utils.lock.LockLease;
+import com.lwohvye.core.utils.lock.RedisLockStore;
 import org.redisson.api.RedissonClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.redis.connection.DataType;
+import org.springframework.data.redis.connection.RedisPipelineException;
 import org.springframework.data.redis.core.*;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.data.redis.core.script.RedisScript;
@@ -32,6 +36,9 @@ import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Redis相关工具类。
@@ -56,6 +63,18 @@ public class RedisUtils {
     //    分布式锁失效时间
     private static final Long DISTRIBUTE_LOCK_EXPIRE = 200_000L;
 
+    // 批量操作时每次pipeline的命令数
+    private int bulkChunkSize = 500;
+
+    // 遍历key时单次SCAN的COUNT
+    private static final int SCAN_COUNT = 200;
+
+    // 单次scanPage最多的SCAN轮数，避免匹配的key很稀疏时一次调用扫描过多
+    private static final int SCAN_MAX_ROUNDS = 16;
+
+    // 首次使用tryLock时创建，创建时订阅释放通知
+    private volatile DistributedLocks distributedLocks;
+
     public RedisUtils(RedisTemplate<Object, Object> redisTemplate, StringRedisTemplate stringRedisTemplate, RedissonClient redissonClient) {
         this.redisTemplate = redisTemplate;
         this.stringRedisTemplate = stringRedisTemplate;
@@ -187,26 +206,14 @@ public class RedisUtils {
     }
 
     /**
-     * 查找匹配key
+     * 查找匹配key。会遍历整个keyspace并全部放入内存，key多时用 {@link #scanPage} 或 {@link #scanEach}
      *
      * @param pattern key
      * @return /
      */
     public List<String> scan(String pattern) {
-        var options = ScanOptions.scanOptions().match(pattern).build();
-        var factory = redisTemplate.getConnectionFactory();
-        var rc = Objects.requireNonNull(factory).getConnection();
         List<String> result = new ArrayList<>();
-        try (var cursor = rc.keyCommands().scan(options)) {
-            while (cursor.hasNext()) {
-                result.add(new String(cursor.next()));
-            }
-        }
-        try {
-            RedisConnectionUtils.releaseConnection(rc, factory);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-        }
+        scanEach(pattern, SCAN_COUNT, result::addAll);
         return result;
     }
 
@@ -221,7 +228,7 @@ public class RedisUtils {
     }
 
     /**
-     * 分页查询 key
+     * 分页查询 key。需从头扫描到所在页，页码大时用 {@link #scanPage} 按游标翻页
      *
      * @param patternKey key
      * @param page       页码
@@ -229,35 +236,84 @@ public class RedisUtils {
      * @return /
      */
     public List<String> findKeysForPage(String patternKey, int page, int size) {
-        var options = ScanOptions.scanOptions().match(patternKey).build();
-        var factory = redisTemplate.getConnectionFactory();
-        var rc = Objects.requireNonNull(factory).getConnection();
+        var fromIndex = (long) page * size;
+        var toIndex = fromIndex + size;
         List<String> result = new ArrayList<>(size);
-        try (var cursor = rc.keyCommands().scan(options)) {
-            int tmpIndex = 0;
-            int fromIndex = page * size;
-            int toIndex = page * size + size;
+        long tmpIndex = 0;
+        try (var cursor = stringRedisTemplate.scan(scanOptions(patternKey, SCAN_COUNT))) {
             while (cursor.hasNext()) {
-                if (tmpIndex >= fromIndex && tmpIndex < toIndex) {
-                    result.add(new String(cursor.next()));
-                    tmpIndex++;
-                    continue;
-                }
-                // 还未获取到满足条件的数据,继续
-                if (tmpIndex < toIndex) {
-                    tmpIndex++;
-                    cursor.next();
-                }
+                var key = cursor.next();
+                if (tmpIndex >= fromIndex)
+                    result.add(key);
+                // 取满即止，不再继续扫描
+                if (++tmpIndex >= toIndex)
+                    break;
             }
         }
-        try {
-            RedisConnectionUtils.releaseConnection(rc, factory);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-        }
         return result;
     }
 
+    // 返回 {下一个游标, {key...}}。RedisTemplate的Cursor只能从头扫描，从客户端传回的游标继续时用脚本执行单轮SCAN
+    private static final String LUA_SCAN_SCRIPT =
+            """
+                    return redis.call('SCAN', ARGV[1], 'MATCH', ARGV[2], 'COUNT', ARGV[3])
+                    """;
+    private final RedisScript<List> scanRedisScript = new DefaultRedisScript<>(LUA_SCAN_SCRIPT, List.class);
+
+    /**
+     * 按游标分页查询 key，每次只执行有限轮SCAN，不会遍历整个keyspace。
+     * <p>
+     * 游标即SCAN的游标，每页由整轮SCAN的结果组成，size作为COUNT提示，本页的key可能略多于size。
+     * 只在轮与轮之间翻页，与SCAN的保证一致：扫描期间一直存在的key至少返回一次，扫描期间增删的key可能返回也可能不返回，rehash时可能重复
+     *
+     * @param pattern key
+     * @param cursor  上一页返回的nextCursor，首页传null
+     * @param size    每页数目
+     * @return 本页的key及下一页的游标
+     */
+    public ScanPage scanPage(String pattern, String cursor, int size) {
+        Assert.isTrue(size > 0, "size must be positive");
+        var scanCursor = StrUtil.isEmpty(cursor) ? "0" : cursor;
+        Assert.isTrue(StrUtil.isNumeric(scanCursor), "Invalid cursor: " + cursor);
+        List<String> result = new ArrayList<>(size);
+        for (int round = 1; ; round++) {
+            var reply = stringRedisTemplate.execute(scanRedisScript, Collections.emptyList(), scanCursor, pattern, String.valueOf(size));
+            scanCursor = String.valueOf(reply.get(0));
+            result.addAll((List<String>) reply.get(1));
+            if ("0".equals(scanCursor))
+                return new ScanPage(result, null);
+            if (result.size() >= size || round >= SCAN_MAX_ROUNDS)
+                return new ScanPage(result, scanCursor);
+        }
+    }
+
+    /**
+     * 流式遍历匹配的key，每批交给consumer处理，内存中只保留一批
+     *
+     * @param pattern   key
+     * @param batchSize 每批数目，也作为SCAN的COUNT提示
+     * @param consumer  处理每批key，不会收到空批
+     */
+    public void scanEach(String pattern, int batchSize, Consumer<List<String>> consumer) {
+        Assert.isTrue(batchSize > 0, "batchSize must be positive");
+        List<String> batch = new ArrayList<>(batchSize);
+        try (var cursor = stringRedisTemplate.scan(scanOptions(pattern, batchSize))) {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() == batchSize) {
+                    consumer.accept(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        }
+        if (!batch.isEmpty())
+            consumer.accept(batch);
+    }
+
+    private static ScanOptions scanOptions(String pattern, int count) {
+        return ScanOptions.scanOptions().match(pattern).count(count).build();
+    }
+
     /**
      * 判断key是否存在
      *
@@ -503,6 +559,17 @@ public class RedisUtils {
         return redisTemplate.opsForHash().get(key, item);
     }
 
+    /**
+     * 一次获取哈希表中多个字段的值（HMGET）
+     *
+     * @param key   键
+     * @param items 项
+     * @return 与items顺序一致，不存在的项为null
+     */
+    public List<Object> hMultiGet(String key, Collection<?> items) {
+        return redisTemplate.opsForHash().multiGet(key, new ArrayList<>(items));
+    }
+
     /**
      * 向一张hash表中放入数据,如果不存在将创建
      *
@@ -1367,6 +1434,235 @@ public class RedisUtils {
     }
 //       endregion
 
+//    region 批量操作
+
+    /**
+     * 批量操作时每次pipeline的命令数，过大时单次往返的数据量、阻塞时间都会变长
+     *
+     * @param bulkChunkSize 大于0
+     */
+    public void setBulkChunkSize(int bulkChunkSize) {
+        Assert.isTrue(bulkChunkSize > 0, "bulkChunkSize must be positive");
+        this.bulkChunkSize = bulkChunkSize;
+    }
+
+    /**
+     * 批量获取（MGET），按bulkChunkSize分批
+     *
+     * @param keys 键
+     * @return 键 -> 值，与keys顺序一致，不存在的为null
+     */
+    public Map<String, Object> multiGet(Collection<String> keys) {
+        var result = new LinkedHashMap<String, Object>(keys.size() * 2);
+        for (var chunk : chunks(keys)) {
+            try {
+                var values = redisTemplate.opsForValue().multiGet(new ArrayList<>(chunk));
+                for (int i = 0; i < chunk.size(); i++)
+                    result.put(chunk.get(i), Objects.nonNull(values) && i < values.size() ? values.get(i) : null);
+            } catch (Exception e) {
+                log.error("multiGet {} keys failed", chunk.size(), e);
+                chunk.forEach(key -> result.put(key, null));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 批量放入并设置时间，pipeline执行
+     *
+     * @param entries  键 -> 值
+     * @param time     时间，小于等于0时不设置
+     * @param timeUnit 单位
+     * @return 键 -> 是否成功
+     */
+    public Map<String, Boolean> multiSet(Map<String, ?> entries, long time, TimeUnit timeUnit) {
+        return pipelined(entries.keySet(), 1, (operations, key) -> {
+            if (time > 0)
+                operations.opsForValue().set(key, entries.get(key), time, timeUnit);
+            else
+                operations.opsForValue().set(key, entries.get(key));
+        }, RedisUtils::succeeded);
+    }
+
+    /**
+     * 批量删除，pipeline执行，每个key一条DEL，以便知道各自是否删除
+     *
+     * @param keys 键
+     * @return 键 -> 是否存在并被删除
+     */
+    public Map<String, Boolean> multiDelete(Collection<String> keys) {
+        return pipelined(keys, 1, RedisOperations::delete, results -> results.get(0) instanceof Long count && count > 0);
+    }
+
+    /**
+     * 批量设置失效时间，pipeline执行
+     *
+     * @param keys     键
+     * @param time     时间
+     * @param timeUnit 单位
+     * @return 键 -> 是否设置成功（key不存在时为false）
+     */
+    public Map<String, Boolean> multiExpire(Collection<String> keys, long time, TimeUnit timeUnit) {
+        return pipelined(keys, 1, (operations, key) -> operations.expire(key, time, timeUnit), results -> Boolean.TRUE.equals(results.get(0)));
+    }
+
+    /**
+     * 批量获取多个哈希表的多个字段（HMGET），pipeline执行
+     *
+     * @param items 键 -> 字段
+     * @return 键 -> 值，与字段顺序一致，不存在的字段为null；失败时为空列表
+     */
+    public Map<String, List<Object>> hMultiGet(Map<String, ? extends Collection<?>> items) {
+        return pipelined(items.keySet(), 1, (operations, key) -> operations.opsForHash().multiGet(key, new ArrayList<Object>(items.get(key))),
+                results -> results.get(0) instanceof List<?> values ? (List<Object>) values : Collections.emptyList());
+    }
+
+    /**
+     * 批量放入多个哈希表并设置时间，pipeline执行
+     *
+     * @param entries 键 -> (字段 -> 值)
+     * @param time    时间(秒)，小于等于0时不设置
+     * @return 键 -> 是否成功
+     */
+    public Map<String, Boolean> hMultiPutAll(Map<String, ? extends Map<String, ?>> entries, long time) {
+        // HMSET是状态回复，不出现在pipeline的结果中，只有EXPIRE有结果
+        var commandsPerKey = time > 0 ? 1 : 0;
+        return pipelined(entries.keySet(), commandsPerKey, (operations, key) -> {
+            operations.opsForHash().putAll(key, entries.get(key));
+            if (time > 0)
+                operations.expire(key, time, TimeUnit.SECONDS);
+        }, results -> results.stream().allMatch(RedisUtils::succeeded));
+    }
+
+    /**
+     * 按bulkChunkSize分批，每批一次pipeline。单条命令失败不影响其他命令，整批失败时该批的结果都按失败处理
+     *
+     * @param keys           键
+     * @param commandsPerKey 每个键有结果的命令数（状态回复的命令如HMSET不计），用于从结果中切分出各键的结果
+     * @param command        对每个键发出的命令
+     * @param mapper         该键的命令结果 -> 返回值，失败的命令结果为异常对象
+     */
+    private <T> Map<String, T> pipelined(Collection<String> keys, int commandsPerKey,
+                                         BiConsumer<RedisOperations<Object, Object>, String> command, Function<List<Object>, T> mapper) {
+        var result = new LinkedHashMap<String, T>(keys.size() * 2);
+        for (var chunk : chunks(keys)) {
+            List<Object> results;
+            Exception failure = null;
+            try {
+                results = redisTemplate.executePipelined(new SessionCallback<>() {
+                    @Override
+                    public Object execute(RedisOperations operations) {
+                        chunk.forEach(key -> command.accept(operations, key));
+                        return null;
+                    }
+                });
+            } catch (RedisPipelineException e) {
+                results = e.getResults();
+            } catch (Exception e) {
+                log.error("Pipeline {} keys failed", chunk.size(), e);
+                results = Collections.emptyList();
+                failure = e;
+            }
+            for (int i = 0; i < chunk.size(); i++) {
+                if (Objects.nonNull(failure)) {
+                    result.put(chunk.get(i), mapper.apply(List.of(failure)));
+                    continue;
+                }
+                var from = Math.min(i * commandsPerKey, results.size());
+                var to = Math.min(from + commandsPerKey, results.size());
+                var keyResults = new ArrayList<>(results.subList(from, to));
+                while (keyResults.size() < commandsPerKey)
+                    keyResults.add(null);
+                result.put(chunk.get(i), mapper.apply(keyResults));
+            }
+        }
+        return result;
+    }
+
+    private List<List<String>> chunks(Collection<String> keys) {
+        var list = keys instanceof List<String> l ? l : new ArrayList<>(keys);
+        var chunks = new ArrayList<List<String>>((list.size() + bulkChunkSize - 1) / bulkChunkSize);
+        for (int from = 0; from < list.size(); from += bulkChunkSize)
+            chunks.add(list.subList(from, Math.min(from + bulkChunkSize, list.size())));
+        return chunks;
+    }
+
+    // pipeline中写命令的结果：无返回值的命令为null，SET等为true，出错时为异常对象
+    private static boolean succeeded(Object result) {
+        return !(result instanceof Throwable) && !Boolean.FALSE.equals(result);
+    }
+
+//    endregion
+
+//    region 二级索引
+
+    // 索引的key前缀，每个索引一个有序集合，member为key，score为失效时间(ms)，不过期的为+inf
+    private static final String KEY_INDEX_PREFIX = "key-index:";
+
+    /**
+     * 放入缓存并登记到索引，用于需要稳定排序、总数的列表（如在线用户），避免SCAN整个keyspace。
+     * 同一批key应只通过此类方法写入、删除，直接删除key时索引中的记录要到失效时间后才被清理
+     *
+     * @param indexName 索引名，一般对应key前缀
+     * @param key       键
+     * @param value     值
+     * @param time      时间，小于等于0时不过期
+     * @param timeUnit  单位
+     */
+    public void setIndexed(String indexName, String key, Object value, long time, TimeUnit timeUnit) {
+        double score;
+        if (time > 0) {
+            redisTemplate.opsForValue().set(key, value, time, timeUnit);
+            score = System.currentTimeMillis() + timeUnit.toMillis(time);
+        } else {
+            redisTemplate.opsForValue().set(key, value);
+            score = Double.POSITIVE_INFINITY;
+        }
+        stringRedisTemplate.opsForZSet().add(KEY_INDEX_PREFIX + indexName, key, score);
+    }
+
+    /**
+     * 删除缓存并从索引中移除
+     *
+     * @param indexName 索引名
+     * @param keys      键
+     */
+    public void removeIndexed(String indexName, Collection<String> keys) {
+        if (keys.isEmpty())
+            return;
+        redisTemplate.delete(new ArrayList<Object>(keys));
+        stringRedisTemplate.opsForZSet().remove(KEY_INDEX_PREFIX + indexName, keys.toArray());
+    }
+
+    /**
+     * 按索引分页，先清理已失效的记录，再取一页及总数，一次pipeline
+     *
+     * @param indexName 索引名
+     * @param offset    起始位置
+     * @param size      每页数目
+     * @return 本页的key（按失效时间升序）及总数
+     */
+    public IndexPage pageIndexed(String indexName, long offset, int size) {
+        Assert.isTrue(offset >= 0 && size > 0, "参数不合法");
+        var indexKey = KEY_INDEX_PREFIX + indexName;
+        var now = System.currentTimeMillis();
+        var results = stringRedisTemplate.executePipelined(new SessionCallback<>() {
+            @Override
+            public Object execute(RedisOperations operations) {
+                var zSet = operations.opsForZSet();
+                zSet.removeRangeByScore(indexKey, Double.NEGATIVE_INFINITY, now);
+                zSet.range(indexKey, offset, offset + size - 1);
+                zSet.zCard(indexKey);
+                return null;
+            }
+        });
+        var keys = results.get(1) instanceof Collection<?> range ? range.stream().map(String::valueOf).toList() : List.<String>of();
+        var total = results.get(2) instanceof Long count ? count : 0L;
+        return new IndexPage(keys, total);
+    }
+
+//    endregion
+
     /**
      * 删除通过Redisson存入的key
      *
@@ -1384,20 +1680,24 @@ public class RedisUtils {
      * @param map 前缀
      * @param ids id
      */
-    public void delByKeys4Business(Map<String, String> map, Set<Long> ids) {
-        // Set<Object> keys = new HashSet<>();
+    public void delByKeys4Business(Map<String, String> map, Collection<Long> ids) {
+        if (ids.isEmpty())
+            return;
         var mapCache = redissonClient.getMapCache(map.get(LocalCoreConstant.CACHE_NAME));
         var prefix = map.get(LocalCoreConstant.CACHE_KEY);
-        for (Long id : ids)
-            mapCache.remove(prefix + id);
+        // fastRemove一条命令删除多个，按bulkChunkSize分批。同样会触发Entry的移除事件
+        var keys = ids.stream().map(id -> prefix + id).toList();
+        for (var chunk : chunks(keys))
+            mapCache.fastRemove(chunk.toArray());
     }
 
     /**
-     * 最终加强分布式锁
+     * 最终加强分布式锁。依赖各节点时钟一致，且过期后的GETSET会改写他人的值，新代码用 {@link #tryLock}
      *
      * @param key key值
      * @return 是否获取到
      */
+    @Deprecated
     public Boolean lock(String key) {
         String lock = DISTRIBUTE_LOCK_PREFIX + key;
         // 利用lambda表达式
@@ -1423,6 +1723,106 @@ public class RedisUtils {
         });
     }
 
+//      region 滑动窗口计数 ----
+
+    // KEYS[1]为计数的有序集合(member为每次记录，score为时间)，KEYS[2..n]为锁定的key
+    // ARGV: 当前时间(ms)、窗口(ms)、上限、本次记录的member、锁定key的值、各锁定key的时长(ms)
+    // 超过上限时设置锁定key并清空计数，返回次数的相反数，否则返回窗口内的次数
+    private static final String LUA_SLIDING_WINDOW_SCRIPT =
+            """
+                    local now = tonumber(ARGV[1])
+                    local window = tonumber(ARGV[2])
+                    redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', now - window)
+                    redis.call('ZADD', KEYS[1], now, ARGV[4])
+                    redis.call('PEXPIRE', KEYS[1], window)
+                    local count = redis.call('ZCARD', KEYS[1])
+                    if count > tonumber(ARGV[3]) then
+                       for i = 2, #KEYS do
+                          redis.call('SET', KEYS[i], ARGV[5], 'PX', ARGV[4 + i])
+                       end
+                       redis.call('DEL', KEYS[1])
+                       return -count
+                    end
+                    return count
+                    """;
+    private final RedisScript<Long> slidingWindowRedisScript = new DefaultRedisScript<>(LUA_SLIDING_WINDOW_SCRIPT, Long.class);
+
+    /**
+     * 滑动窗口内计数一次，超过上限时设置锁定key，一次lua原子完成。锁定key到期自动失效即为解锁。
+     * 锁定key的值为字符串，用StringRedisTemplate写入，一般只用于判断是否存在。
+     * 计数与锁定的key在同一脚本中操作，集群下需带相同的hash tag（如 {username}），否则报CROSSSLOT
+     *
+     * @param counterKey 计数的key
+     * @param window     窗口
+     * @param maxHits    窗口内允许的次数，超过时锁定
+     * @param lockKeys   锁定的key -> 锁定时长
+     * @param lockValue  锁定key的值
+     * @return 窗口内的次数（含本次）；触发锁定时为其相反数
+     */
+    public long hitSlidingWindow(String counterKey, Duration window, int maxHits, Map<String, Duration> lockKeys, String lockValue) {
+        Assert.state(StrUtil.isNotEmpty(counterKey) && maxHits > 0, "参数不合法");
+        var keys = new ArrayList<String>(lockKeys.size() + 1);
+        keys.add(counterKey);
+        keys.addAll(lockKeys.keySet());
+        var now = System.currentTimeMillis();
+        var args = new ArrayList<String>(lockKeys.size() + 5);
+        args.add(String.valueOf(now));
+        args.add(String.valueOf(window.toMillis()));
+        args.add(String.valueOf(maxHits));
+        // 同一毫秒内的多次记录也要各自计数
+        args.add(now + "-" + UUID.randomUUID());
+        args.add(lockValue);
+        lockKeys.values().forEach(duration -> args.add(String.valueOf(duration.toMillis())));
+        var result = stringRedisTemplate.execute(slidingWindowRedisScript, keys, args.toArray());
+        return Objects.nonNull(result) ? result : 0L;
+    }
+
+//      endregion ----
+
+//      region Redis分布式锁。释放时通知等待者，带看门狗与防护令牌 ----
+
+    /**
+     * 尝试加锁。等待时不轮询，持有者释放时经pub/sub唤醒；未指定租期时由看门狗续期，直到unlock
+     *
+     * @param key       锁的key
+     * @param waitTime  最长等待时间
+     * @param leaseTime 租期，为null或不大于0时由看门狗续期
+     * @return 成功时为本次加锁，其中的防护令牌同一key单调递增；超时或被中断时为null
+     */
+    public LockLease tryLock(String key, Duration waitTime, Duration leaseTime) {
+        Assert.state(StrUtil.isNotEmpty(key), "分布式锁的key不可为空");
+        try {
+            return distributedLocks().tryLock(key, waitTime, leaseTime);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * 释放锁
+     *
+     * @param lease tryLock的返回
+     * @return 是否释放成功，锁已过期被他人获取时为false
+     */
+    public boolean unlock(LockLease lease) {
+        return distributedLocks().unlock(lease);
+    }
+
+    private DistributedLocks distributedLocks() {
+        var locks = distributedLocks;
+        if (locks == null) {
+            synchronized (this) {
+                locks = distributedLocks;
+                if (locks == null)
+                    distributedLocks = locks = new DistributedLocks(new RedisLockStore(stringRedisTemplate, redissonClient));
+            }
+        }
+        return locks;
+    }
+
+//      endregion ----
+
 //      region Redis分布式锁。基于lua脚本 ----
 
     private static final Long SUCCESS = 1L;
@@ -1451,7 +1851,7 @@ public class RedisUtils {
     private final RedisScript<Long> unLockRedisScript = new DefaultRedisScript<>(LUA_UNLOCK_SCRIPT, Long.class);
 
     /**
-     * lua-加锁
+     * lua-加锁。每50ms轮询一次，最多等500ms，竞争激烈时用 {@link #tryLock}
      *
      * @param lockKey
      * @param value
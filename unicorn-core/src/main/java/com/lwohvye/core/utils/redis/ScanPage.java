@@ -0,0 +1,33 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.core.utils.redis;
+
+import java.util.List;
+
+/**
+ * 游标分页的一页key
+ *
+ * @param keys       本页的key，由整轮SCAN的结果组成，可能略多于页大小；未扫描完时也可能不足一页（单次调用的SCAN轮数有上限）
+ * @param nextCursor 下一页的游标，传给下一次scanPage；已扫描完时为null
+ * @date 2025/10/16
+ */
+public record ScanPage(List<String> keys, String nextCursor) {
+
+    public boolean finished() {
+        return nextCursor == null;
+    }
+}
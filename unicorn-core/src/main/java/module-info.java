@@ -31,6 +31,7 @@ module lwohvye.unicorn.core {
     requires transitive com.fasterxml.jackson.annotation;
     requires transitive com.fasterxml.jackson.databind;
     requires transitive com.github.benmanes.caffeine;
+    requires transitive micrometer.core;
     requires transitive cn.hutool;
     requires transitive io.swagger.v3.oas.models;
     requires transitive io.swagger.v3.oas.annotations;
@@ -64,8 +65,11 @@ module lwohvye.unicorn.core {
     exports com.lwohvye.core.exception;
     exports com.lwohvye.core.extension;
     exports com.lwohvye.core.utils;
+    exports com.lwohvye.core.utils.batch;
     exports com.lwohvye.core.enums;
     exports com.lwohvye.core.utils.json;
+    exports com.lwohvye.core.utils.limit;
+    exports com.lwohvye.core.utils.lock;
     exports com.lwohvye.core.utils.rabbitmq;
     exports com.lwohvye.core.utils.redis;
     exports com.lwohvye.core.utils.result;
@@ -0,0 +1,97 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.core.custom;
+
+import com.lwohvye.core.base.TreeNode;
+import lombok.Getter;
+import lombok.Setter;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HierarchyTest {
+
+    //  1         5    6(pid 99, 上级不存在)
+    //  ├─2       └─7(停用)
+    //  │ └─4       └─8
+    //  └─3
+    private static final List<TreeNode> NODES = List.of(
+            new TreeNode(1L, "1", null, true),
+            new TreeNode(2L, "2", 1L, true),
+            new TreeNode(3L, "3", 1L, true),
+            new TreeNode(4L, "4", 2L, true),
+            new TreeNode(5L, "5", null, true),
+            new TreeNode(6L, "6", 99L, true),
+            new TreeNode(7L, "7", 5L, false),
+            new TreeNode(8L, "8", 7L, true));
+
+    private final Hierarchy<TreeNode> hierarchy = Hierarchy.of(NODES, TreeNode::id, TreeNode::pid);
+
+    @Test
+    void testNavigation() {
+        assertEquals(List.of(1L, 5L, 6L), ids(hierarchy.roots()));
+        assertEquals(List.of(2L, 3L), ids(hierarchy.children(1L)));
+        assertEquals(List.of(2L, 3L), ids(hierarchy.siblings(3L)));
+        assertEquals(List.of(1L, 5L, 6L), ids(hierarchy.siblings(5L)));
+        assertEquals(List.of(2L, 1L), ids(hierarchy.ancestors(4L)));
+        assertTrue(hierarchy.children(100L).isEmpty());
+        assertNull(hierarchy.get(100L));
+    }
+
+    @Test
+    void testDescendants() {
+        assertEquals(List.of(1L, 2L, 3L, 4L), ids(hierarchy.descendants(1L, true)));
+        assertEquals(List.of(7L, 8L), ids(hierarchy.descendants(5L, false)));
+        // 停用的节点及其下级都被跳过
+        assertTrue(hierarchy.descendants(5L, false, TreeNode::enabled).isEmpty());
+    }
+
+    @Getter
+    @Setter
+    static class Dto {
+        private Long id;
+        private Long pid;
+        private List<Dto> children;
+
+        Dto(Long id, Long pid) {
+            this.id = id;
+            this.pid = pid;
+        }
+    }
+
+    @Test
+    void testAssemble() {
+        var dtos = new ArrayList<Dto>();
+        NODES.forEach(node -> dtos.add(new Dto(node.id(), node.pid())));
+        // 重复的id只保留第一个
+        dtos.add(new Dto(2L, 5L));
+        var tops = Hierarchy.assemble(dtos, Dto::getId, Dto::getPid, Dto::setChildren);
+        assertEquals(List.of(1L, 5L, 6L), tops.stream().map(Dto::getId).toList());
+        assertEquals(List.of(2L, 3L), tops.get(0).getChildren().stream().map(Dto::getId).toList());
+        assertEquals(List.of(7L), tops.get(1).getChildren().stream().map(Dto::getId).toList());
+        assertNull(tops.get(2).getChildren());
+    }
+
+    private static List<Long> ids(List<TreeNode> nodes) {
+        return nodes.stream().map(TreeNode::id).toList();
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.core.custom;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.lwohvye.core.base.BaseDTO;
+import lombok.Getter;
+import lombok.Setter;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ValueCopierTest {
+
+    @Getter
+    @Setter
+    static class Node extends BaseDTO {
+        private Long id;
+        private transient String secret;
+        private List<Node> children = new ArrayList<>();
+        private Node parent;
+    }
+
+    record Pair(String name, Node node) {
+    }
+
+    private static Node tree() {
+        var root = new Node();
+        root.setId(1L);
+        root.setSecret("pwd");
+        root.setCreateTime(new Timestamp(1000L));
+        var child = new Node();
+        child.setId(2L);
+        child.setParent(root);
+        root.getChildren().add(child);
+        return root;
+    }
+
+    @Test
+    void testClonerDeepCopy() {
+        var root = tree();
+        var copy = ValueCopier.cloner().copy(root);
+        assertNotSame(root, copy);
+        assertEquals(1L, copy.getId());
+        // 与JSON方式一致，transient的字段不拷贝
+        assertNull(copy.getSecret());
+        assertNotSame(root.getCreateTime(), copy.getCreateTime());
+        assertEquals(root.getCreateTime(), copy.getCreateTime());
+        var child = copy.getChildren().get(0);
+        assertNotSame(root.getChildren().get(0), child);
+        // 循环引用指向拷贝后的对象
+        assertSame(copy, child.getParent());
+    }
+
+    @Test
+    void testClonerRecordAndImmutable() {
+        var pair = new Pair("p", tree());
+        var copy = ValueCopier.cloner().copy(pair);
+        assertEquals("p", copy.name());
+        assertNotSame(pair.node(), copy.node());
+        var str = "immutable";
+        assertSame(str, ValueCopier.cloner().copy(str));
+    }
+
+    @Test
+    void testSnapshotMode() {
+        var map = new ConcurrentFreshMap<String, Object>(4, ConcurrentFreshMap.FreshMode.SNAPSHOT);
+        var root = tree();
+        map.put("k", root);
+        // 存值时拷贝，之后修改原对象不影响缓存
+        root.setId(9L);
+        var cached = (Node) map.get("k");
+        assertEquals(1L, cached.getId());
+        assertSame(cached, map.get("k"));
+        assertThrows(UnsupportedOperationException.class, () -> cached.getChildren().add(new Node()));
+    }
+
+    @Test
+    void testClonerMode() {
+        var map = new ConcurrentFreshMap<String, Object>(4, ConcurrentFreshMap.FreshMode.CLONER);
+        map.put("k", Map.of("a", List.of(1, 2)));
+        assertNotSame(map.get("k"), map.get("k"));
+        assertEquals(Map.of("a", List.of(1, 2)), map.get("k"));
+    }
+
+    @Test
+    void testClonerKeepsCollectionType() {
+        var holder = new Holder();
+        holder.getQueue().add("a");
+        holder.getSorted().add(2);
+        holder.getSorted().add(1);
+        holder.setIgnored("x");
+        var copy = ValueCopier.cloner().copy(holder);
+        assertNotSame(holder.getQueue(), copy.getQueue());
+        assertEquals(List.of("a"), copy.getQueue());
+        assertEquals(List.of(2, 1), List.copyOf(copy.getSorted()));
+        assertInstanceOf(ArrayDeque.class, copy.getDeque());
+        // @JsonIgnore的字段不拷贝
+        assertNull(copy.getIgnored());
+        // 字段声明为具体类型时，snapshot不冻结该字段
+        var frozen = ValueCopier.freezer().copy(holder);
+        assertInstanceOf(LinkedList.class, frozen.getQueue());
+    }
+
+    @Getter
+    @Setter
+    static class Holder {
+        private LinkedList<String> queue = new LinkedList<>();
+        private TreeSet<Integer> sorted = new TreeSet<>(Comparator.reverseOrder());
+        private Queue<String> deque = new ArrayDeque<>();
+        @JsonIgnore
+        private String ignored;
+    }
+}
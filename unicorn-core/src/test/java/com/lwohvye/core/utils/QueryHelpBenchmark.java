@@ -0,0 +1,169 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.core.utils;
+
+import cn.hutool.core.util.ReflectUtil;
+import com.lwohvye.core.annotation.Query;
+import com.lwohvye.core.bench.BenchmarkSupport;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Root;
+import lombok.Getter;
+import lombok.Setter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.RunnerException;
+
+import java.lang.reflect.Proxy;
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * QueryHelp.getPredicate的开销。Root、CriteriaBuilder用动态代理桩替代，只衡量QueryHelp自身的部分。
+ * legacyScan为原实现每次调用都要做的反射部分（getFields、trySetAccessible、getAnnotation、split、field.get），不含Predicate的构建
+ */
+public class QueryHelpBenchmark extends BenchmarkSupport {
+
+    // 以下两个类与sys-api的UserQueryCriteria、logging的BzLogQueryCriteria的查询字段一致，core不依赖这两个模块
+
+    @Getter
+    @Setter
+    public static class UserQueryCriteria {
+        @Query
+        private Long id;
+        @Query(propName = "id", type = Query.Type.IN, joinName = "dept")
+        private Set<Long> deptIds;
+        @Query(blurry = "email,username,nickName")
+        private String blurry;
+        @Query
+        private Boolean enabled;
+        private Long deptId;
+        @Query(type = Query.Type.BETWEEN)
+        private List<Timestamp> createTime;
+        @Query(propName = "username", type = Query.Type.IN_INNER_LIKE)
+        private List<String> usernames;
+        @Query(propName = "code", type = Query.Type.INNER_LIKE, joinName = "roles")
+        private String roleCode;
+        @Query(propName = "level", type = Query.Type.GREATER_THAN, joinName = "roles")
+        private Long roleLevel;
+        @Query(type = Query.Type.FUNCTION_4_EQUAL, functionName = "from_base64")
+        private String description;
+    }
+
+    @Getter
+    @Setter
+    public static class BzLogQueryCriteria {
+        @Query(blurry = "username,description,address,requestIp,method,params")
+        private String blurry;
+        @Query
+        private String logType;
+        @Query(type = Query.Type.BETWEEN)
+        private List<Timestamp> createTime;
+    }
+
+    private Root<?> root;
+    private CriteriaBuilder cb;
+    private UserQueryCriteria userCriteria;
+    private BzLogQueryCriteria logCriteria;
+
+    @Setup
+    public void setup() {
+        root = stub(Root.class);
+        cb = stub(CriteriaBuilder.class);
+        var now = System.currentTimeMillis();
+        userCriteria = new UserQueryCriteria();
+        userCriteria.setBlurry("admin");
+        userCriteria.setEnabled(true);
+        userCriteria.setDeptIds(Set.of(2L, 5L, 7L));
+        userCriteria.setRoleCode("admin");
+        userCriteria.setCreateTime(List.of(new Timestamp(now - 86_400_000L), new Timestamp(now)));
+        logCriteria = new BzLogQueryCriteria();
+        logCriteria.setBlurry("login");
+        logCriteria.setLogType("INFO");
+        logCriteria.setCreateTime(List.of(new Timestamp(now - 86_400_000L), new Timestamp(now)));
+    }
+
+    @Benchmark
+    public Object compiledUser() {
+        return QueryHelp.getPredicate(root, userCriteria, cb);
+    }
+
+    @Benchmark
+    public void legacyScanUser(Blackhole bh) throws IllegalAccessException {
+        legacyScan(userCriteria, bh);
+    }
+
+    @Benchmark
+    public Object compiledBzLog() {
+        return QueryHelp.getPredicate(root, logCriteria, cb);
+    }
+
+    @Benchmark
+    public void legacyScanBzLog(Blackhole bh) throws IllegalAccessException {
+        legacyScan(logCriteria, bh);
+    }
+
+    // 原QueryHelp.analyzeFieldQuery中与Predicate无关的部分
+    private static void legacyScan(Object query, Blackhole bh) throws IllegalAccessException {
+        for (var field : ReflectUtil.getFields(query.getClass())) {
+            var accessible = field.canAccess(query);
+            if (!field.trySetAccessible())
+                continue;
+            var q = field.getAnnotation(Query.class);
+            if (q != null) {
+                var value = field.get(query);
+                if (value == null || "".equals(value))
+                    continue;
+                if (!q.blurry().isBlank())
+                    bh.consume(q.blurry().split(","));
+                else if (!q.joinName().isBlank())
+                    bh.consume(q.joinName().split(">"));
+                bh.consume(value);
+            }
+            field.setAccessible(accessible);
+        }
+    }
+
+    // 接口方法返回接口时返回新的桩，集合返回空集合，其余返回null/默认值
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type) {
+        return (T) Proxy.newProxyInstance(QueryHelpBenchmark.class.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            var returnType = method.getReturnType();
+            if (method.getDeclaringClass() == Object.class)
+                return switch (method.getName()) {
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> type.getSimpleName();
+                };
+            if (returnType == Set.class)
+                return Collections.emptySet();
+            if (returnType == List.class)
+                return Collections.emptyList();
+            if (returnType.isInterface())
+                return stub(returnType);
+            if (returnType == boolean.class)
+                return false;
+            return null;
+        });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        run(QueryHelpBenchmark.class);
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.core.utils.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalTokenBucketTest {
+
+    @Test
+    void burstUpToCapacityThenReject() {
+        var bucket = new LocalTokenBucket(5, Duration.ofHours(1L));
+        for (int i = 0; i < 5; i++)
+            assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+    }
+
+    @Test
+    void refillAfterInterval() throws InterruptedException {
+        var bucket = new LocalTokenBucket(2, Duration.ofMillis(100L));
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+        Thread.sleep(60L);
+        assertTrue(bucket.tryAcquire());
+    }
+
+    @Test
+    void concurrentAcquireNeverExceedsCapacity() throws InterruptedException {
+        var bucket = new LocalTokenBucket(1000, Duration.ofHours(1L));
+        var acquired = new AtomicInteger();
+        var executor = Executors.newFixedThreadPool(8);
+        IntStream.range(0, 8).forEach(i -> executor.execute(() -> {
+            for (int j = 0; j < 500; j++)
+                if (bucket.tryAcquire())
+                    acquired.incrementAndGet();
+        }));
+        // core的测试按17编译，ExecutorService还不是AutoCloseable
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30L, TimeUnit.SECONDS));
+        assertEquals(1000, acquired.get());
+    }
+}
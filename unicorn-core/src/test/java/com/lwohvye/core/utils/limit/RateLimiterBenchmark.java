@@ -0,0 +1,103 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.core.utils.limit;
+
+import com.lwohvye.core.bench.BenchmarkSupport;
+import com.lwohvye.core.enums.LimitStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.runner.RunnerException;
+import org.redisson.api.RRateLimiter;
+import org.redisson.api.RateType;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * 对比LimitAspect每次调用的限流开销：之前每次 getRateLimiter + trySetRate + tryAcquire + availablePermits，
+ * 与缓存实例后的 STRICT_REMOTE / LEASED / LOCAL。Redis用桩模拟，每次远程调用按rttMicros暂停以模拟网络往返，
+ * 令牌数足够大，不会触发限流
+ */
+public class RateLimiterBenchmark extends BenchmarkSupport {
+
+    private static final String KEY = "bench_rate_limit";
+
+    private static final long PERMITS = 1_000_000_000L;
+
+    private static final Duration PERIOD = Duration.ofSeconds(1L);
+
+    @Param({"0", "200"})
+    private long rttMicros;
+
+    private Function<String, RRateLimiter> remoteFactory;
+
+    private RateLimiters rateLimiters;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        var rttNanos = TimeUnit.MICROSECONDS.toNanos(rttMicros);
+        remoteFactory = key -> stubRateLimiter(rttNanos);
+        rateLimiters = new RateLimiters(remoteFactory);
+    }
+
+    @Benchmark
+    public boolean legacyPerCall() {
+        var rateLimiter = remoteFactory.apply(KEY);
+        rateLimiter.trySetRate(RateType.OVERALL, PERMITS, PERIOD);
+        var acquired = rateLimiter.tryAcquire(1);
+        return acquired && rateLimiter.availablePermits() >= 0;
+    }
+
+    @Benchmark
+    public boolean strictRemote() {
+        return rateLimiters.tryAcquire(KEY, LimitStrategy.STRICT_REMOTE, PERMITS, PERIOD, 0L);
+    }
+
+    @Benchmark
+    public boolean leased() {
+        return rateLimiters.tryAcquire(KEY, LimitStrategy.LEASED, PERMITS, PERIOD, 0L);
+    }
+
+    @Benchmark
+    public boolean localOnly() {
+        return rateLimiters.tryAcquire(KEY, LimitStrategy.LOCAL, PERMITS, PERIOD, 0L);
+    }
+
+    // 只实现基准中用到的几个方法，每次都是一个往返
+    private static RRateLimiter stubRateLimiter(long rttNanos) {
+        return (RRateLimiter) Proxy.newProxyInstance(RRateLimiter.class.getClassLoader(), new Class<?>[]{RRateLimiter.class}, (proxy, method, args) -> switch (method.getName()) {
+            case "trySetRate", "tryAcquire" -> {
+                LockSupport.parkNanos(rttNanos);
+                yield true;
+            }
+            case "availablePermits" -> {
+                LockSupport.parkNanos(rttNanos);
+                yield PERMITS;
+            }
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        run(RateLimiterBenchmark.class);
+    }
+}
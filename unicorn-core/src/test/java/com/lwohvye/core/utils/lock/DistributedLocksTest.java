@@ -0,0 +1,190 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.core.utils.lock;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DistributedLocksTest {
+
+    private static final Duration LEASE = Duration.ofSeconds(10L);
+
+    @Test
+    void mutualExclusionWithIncreasingFencingTokens() throws InterruptedException {
+        var locks = new DistributedLocks(new InMemoryLockStore());
+        var inside = new AtomicInteger();
+        var maxInside = new AtomicInteger();
+        var tokens = new ConcurrentLinkedQueue<Long>();
+        var executor = Executors.newCachedThreadPool();
+        try {
+            IntStream.range(0, 128).forEach(i -> executor.execute(() -> {
+                try {
+                    var lease = locks.tryLock("order", Duration.ofSeconds(10L), LEASE);
+                    assertNotNull(lease);
+                    try {
+                        maxInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+                        tokens.add(lease.fencingToken());
+                        inside.decrementAndGet();
+                    } finally {
+                        assertTrue(locks.unlock(lease));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        } finally {
+            awaitTermination(executor);
+        }
+        assertEquals(1, maxInside.get());
+        // 按加锁顺序加入，令牌严格递增
+        var list = List.copyOf(tokens);
+        assertEquals(128, list.size());
+        for (int i = 1; i < list.size(); i++)
+            assertTrue(list.get(i) > list.get(i - 1));
+    }
+
+    @Test
+    void waiterInOtherNodeWokenByRelease() throws InterruptedException {
+        var store = new InMemoryLockStore();
+        var holder = new DistributedLocks(store);
+        var waiter = new DistributedLocks(store);
+        var lease = holder.tryLock("order", Duration.ZERO, LEASE);
+        assertNotNull(lease);
+        var executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.execute(() -> {
+                sleep(50L);
+                holder.unlock(lease);
+            });
+            var start = System.nanoTime();
+            var next = waiter.tryLock("order", Duration.ofSeconds(5L), LEASE);
+            // 持有者租期10s，不靠通知时要等到租期结束
+            assertNotNull(next);
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2_000L);
+            assertTrue(next.fencingToken() > lease.fencingToken());
+            assertTrue(waiter.unlock(next));
+        } finally {
+            awaitTermination(executor);
+        }
+    }
+
+    @Test
+    void timeoutReturnsNull() throws InterruptedException {
+        var store = new InMemoryLockStore();
+        var holder = new DistributedLocks(store);
+        var lease = holder.tryLock("order", Duration.ZERO, LEASE);
+        assertNotNull(lease);
+        assertNull(new DistributedLocks(store).tryLock("order", Duration.ofMillis(50L), LEASE));
+        assertNull(holder.tryLock("order", Duration.ofMillis(50L), LEASE));
+        assertTrue(holder.unlock(lease));
+        assertFalse(holder.unlock(lease));
+        assertNotNull(holder.tryLock("order", Duration.ZERO, LEASE));
+    }
+
+    @Test
+    void abandonedLeaseReleasesLocalGate() throws InterruptedException {
+        var locks = new DistributedLocks(new InMemoryLockStore());
+        var abandoned = locks.tryLock("order", Duration.ZERO, Duration.ofMillis(100L));
+        assertNotNull(abandoned);
+        // 持有者不释放，租期到后同一实例的等待者不再被本地排队挡住
+        var next = locks.tryLock("order", Duration.ofSeconds(2L), LEASE);
+        assertNotNull(next);
+        assertTrue(next.fencingToken() > abandoned.fencingToken());
+        assertFalse(locks.unlock(abandoned));
+        assertTrue(locks.unlock(next));
+    }
+
+    // core的测试与主代码一样按17编译，ExecutorService还不是AutoCloseable
+    private static void awaitTermination(ExecutorService executor) throws InterruptedException {
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30L, TimeUnit.SECONDS));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class InMemoryLockStore implements LockStore {
+
+        private record Entry(String owner, long expireAt) {
+        }
+
+        private final Map<String, Entry> entries = new HashMap<>();
+
+        private final Map<String, Long> fences = new HashMap<>();
+
+        private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+        @Override
+        public synchronized long tryAcquire(String key, String owner, long leaseMillis) {
+            var now = System.currentTimeMillis();
+            var entry = entries.get(key);
+            if (entry != null && entry.expireAt() > now)
+                return now - entry.expireAt();
+            entries.put(key, new Entry(owner, now + leaseMillis));
+            return fences.merge(key, 1L, Long::sum);
+        }
+
+        @Override
+        public synchronized boolean renew(String key, String owner, long leaseMillis) {
+            var entry = entries.get(key);
+            if (entry == null || !entry.owner().equals(owner))
+                return false;
+            entries.put(key, new Entry(owner, System.currentTimeMillis() + leaseMillis));
+            return true;
+        }
+
+        @Override
+        public boolean release(String key, String owner) {
+            synchronized (this) {
+                var entry = entries.get(key);
+                if (entry == null || !entry.owner().equals(owner))
+                    return false;
+                entries.remove(key);
+            }
+            listeners.forEach(listener -> listener.accept(key));
+            return true;
+        }
+
+        @Override
+        public void subscribe(Consumer<String> listener) {
+            listeners.add(listener);
+        }
+    }
+}
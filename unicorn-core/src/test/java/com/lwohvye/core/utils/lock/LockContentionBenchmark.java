@@ -0,0 +1,181 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.core.utils.lock;
+
+import com.lwohvye.core.bench.BenchmarkSupport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.RunnerException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * 对比多个虚拟线程争抢同一把锁时，全部依次拿到并释放的总耗时：之前doLock的每50ms轮询，与DistributedLocks的本地排队 + 释放通知。
+ * Redis用内存桩模拟，每次远程调用按rttMicros暂停以模拟网络往返，持有锁时暂停holdMicros。
+ * 结束后打印远程调用次数，轮询方式下大部分调用都是无效的重试
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class LockContentionBenchmark extends BenchmarkSupport {
+
+    private static final String KEY = "bench_lock";
+
+    private static final long LEASE_MILLIS = 30_000L;
+
+    private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(50L);
+
+    @Param({"128", "512"})
+    private int waiters;
+
+    @Param({"0", "200"})
+    private long rttMicros;
+
+    @Param({"100"})
+    private long holdMicros;
+
+    private StubLockStore store;
+
+    private DistributedLocks locks;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        store = new StubLockStore(TimeUnit.MICROSECONDS.toNanos(rttMicros));
+        locks = new DistributedLocks(store);
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        System.out.printf("%nremote calls: %d%n", store.calls.get());
+    }
+
+    @Benchmark
+    public void polling() {
+        contend(() -> {
+            var owner = "owner-" + sequence.incrementAndGet();
+            while (store.tryAcquire(KEY, owner, LEASE_MILLIS) <= 0)
+                LockSupport.parkNanos(POLL_NANOS);
+            hold();
+            store.release(KEY, owner);
+        });
+    }
+
+    @Benchmark
+    public void notified() {
+        contend(() -> {
+            try {
+                var lease = locks.tryLock(KEY, Duration.ofMinutes(1L), Duration.ofMillis(LEASE_MILLIS));
+                try {
+                    hold();
+                } finally {
+                    locks.unlock(lease);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    private void contend(Runnable task) {
+        var executor = Executors.newFixedThreadPool(waiters);
+        for (int i = 0; i < waiters; i++)
+            executor.execute(task);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1L, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void hold() {
+        LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(holdMicros));
+    }
+
+    // 不模拟租期，释放时同步通知订阅者
+    private static final class StubLockStore implements LockStore {
+
+        private final long rttNanos;
+
+        private final ConcurrentHashMap<String, String> owners = new ConcurrentHashMap<>();
+
+        private final AtomicLong fence = new AtomicLong();
+
+        private final AtomicLong calls = new AtomicLong();
+
+        private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+        private StubLockStore(long rttNanos) {
+            this.rttNanos = rttNanos;
+        }
+
+        @Override
+        public long tryAcquire(String key, String owner, long leaseMillis) {
+            roundTrip();
+            return owners.putIfAbsent(key, owner) == null ? fence.incrementAndGet() : -leaseMillis;
+        }
+
+        @Override
+        public boolean renew(String key, String owner, long leaseMillis) {
+            roundTrip();
+            return owner.equals(owners.get(key));
+        }
+
+        @Override
+        public boolean release(String key, String owner) {
+            roundTrip();
+            if (!owners.remove(key, owner))
+                return false;
+            listeners.forEach(listener -> listener.accept(key));
+            return true;
+        }
+
+        @Override
+        public void subscribe(Consumer<String> listener) {
+            listeners.add(listener);
+        }
+
+        private void roundTrip() {
+            calls.incrementAndGet();
+            if (rttNanos > 0)
+                LockSupport.parkNanos(rttNanos);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        run(LockContentionBenchmark.class);
+    }
+}
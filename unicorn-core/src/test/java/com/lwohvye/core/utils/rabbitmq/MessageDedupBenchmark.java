@@ -0,0 +1,116 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.core.utils.rabbitmq;
+
+import com.lwohvye.core.bench.BenchmarkSupport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.RunnerException;
+import org.redisson.api.RFuture;
+import org.redisson.api.RMapCache;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+
+/**
+ * 对比消费时的去重：每条消息都同步访问Redis(fastPutIfAbsent) 与 本地布隆过滤器 + 攒批异步写入(MessageIdFilter)。
+ * Redis用内存Map模拟，同步调用按rttMicros暂停以模拟网络往返，消息id均为首次出现
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MessageDedupBenchmark extends BenchmarkSupport {
+
+    @Param({"0", "200"})
+    private long rttMicros;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private RMapCache<String, String> remote;
+
+    private MessageIdFilter filter;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        remote = stubMapCache(TimeUnit.MICROSECONDS.toNanos(rttMicros));
+        filter = new MessageIdFilter(remote, Duration.ofMinutes(5L), MessageIdFilter.DEFAULT_EXPECTED_INSERTIONS);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        filter.close();
+    }
+
+    @Benchmark
+    public boolean redisPerMessage() {
+        return remote.fastPutIfAbsent(nextMessageId(), "", 5L, TimeUnit.MINUTES);
+    }
+
+    @Benchmark
+    public boolean localFilter() {
+        return filter.markIfAbsent(nextMessageId());
+    }
+
+    private String nextMessageId() {
+        return "msg-" + sequence.incrementAndGet();
+    }
+
+    // 只实现基准中用到的几个方法
+    @SuppressWarnings("unchecked")
+    private static RMapCache<String, String> stubMapCache(long rttNanos) {
+        var store = new ConcurrentHashMap<String, String>();
+        return (RMapCache<String, String>) Proxy.newProxyInstance(RMapCache.class.getClassLoader(), new Class<?>[]{RMapCache.class}, (proxy, method, args) -> switch (method.getName()) {
+            case "getName" -> "stub";
+            case "isExists" -> false;
+            case "fastPutIfAbsent" -> {
+                LockSupport.parkNanos(rttNanos);
+                yield store.putIfAbsent((String) args[0], (String) args[1]) == null;
+            }
+            case "putAllAsync" -> {
+                store.putAll((Map<String, String>) args[0]);
+                yield completedFuture();
+            }
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static RFuture<Void> completedFuture() {
+        return (RFuture<Void>) Proxy.newProxyInstance(RFuture.class.getClassLoader(), new Class<?>[]{RFuture.class}, (proxy, method, args) -> {
+            if ("whenComplete".equals(method.getName())) {
+                ((BiConsumer<Object, Throwable>) args[0]).accept(null, null);
+                return proxy;
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        run(MessageDedupBenchmark.class);
+    }
+}
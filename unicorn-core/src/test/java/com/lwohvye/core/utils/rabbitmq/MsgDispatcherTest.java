@@ -0,0 +1,90 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.core.utils.rabbitmq;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MsgDispatcherTest {
+
+    public static class Target {
+        final List<String> calls = new ArrayList<>();
+
+        public void solve(String data, Boolean sync) {
+            calls.add("solve:" + data + ":" + sync);
+        }
+
+        public void unlock(String data, Boolean sync) {
+            calls.add("unlock:" + data + ":" + sync);
+        }
+
+        public void fail(String data, Boolean sync) {
+            throw new IllegalStateException("boom");
+        }
+
+        // 签名不符，不会进入分发表
+        public void other(String data) {
+            calls.add("other:" + data);
+        }
+
+        public static void staticMethod(String data, Boolean sync) {
+        }
+    }
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final Target target = new Target();
+
+    private final MsgDispatcher dispatcher = MsgDispatcher.of("test", MethodHandles.lookup(), target,
+            MethodType.methodType(void.class, String.class, Boolean.class), registry);
+
+    @Test
+    void testDispatch() {
+        assertEquals(Set.of("solve", "unlock", "fail"), dispatcher.actions());
+        assertTrue(dispatcher.dispatch("solve", "a", Boolean.TRUE));
+        assertTrue(dispatcher.dispatch("unlock", "b", Boolean.FALSE));
+        assertEquals(List.of("solve:a:true", "unlock:b:false"), target.calls);
+        assertEquals(1L, registry.get("rabbit.consumer.dispatch").tag("action", "solve").timer().count());
+    }
+
+    @Test
+    void testRejectUnknown() {
+        assertFalse(dispatcher.dispatch("other", "a", Boolean.TRUE));
+        assertFalse(dispatcher.dispatch("missing", "a", Boolean.TRUE));
+        assertFalse(dispatcher.dispatch(null, "a", Boolean.TRUE));
+        assertTrue(target.calls.isEmpty());
+        assertEquals(3D, registry.get("rabbit.consumer.dispatch.rejected").counter().count());
+    }
+
+    @Test
+    void testFailure() {
+        assertThrows(IllegalStateException.class, () -> dispatcher.dispatch("fail", "a", Boolean.TRUE));
+        assertThrows(ClassCastException.class, () -> dispatcher.dispatch("solve", 1, Boolean.TRUE));
+        assertEquals(1L, registry.get("rabbit.consumer.dispatch").tag("action", "fail").timer().count());
+    }
+}
@@ -21,6 +21,8 @@ import org.springframework.boot.gradle.plugin.SpringBootPlugin
 
 plugins {
     id("me.champeau.mrjar")
+    // shared JMH harness for the benchmarks of this and the upper modules
+    `java-test-fixtures`
 }
 
 description = "系统Core模块"
@@ -57,6 +59,11 @@ tasks.jar {
     }
 }
 
+// test fixtures are only for the benchmarks in src/test, keep them out of the published component
+val javaComponent = components["java"] as AdhocComponentWithVariants
+javaComponent.withVariantsFromConfiguration(configurations["testFixturesApiElements"]) { skip() }
+javaComponent.withVariantsFromConfiguration(configurations["testFixturesRuntimeElements"]) { skip() }
+
 publishing {
     publications {
         create<MavenPublication>("mavenJavaCore") {
@@ -121,11 +128,15 @@ dependencies {
     api(libs.mapstruct.spring.annotations)
     api("org.hibernate.validator:hibernate-validator")
     api("com.github.ben-manes.caffeine:caffeine")
+    api("io.micrometer:micrometer-core")
     implementation(libs.logback.encoder)
     api("org.bouncycastle:bcpkix-jdk18on:1.72")
     api(libs.thumbnailator)
     api("org.jetbrains:annotations:24.1.0")
     testImplementation("org.springframework.boot:spring-boot-starter-test")
+    // JMH benchmarks live in src/test, run them via their main method
+    testFixturesApi(libs.jmh.core)
+    testAnnotationProcessor(libs.jmh.generator)
     runtimeOnly("com.mysql:mysql-connector-j")
 }
 
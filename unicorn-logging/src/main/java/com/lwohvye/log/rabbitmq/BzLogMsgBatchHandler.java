@@ -0,0 +1,195 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.log.rabbitmq;
+
+import com.lwohvye.core.utils.json.JsonUtils;
+import com.lwohvye.core.utils.rabbitmq.AmqpMsgEntity;
+import com.lwohvye.log.domain.BzLog;
+import com.lwohvye.log.service.local.BzLogBatchWriter;
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * 日志消息的批量消费：整批解析为BzLog，一次JDBC batch写入，按批ack。
+ * <p>
+ * 写入失败时按异常区分：连接失败、超时等暂时性的异常视为数据库暂不可用，重回队列；约束冲突、数据过长等数据问题即使整批都失败也不重试，
+ * 避免单条或全是毒消息的批次无限重投。
+ * 整批写入遇到暂时性异常时，除无法解析的外整批nack后重回队列；遇到数据问题时逐条写入，仍失败的按同样的规则逐条处理：
+ * 数据问题及无法解析的视为毒消息，reject（不重回队列），暂时性的nack后重回队列，其余正常ack
+ * <p>
+ * 与MsgDispatcher一致，每个action的耗时记在 rabbit.consumer.dispatch 下（构建日志的耗时加上分摊到每条的写入耗时），
+ * 不支持的action计入 rabbit.consumer.dispatch.rejected
+ *
+ * @date 2025/10/16
+ */
+@Slf4j
+@Component
+public class BzLogMsgBatchHandler {
+
+    private static final String METRIC_NAME = "rabbit.consumer.dispatch";
+
+    private final BzLogBatchWriter bzLogBatchWriter;
+
+    private final MeterRegistry meterRegistry;
+
+    // action为null时无需写入
+    private record Row(long deliveryTag, String body, String action, BzLog bzLog, long buildNanos) {
+    }
+
+    public BzLogMsgBatchHandler(BzLogBatchWriter bzLogBatchWriter, ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.bzLogBatchWriter = bzLogBatchWriter;
+        this.meterRegistry = meterRegistryProvider.getIfAvailable(SimpleMeterRegistry::new);
+    }
+
+    /**
+     * @param consumer       消费者标识，用作指标的tag
+     * @param messages       一批消息，来自同一个channel
+     * @param channel        /
+     * @param allowedMsgType 支持的消息类型，为空时不限制
+     * @param actions        extraData -> 构建BzLog
+     * @param poisonCallback 毒消息回调，参数为原因、消息体
+     */
+    public void handle(String consumer, List<Message> messages, Channel channel, String allowedMsgType,
+                       Map<String, Function<AmqpMsgEntity, BzLog>> actions, BiConsumer<String, String> poisonCallback) throws IOException {
+        if (messages.isEmpty())
+            return;
+        var rows = new ArrayList<Row>(messages.size());
+        var poison = new ArrayList<Long>();
+        for (var message : messages) {
+            var deliveryTag = message.getMessageProperties().getDeliveryTag();
+            var body = new String(message.getBody(), StandardCharsets.UTF_8);
+            try {
+                rows.add(toRow(consumer, deliveryTag, body, allowedMsgType, actions));
+            } catch (Exception e) {
+                poison.add(deliveryTag);
+                poisonCallback.accept(e.getMessage(), body);
+            }
+        }
+        var toWrite = rows.stream().filter(row -> Objects.nonNull(row.bzLog())).toList();
+        var retry = new ArrayList<Long>();
+        var start = System.nanoTime();
+        try {
+            bzLogBatchWriter.writeNow(toWrite.stream().map(Row::bzLog).toList());
+        } catch (Exception e) {
+            if (isTransient(e)) {
+                log.warn("Batch write {} logs failed, requeue them, reason: {}", toWrite.size(), e.getMessage());
+                record(consumer, toWrite, System.nanoTime() - start);
+                for (var deliveryTag : poison)
+                    channel.basicReject(deliveryTag, false);
+                channel.basicNack(maxTag(rows), true, true);
+                return;
+            }
+            log.warn("Batch write {} logs failed, write them one by one, reason: {}", toWrite.size(), e.getMessage());
+            for (var row : toWrite) {
+                try {
+                    bzLogBatchWriter.writeNow(List.of(row.bzLog()));
+                } catch (Exception ex) {
+                    if (isTransient(ex)) {
+                        retry.add(row.deliveryTag());
+                    } else {
+                        poison.add(row.deliveryTag());
+                        poisonCallback.accept(ex.getMessage(), row.body());
+                    }
+                }
+            }
+        }
+        record(consumer, toWrite, System.nanoTime() - start);
+        for (var deliveryTag : poison)
+            channel.basicReject(deliveryTag, false);
+        for (var deliveryTag : retry)
+            channel.basicNack(deliveryTag, false, true);
+        // 已reject/nack的不会被multiple的ack再次确认
+        var ackTag = maxTag(rows.stream().filter(row -> !poison.contains(row.deliveryTag()) && !retry.contains(row.deliveryTag())).toList());
+        if (ackTag > 0)
+            channel.basicAck(ackTag, true);
+    }
+
+    /**
+     * 连接失败、超时、死锁等，稍后重试可能成功。其余（约束冲突、数据过长、SQL错误等）重试也不会成功
+     */
+    private static boolean isTransient(Throwable e) {
+        for (var cause = e; Objects.nonNull(cause); cause = cause.getCause())
+            if (cause instanceof TransientDataAccessException || cause instanceof DataAccessResourceFailureException
+                || cause instanceof CannotCreateTransactionException)
+                return true;
+        return false;
+    }
+
+    // 每条记一次：构建耗时 + 整批写入耗时的平均值
+    private void record(String consumer, List<Row> written, long writeNanos) {
+        if (written.isEmpty())
+            return;
+        var share = writeNanos / written.size();
+        for (var row : written)
+            timer(consumer, row.action()).record(row.buildNanos() + share, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer timer(String consumer, String action) {
+        return Timer.builder(METRIC_NAME).tag("consumer", consumer).tag("action", action)
+                .description("消息消费的耗时").register(meterRegistry);
+    }
+
+    private static long maxTag(List<Row> rows) {
+        return rows.stream().mapToLong(Row::deliveryTag).max().orElse(0L);
+    }
+
+    // 无需写入的消息bzLog为null，消息不合法时抛出异常
+    private Row toRow(String consumer, long deliveryTag, String body, String allowedMsgType,
+                      Map<String, Function<AmqpMsgEntity, BzLog>> actions) {
+        var msgEntity = Objects.requireNonNull(JsonUtils.toJavaObject(body, AmqpMsgEntity.class), "Unparseable message");
+        // 无消息体，不消费
+        if (!StringUtils.hasLength(msgEntity.getMsgData()))
+            return new Row(deliveryTag, body, null, null, 0L);
+        // 当限制消息类型时，类型不符则不消费
+        if (StringUtils.hasText(allowedMsgType) && !Objects.equals(msgEntity.getMsgType(), allowedMsgType))
+            return new Row(deliveryTag, body, null, null, 0L);
+        var extraData = msgEntity.getExtraData();
+        if (!StringUtils.hasText(extraData))
+            return new Row(deliveryTag, body, null, null, 0L);
+        var action = actions.get(extraData);
+        if (Objects.isNull(action)) {
+            Counter.builder(METRIC_NAME + ".rejected").tag("consumer", consumer)
+                    .description("不支持的action数").register(meterRegistry).increment();
+            log.warn("Unsupported action {}, supported: {} || Msg detail: {}", extraData, actions.keySet(), body);
+            return new Row(deliveryTag, body, null, null, 0L);
+        }
+        var start = System.nanoTime();
+        var bzLog = action.apply(msgEntity);
+        return new Row(deliveryTag, body, extraData, bzLog, System.nanoTime() - start);
+    }
+}
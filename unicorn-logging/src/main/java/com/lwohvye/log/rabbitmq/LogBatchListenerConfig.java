@@ -0,0 +1,58 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.log.rabbitmq;
+
+import org.springframework.amqp.core.AcknowledgeMode;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 日志队列的批量消费。其他配置沿用spring.rabbitmq.listener.simple，攒批相关的由 local.log.consumer 指定
+ */
+@Configuration(proxyBeanMethods = false)
+public class LogBatchListenerConfig {
+
+    public static final String CONTAINER_FACTORY = "logBatchListenerContainerFactory";
+
+    /**
+     * @param batchSize      每批最多的消息数
+     * @param receiveTimeout 攒批时等待下一条消息的最长时间(ms)，超时则以已收到的消息为一批
+     * @param prefetch       不小于batchSize，否则一批攒不满
+     */
+    @Bean(CONTAINER_FACTORY)
+    public SimpleRabbitListenerContainerFactory logBatchListenerContainerFactory(SimpleRabbitListenerContainerFactoryConfigurer configurer,
+                                                                                 ConnectionFactory connectionFactory,
+                                                                                 @Value("${local.log.consumer.batch-size:100}") int batchSize,
+                                                                                 @Value("${local.log.consumer.receive-timeout:1000}") long receiveTimeout,
+                                                                                 @Value("${local.log.consumer.prefetch:0}") int prefetch) {
+        var factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(Math.max(batchSize, 1));
+        factory.setReceiveTimeout(Math.max(receiveTimeout, 1L));
+        factory.setPrefetchCount(Math.max(prefetch, batchSize));
+        // 按批手动ack，失败的消息在监听方法中逐条处理，不再走容器的重试
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        factory.setAdviceChain();
+        return factory;
+    }
+}
@@ -16,63 +16,41 @@
 
 package com.lwohvye.log.rabbitmq;
 
-import com.lwohvye.core.exception.UtilsException;
 import com.lwohvye.core.utils.rabbitmq.AmqpMsgEntity;
-import com.lwohvye.core.utils.rabbitmq.YRabbitAbstractConsumer;
+import com.lwohvye.log.domain.BzLog;
 import com.lwohvye.log.service.local.MultiLogService;
+import com.rabbitmq.client.Channel;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.redisson.api.RedissonClient;
-import org.springframework.amqp.rabbit.annotation.RabbitHandler;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
-import org.springframework.util.StringUtils;
 
-import java.lang.invoke.MethodHandles;
-import java.lang.invoke.MethodType;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 @Slf4j
 @Component
-public class RabbitBusinessMsgConsumerService extends YRabbitAbstractConsumer {
+@RequiredArgsConstructor
+public class RabbitBusinessMsgConsumerService {
 
-    @Autowired
-    private MultiLogService multiLogService;
+    private final MultiLogService multiLogService;
 
-    private final MethodHandles.Lookup lookup = MethodHandles.lookup();
-
-    @Autowired
-    public void setRedissonClient(RedissonClient redissonClient) {
-        super.redissonClient = redissonClient;
-    }
+    private final BzLogMsgBatchHandler batchHandler;
 
     /**
-     * 用来消费业务日志，格式比较统一，这里配合新引入的日志框架使用
+     * 用来消费业务日志，格式比较统一，这里配合新引入的日志框架使用。批量消费，见LogBatchListenerConfig
      */
-    @RabbitHandler
-    @RabbitListener(queues = "${business.log.queue-name:business.log.queue}")
-    public void handle(String messageStr) {
-        baseConsumer(messageStr, null, null, msgEntity -> {
-            var extraData = msgEntity.getExtraData();
-            if (StringUtils.hasText(extraData)) {
-                try {
-                    var mt = MethodType.methodType(void.class, String.class, String.class, String.class);
-                    var methodHandle = lookup.findVirtual(multiLogService.getClass(), extraData, mt);
-                    methodHandle.invoke(multiLogService, msgEntity.getMsgType(), msgEntity.getMsgData(), "Typical Business Operate");
-                } catch (Throwable e) {
-                    throw new UtilsException(e.getMessage());
-                }
-            }
-            return null;
-        }, errMsg -> log.error(" Consume Msg Error, Reason: {} || Msg detail: {} ", errMsg, messageStr));
-    }
-
-    @Override
-    public void baseBeforeConsumer(AmqpMsgEntity msgEntity) {
-
+    @RabbitListener(queues = "${business.log.queue-name:business.log.queue}", containerFactory = LogBatchListenerConfig.CONTAINER_FACTORY)
+    public void handle(List<Message> messages, Channel channel) throws IOException {
+        batchHandler.handle("business", messages, channel, null, actions(),
+                (errMsg, msgStr) -> log.error(" Consume Msg Error, Reason: {} || Msg detail: {} ", errMsg, msgStr));
     }
 
-    @Override
-    public void baseBeforeMessageConsumer(AmqpMsgEntity msgEntity) {
-
+    // extraData -> 对应的日志
+    private Map<String, Function<AmqpMsgEntity, BzLog>> actions() {
+        return Map.of("saveMultiLog", msgEntity -> multiLogService.multiLog(msgEntity.getMsgType(), msgEntity.getMsgData(), "Typical Business Operate"));
     }
 }
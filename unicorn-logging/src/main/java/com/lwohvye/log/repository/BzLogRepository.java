@@ -21,6 +21,7 @@ import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * @author Zheng Jie
@@ -36,4 +37,14 @@ public interface BzLogRepository extends JpaRepository<BzLog,Long>, JpaSpecifica
     @Modifying
     @Query(value = "delete from sys_log where log_type = ?1", nativeQuery = true)
     void deleteByLogType(String logType);
+
+    /**
+     * 异步补全IP归属地
+     * @param id 日志ID
+     * @param address 归属地
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "update sys_log set address = ?2 where log_id = ?1", nativeQuery = true)
+    void updateAddressById(Long id, String address);
 }
@@ -66,6 +66,15 @@ public class LogController {
         return bzLogService.queryAll(criteria, pageable);
     }
 
+    @GetMapping(value = "/scroll")
+    @RespResultBody
+    @Operation(summary = "日志查询(Keyset分页)")
+    public Map<String, Object> scroll(BzLogQueryCriteria criteria, @RequestParam(required = false) String cursor,
+                                      @RequestParam(defaultValue = "10") int size, @RequestParam(defaultValue = "false") boolean withTotal) {
+        criteria.setLogType("INFO");
+        return bzLogService.scrollAll(criteria, cursor, size, withTotal);
+    }
+
     @GetMapping(value = "/user")
     @RespResultBody
     @Operation(summary = "用户日志查询")
@@ -83,6 +92,15 @@ public class LogController {
         return bzLogService.queryAll(criteria, pageable);
     }
 
+    @GetMapping(value = "/error/scroll")
+    @RespResultBody
+    @Operation(summary = "错误日志查询(Keyset分页)")
+    public Map<String, Object> scrollErrorLog(BzLogQueryCriteria criteria, @RequestParam(required = false) String cursor,
+                                              @RequestParam(defaultValue = "10") int size, @RequestParam(defaultValue = "false") boolean withTotal) {
+        criteria.setLogType("ERROR");
+        return bzLogService.scrollAll(criteria, cursor, size, withTotal);
+    }
+
     @GetMapping(value = "/error/{id}")
     @RespResultBody
     @Operation(summary = "日志异常详情查询")
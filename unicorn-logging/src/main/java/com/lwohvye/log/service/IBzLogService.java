@@ -59,6 +59,17 @@ public interface IBzLogService {
      */
     Map<String, Object> queryAllByUser(BzLogQueryCriteria criteria, Pageable pageable);
 
+    /**
+     * Keyset分页查询，按id倒序
+     *
+     * @param criteria  查询条件
+     * @param cursor    上一页返回的next，首页为空
+     * @param size      每页条数
+     * @param withTotal 是否返回总数
+     * @return /
+     */
+    Map<String, Object> scrollAll(BzLogQueryCriteria criteria, String cursor, int size, boolean withTotal);
+
     /**
      * 保存日志数据。异步写日志
      *
@@ -17,19 +17,23 @@ package com.lwohvye.log.service.impl;
 
 import cn.hutool.core.lang.Dict;
 import cn.hutool.core.util.ObjectUtil;
-import cn.hutool.json.JSONUtil;
 import com.lwohvye.core.annotation.log.OprLog;
 import com.lwohvye.core.utils.*;
+import com.lwohvye.core.utils.json.JsonUtils;
 import com.lwohvye.log.domain.BzLog;
 import com.lwohvye.log.repository.BzLogRepository;
 import com.lwohvye.log.service.IBzLogService;
 import com.lwohvye.log.service.dto.BzLogErrorDTO;
 import com.lwohvye.log.service.dto.BzLogQueryCriteria;
 import com.lwohvye.log.service.dto.BzLogSmallDTO;
+import com.lwohvye.log.service.local.BzLogAsyncSaver;
+import com.lwohvye.log.service.local.BzLogBatchWriter;
+import com.lwohvye.log.service.local.IpLocationResolver;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -42,12 +46,15 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Assert;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.multipart.MultipartFile;
 
 import jakarta.servlet.http.HttpServletResponse;
 
 import java.io.IOException;
 import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 /**
  * @author Zheng Jie
@@ -62,6 +69,17 @@ public class BzLogServiceImpl implements IBzLogService {
 
     private final ConversionService conversionService;
 
+    private final IpLocationResolver ipLocationResolver;
+
+    private final BzLogBatchWriter bzLogBatchWriter;
+
+    private final BzLogAsyncSaver bzLogAsyncSaver;
+
+    private final Map<Method, ParamPlan> paramPlans = new ConcurrentHashMap<>(64);
+
+    @Value("${local.log.params-max-length:4096}")
+    private int paramsMaxLength;
+
     @Override
     @Transactional(rollbackFor = Exception.class, readOnly = true)
     public Map<String, Object> queryAll(BzLogQueryCriteria criteria, Pageable pageable) {
@@ -73,6 +91,15 @@ public class BzLogServiceImpl implements IBzLogService {
         return PageUtils.toPage(page);
     }
 
+    @Override
+    @Transactional(rollbackFor = Exception.class, readOnly = true)
+    public Map<String, Object> scrollAll(BzLogQueryCriteria criteria, String cursor, int size, boolean withTotal) {
+        if ("ERROR".equals(criteria.getLogType())) {
+            return KeysetPageUtils.scroll(BzLog.class, bzLogRepository, criteria, cursor, size, withTotal, errInfo -> conversionService.convert(errInfo, BzLogErrorDTO.class));
+        }
+        return KeysetPageUtils.scroll(BzLog.class, bzLogRepository, criteria, cursor, size, withTotal, Function.identity());
+    }
+
     @Override
     @Transactional(rollbackFor = Exception.class, readOnly = true)
     public List<BzLog> queryAll(BzLogQueryCriteria criteria) {
@@ -87,14 +114,13 @@ public class BzLogServiceImpl implements IBzLogService {
     }
 
     /**
-     * 日志为异步写的。不影响相关的业务
+     * 日志为异步写的。不影响相关的业务。
+     * 这里只在调用方线程组装日志，不开事务：批量写入时放入队列即返回，否则交给BzLogAsyncSaver异步保存
      *
      * @params [username, browser, ip, joinPoint, log]
      * @date 2021/3/25 23:39
      */
-    @Async
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public void save(String username, String browser, String ip, ProceedingJoinPoint joinPoint, BzLog opBzLog) {
 
         var signature = (MethodSignature) joinPoint.getSignature();
@@ -111,12 +137,17 @@ public class BzLogServiceImpl implements IBzLogService {
         Assert.notNull(opBzLog, "信息有误，不可为空");
         opBzLog.setRequestIp(ip);
 
-        opBzLog.setAddress(StringUtils.getHttpCityInfo(opBzLog.getRequestIp()));
         opBzLog.setMethod(methodName);
         opBzLog.setUsername(username);
         opBzLog.setParams(getParameter(method, joinPoint.getArgs()));
         opBzLog.setBrowser(browser);
-        bzLogRepository.save(opBzLog);
+        // 批量写入时只取缓存，未命中的由写入线程补全
+        if (bzLogBatchWriter.isEnabled()) {
+            opBzLog.setAddress(ipLocationResolver.getIfCached(ip));
+            bzLogBatchWriter.submit(opBzLog);
+            return;
+        }
+        bzLogAsyncSaver.save(opBzLog, ip);
     }
 
     @Async
@@ -130,32 +161,74 @@ public class BzLogServiceImpl implements IBzLogService {
     /**
      * 根据方法和传入的参数获取请求参数.
      * 虽然尴尬，但我们通过反射只能拿到方法签名和参数列表，签名中每个参数的具体含义是不知道的
+     * 每个方法要记录哪些参数只解析一次，序列化结果超过paramsMaxLength时截断
      */
     private String getParameter(Method method, Object[] args) {
-        var argList = new ArrayList<>();
-        var parameters = method.getParameters();
-        for (int i = 0; i < parameters.length; i++) {
-            //将RequestBody注解修饰的参数作为请求参数
-            var requestBody = parameters[i].getAnnotation(RequestBody.class);
-            if (requestBody != null) {
-                argList.add(args[i]);
-            }
-            //将RequestParam注解修饰的参数作为请求参数
-            var requestParam = parameters[i].getAnnotation(RequestParam.class);
-            if (requestParam != null) {
-                var map = new HashMap<>();
-                var key = parameters[i].getName();
-                if (!StringUtils.isEmpty(requestParam.value())) {
-                    key = requestParam.value();
+        var plan = paramPlans.computeIfAbsent(method, ParamPlan::of);
+        if (plan.indexes().length == 0) {
+            return "";
+        }
+        if (plan.indexes().length == 1) {
+            return JsonUtils.toJSONString(plan.argAt(0, args), paramsMaxLength);
+        }
+        var argList = new ArrayList<>(plan.indexes().length);
+        for (int i = 0; i < plan.indexes().length; i++) {
+            argList.add(plan.argAt(i, args));
+        }
+        return JsonUtils.toJSONString(argList, paramsMaxLength);
+    }
+
+    /**
+     * 需要记录的参数
+     *
+     * @param indexes 参数下标，RequestBody修饰的记录参数本身，RequestParam修饰的记录为 {name: value}
+     * @param names   与indexes一一对应，RequestBody的为null
+     */
+    private record ParamPlan(int[] indexes, String[] names) {
+
+        static ParamPlan of(Method method) {
+            var indexes = new ArrayList<Integer>();
+            var names = new ArrayList<String>();
+            var parameters = method.getParameters();
+            for (int i = 0; i < parameters.length; i++) {
+                //将RequestBody注解修饰的参数作为请求参数
+                if (parameters[i].isAnnotationPresent(RequestBody.class)) {
+                    indexes.add(i);
+                    names.add(null);
+                }
+                //将RequestParam注解修饰的参数作为请求参数
+                var requestParam = parameters[i].getAnnotation(RequestParam.class);
+                if (requestParam != null) {
+                    indexes.add(i);
+                    names.add(StringUtils.isEmpty(requestParam.value()) ? parameters[i].getName() : requestParam.value());
                 }
-                map.put(key, args[i]);
-                argList.add(map);
             }
+            return new ParamPlan(indexes.stream().mapToInt(Integer::intValue).toArray(), names.toArray(String[]::new));
         }
-        if (argList.isEmpty()) {
-            return "";
+
+        Object argAt(int i, Object[] args) {
+            var arg = summarize(args[indexes[i]]);
+            if (names[i] == null) {
+                return arg;
+            }
+            var map = new HashMap<String, Object>(2);
+            map.put(names[i], arg);
+            return map;
+        }
+
+        // 上传的文件只记录文件名与大小
+        private static Object summarize(Object arg) {
+            if (arg instanceof MultipartFile file) {
+                var summary = new LinkedHashMap<String, Object>(4);
+                summary.put("originalFilename", file.getOriginalFilename());
+                summary.put("size", file.getSize());
+                return summary;
+            }
+            if (arg instanceof MultipartFile[] files) {
+                return Arrays.stream(files).map(ParamPlan::summarize).toList();
+            }
+            return arg;
         }
-        return argList.size() == 1 ? JSONUtil.toJsonStr(argList.getFirst()) : JSONUtil.toJsonStr(argList);
     }
 
     @Override
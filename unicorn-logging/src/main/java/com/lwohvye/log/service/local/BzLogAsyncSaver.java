@@ -0,0 +1,79 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.log.service.local;
+
+import com.lwohvye.log.domain.BzLog;
+import com.lwohvye.log.repository.BzLogRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 未开启批量写入时，逐条异步保存操作日志。批量写入时日志直接交给{@link BzLogBatchWriter}，不经过这里，也不开事务
+ *
+ * @date 2025/10/16
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BzLogAsyncSaver {
+
+    private final BzLogRepository bzLogRepository;
+
+    private final IpLocationResolver ipLocationResolver;
+
+    /**
+     * 补全地址后保存
+     *
+     * @param opBzLog 已填好其他字段的日志
+     * @param ip      请求IP
+     */
+    @Async
+    @Transactional(rollbackFor = Exception.class)
+    public void save(BzLog opBzLog, String ip) {
+        // 开启异步补全时只取缓存，未命中的在提交后再解析并回写
+        var address = ipLocationResolver.isAsyncEnrich() ? ipLocationResolver.getIfCached(ip) : ipLocationResolver.resolve(ip);
+        opBzLog.setAddress(address);
+        bzLogRepository.save(opBzLog);
+        if (address == null && ipLocationResolver.isAsyncEnrich() && ipLocationResolver.getMode() != IpLocationResolver.Mode.NONE)
+            enrichAddressAfterCommit(opBzLog.getId(), ip);
+    }
+
+    private void enrichAddressAfterCommit(Long logId, String ip) {
+        Runnable enrich = () -> ipLocationResolver.resolveAsync(ip).thenAccept(address -> {
+            if (address != null)
+                bzLogRepository.updateAddressById(logId, address);
+        }).exceptionally(e -> {
+            log.warn("Enrich address of log [{}] failed: {}", logId, e.getMessage());
+            return null;
+        });
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enrich.run();
+                }
+            });
+        } else {
+            enrich.run();
+        }
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.log.service.local;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.lwohvye.core.utils.batch.BatchWriter;
+import com.lwohvye.core.utils.json.JsonUtils;
+import com.lwohvye.log.domain.BzLog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 操作日志的批量写入，攒批与写入线程的生命周期见{@link BatchWriter}，通过JDBC batch写入sys_log。
+ * BzLog的主键为IDENTITY，Hibernate无法对其做批量insert，因此这里直接使用JdbcTemplate。
+ * 队列满时的处理方式由 local.log.writer.overflow 指定：drop(丢弃) / block(最多等待block-timeout，超时后溢出到文件) / spill(默认，写入本地文件，空闲时回放)。
+ * 写库失败的日志同样写入本地文件
+ */
+@Slf4j
+@Service
+public class BzLogBatchWriter extends BatchWriter<BzLogBatchWriter.LogRow> {
+
+    private static final String INSERT_SQL = "insert into sys_log (username, description, method, params, log_type, request_ip, address, browser, time, exception_detail, create_time) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // 回放失败后的最短重试间隔，避免数据库不可用时反复读写文件
+    private static final long REPLAY_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final IpLocationResolver ipLocationResolver;
+
+    @Getter
+    private final boolean enabled;
+
+    private final Path spillFile;
+
+    private final Path replayFile;
+
+    private final ReentrantLock spillLock = new ReentrantLock();
+
+    private final AtomicBoolean spillPending = new AtomicBoolean();
+
+    private final Counter spilledCounter;
+
+    private long lastReplayFailure;
+
+    public BzLogBatchWriter(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, IpLocationResolver ipLocationResolver,
+                            ObjectProvider<MeterRegistry> meterRegistryProvider,
+                            @Value("${local.log.writer.enabled:true}") boolean enabled,
+                            @Value("${local.log.writer.capacity:8192}") int capacity,
+                            @Value("${local.log.writer.batch-size:200}") int batchSize,
+                            @Value("${local.log.writer.flush-interval:500}") long flushIntervalMillis,
+                            @Value("${local.log.writer.overflow:spill}") String overflow,
+                            @Value("${local.log.writer.block-timeout:50}") long blockTimeoutMillis,
+                            @Value("${local.log.writer.spill-file:${java.io.tmpdir}/unicorn/bz-log-spill.jsonl}") String spillFile) {
+        super("bzlog-writer", capacity, batchSize, flushIntervalMillis, Overflow.of(overflow), blockTimeoutMillis,
+                meterRegistryProvider.getIfAvailable(SimpleMeterRegistry::new));
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.ipLocationResolver = ipLocationResolver;
+        this.enabled = enabled;
+        this.spillFile = Path.of(spillFile);
+        this.replayFile = Path.of(spillFile + ".replay");
+        this.spilledCounter = Counter.builder("bzlog.writer.spilled").description("写入本地文件的日志数").register(meterRegistry());
+
+        if (Files.exists(this.spillFile) || Files.exists(this.replayFile))
+            spillPending.set(true);
+    }
+
+    /**
+     * 提交一条日志，异步写入
+     */
+    public void submit(BzLog bzLog) {
+        enqueue(LogRow.of(bzLog));
+    }
+
+    /**
+     * 同步写入一批日志，一个事务、一次JDBC batch，不经过队列。失败时抛出异常，由调用方处理（如批量消费时拆分出毒消息）
+     */
+    public void writeNow(List<BzLog> bzLogs) {
+        if (bzLogs.isEmpty())
+            return;
+        writeTimed(bzLogs.stream().map(LogRow::of).toList());
+    }
+
+    // 归属地未命中缓存的，在写入时补全，不占用业务线程
+    @Override
+    protected void write(List<LogRow> batch) {
+        var rows = batch.stream().map(this::withAddress).toList();
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, rows, rows.size(), BzLogBatchWriter::bind));
+    }
+
+    @Override
+    protected void onFailure(List<LogRow> batch, Exception e) {
+        log.error("Flush {} op logs failed, spill them to [{}]", batch.size(), spillFile, e);
+        spill(batch);
+    }
+
+    // 空闲时回放溢出到文件中的日志
+    @Override
+    protected void idle() {
+        replaySpilled();
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        return enabled;
+    }
+
+    private LogRow withAddress(LogRow row) {
+        if (Objects.nonNull(row.address()) || Objects.isNull(row.requestIp()))
+            return row;
+        return row.withAddress(ipLocationResolver.resolve(row.requestIp()));
+    }
+
+    private static void bind(PreparedStatement ps, LogRow row) throws SQLException {
+        ps.setString(1, row.username());
+        ps.setString(2, row.description());
+        ps.setString(3, row.method());
+        ps.setString(4, row.params());
+        ps.setString(5, row.logType());
+        ps.setString(6, row.requestIp());
+        ps.setString(7, row.address());
+        ps.setString(8, row.browser());
+        ps.setObject(9, row.time());
+        ps.setString(10, Objects.nonNull(row.exceptionDetail()) ? new String(row.exceptionDetail(), StandardCharsets.UTF_8) : null);
+        ps.setTimestamp(11, new Timestamp(row.createTime()));
+    }
+
+    @Override
+    protected void spill(List<LogRow> rows) {
+        spillLock.lock();
+        try {
+            Files.createDirectories(spillFile.getParent());
+            try (var writer = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (var row : rows) {
+                    writer.write(JsonUtils.toJSONString(row));
+                    writer.newLine();
+                }
+            }
+            spilledCounter.increment(rows.size());
+            spillPending.set(true);
+        } catch (IOException e) {
+            log.error("Spill {} op logs to [{}] failed, drop them", rows.size(), spillFile, e);
+            dropped(rows.size());
+        } finally {
+            spillLock.unlock();
+        }
+    }
+
+    /**
+     * 将溢出文件改名后整体回放，回放成功再删除。回放中途失败时，下次会从头重放该文件，可能产生少量重复日志
+     */
+    private void replaySpilled() {
+        if (!spillPending.get() || (lastReplayFailure != 0 && System.nanoTime() - lastReplayFailure < REPLAY_BACKOFF_NANOS))
+            return;
+        spillLock.lock();
+        try {
+            if (Files.notExists(replayFile)) {
+                if (Files.notExists(spillFile)) {
+                    spillPending.set(false);
+                    return;
+                }
+                Files.move(spillFile, replayFile, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException e) {
+            log.error("Prepare op log replay file [{}] failed", replayFile, e);
+            lastReplayFailure = System.nanoTime();
+            return;
+        } finally {
+            spillLock.unlock();
+        }
+        try (var lines = Files.lines(replayFile, StandardCharsets.UTF_8)) {
+            var batch = new ArrayList<LogRow>(batchSize());
+            for (var iterator = lines.iterator(); iterator.hasNext(); ) {
+                var row = JsonUtils.toJavaObject(iterator.next(), new TypeReference<LogRow>() {
+                });
+                if (Objects.nonNull(row))
+                    batch.add(row);
+                if (!batch.isEmpty() && (batch.size() >= batchSize() || !iterator.hasNext())) {
+                    write(batch);
+                    batch.clear();
+                }
+            }
+            Files.delete(replayFile);
+            lastReplayFailure = 0;
+            log.info("Replayed spilled op logs from [{}]", replayFile);
+        } catch (Exception e) {
+            log.error("Replay spilled op logs from [{}] failed, retry later", replayFile, e);
+            lastReplayFailure = System.nanoTime();
+        }
+    }
+
+    /**
+     * 待写入的一行日志，不可变，也作为溢出文件中每行的JSON结构
+     */
+    record LogRow(String username, String description, String method, String params, String logType, String requestIp,
+                  String address, String browser, Long time, byte[] exceptionDetail, long createTime) {
+
+        static LogRow of(BzLog bzLog) {
+            return new LogRow(bzLog.getUsername(), bzLog.getDescription(), bzLog.getMethod(), bzLog.getParams(), bzLog.getLogType(),
+                    bzLog.getRequestIp(), bzLog.getAddress(), bzLog.getBrowser(), bzLog.getTime(), bzLog.getExceptionDetail(),
+                    Objects.nonNull(bzLog.getCreateTime()) ? bzLog.getCreateTime().getTime() : System.currentTimeMillis());
+        }
+
+        LogRow withAddress(String address) {
+            return new LogRow(username, description, method, params, logType, requestIp, address, browser, time, exceptionDetail, createTime);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.log.service.local;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lwohvye.core.utils.StringUtils;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 日志中IP归属地的解析。默认使用内存中的ip2region库，不依赖外部服务，并缓存最近查询过的IP
+ * local.log.ip-location.mode: local(默认) / remote(原先的外部HTTP接口) / none(不解析)
+ * local.log.ip-location.async-enrich: 为true时未命中缓存的IP先落库，再异步补全归属地
+ */
+@Slf4j
+@Service
+public class IpLocationResolver implements DisposableBean {
+
+    public enum Mode {
+        LOCAL, REMOTE, NONE
+    }
+
+    @Getter
+    private final Mode mode;
+
+    @Getter
+    private final boolean asyncEnrich;
+
+    private final Cache<String, String> locationCache;
+
+    private final ExecutorService enrichExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public IpLocationResolver(@Value("${local.log.ip-location.mode:local}") String mode,
+                              @Value("${local.log.ip-location.cache-size:4096}") long cacheSize,
+                              @Value("${local.log.ip-location.async-enrich:false}") boolean asyncEnrich) {
+        this.mode = Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+        this.asyncEnrich = asyncEnrich;
+        this.locationCache = Caffeine.newBuilder().maximumSize(cacheSize).build();
+    }
+
+    /**
+     * 同步解析，命中缓存时直接返回
+     *
+     * @param ip ip
+     * @return 归属地，无法解析时为null
+     */
+    public String resolve(String ip) {
+        if (mode == Mode.NONE || StringUtils.isBlank(ip))
+            return null;
+        // 解析失败返回null，不会被缓存，下次再试
+        return locationCache.get(ip, this::lookup);
+    }
+
+    /**
+     * 只查缓存，不触发解析
+     */
+    public String getIfCached(String ip) {
+        if (mode == Mode.NONE || StringUtils.isBlank(ip))
+            return null;
+        return locationCache.getIfPresent(ip);
+    }
+
+    public CompletableFuture<String> resolveAsync(String ip) {
+        return CompletableFuture.supplyAsync(() -> resolve(ip), enrichExecutor);
+    }
+
+    private String lookup(String ip) {
+        try {
+            return switch (mode) {
+                case LOCAL -> StringUtils.getLocalCityInfo(ip);
+                case REMOTE -> StringUtils.getHttpCityInfo(ip);
+                case NONE -> null;
+            };
+        } catch (Exception e) {
+            log.warn("Resolve ip location failed: ip -> [{}], mode -> [{}], cause -> [{}]", ip, mode, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        enrichExecutor.close();
+    }
+}
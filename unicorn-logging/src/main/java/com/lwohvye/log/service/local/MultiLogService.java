@@ -28,11 +28,19 @@ public class MultiLogService {
     private IBzLogService bzLogService;
 
     public void saveAuthorizeLog(String msgData) {
-        var opLog = new BzLog().setDescription("记录用户登录信息").setLogType("Auth").setParams(msgData);
-        bzLogService.save(opLog);
+        bzLogService.save(authorizeLog(msgData));
     }
 
     public void saveMultiLog(String msgType, String msgData, String desc) {
-        bzLogService.save(new BzLog().setLogType(msgType).setParams(msgData).setDescription(desc));
+        bzLogService.save(multiLog(msgType, msgData, desc));
+    }
+
+    // 只构建不保存，批量消费时由BzLogBatchWriter一次写入
+    public BzLog authorizeLog(String msgData) {
+        return new BzLog().setDescription("记录用户登录信息").setLogType("Auth").setParams(msgData);
+    }
+
+    public BzLog multiLog(String msgType, String msgData, String desc) {
+        return new BzLog().setLogType(msgType).setParams(msgData).setDescription(desc);
     }
 }
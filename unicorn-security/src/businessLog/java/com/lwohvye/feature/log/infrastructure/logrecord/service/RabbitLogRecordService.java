@@ -41,8 +41,12 @@ public class RabbitLogRecordService implements ILogRecordService {
     @Override
     public void record(LogRecord logRecord) {
         var recordMsg = new AmqpMsgEntity().setMsgType("business").setMsgData(JsonUtils.toJSONString(logRecord)).setExtraData("saveMultiLog");
-        //  发送消息
-        rabbitMQProducerService.sendMsg(RabbitMQZConfig.DIRECT_SYNC_EXCHANGE, RabbitMQZConfig.BUSINESS_LOG_ROUTE_KEY, recordMsg);
+        //  发送消息，异步等待broker确认，不阻塞业务线程
+        rabbitMQProducerService.sendMsgAsync(RabbitMQZConfig.DIRECT_SYNC_EXCHANGE, RabbitMQZConfig.BUSINESS_LOG_ROUTE_KEY, recordMsg)
+                .whenComplete((result, throwable) -> {
+                    if (throwable != null)
+                        log.warn("Send business log failed, bizNo: {}, reason: {}", logRecord.getBizNo(), throwable.getMessage());
+                });
     }
 
     @Override
@@ -38,7 +38,14 @@ public interface SysCacheKey {
      */
     Map<String, String> MENU_ID = Map.of(CACHE_NAME, "menu", CACHE_KEY, "id:");
 
-    Map<String, String> MENU_USER = Map.of(CACHE_NAME, "menu", CACHE_KEY, "menu4user:");
+    /**
+     * 按角色组合缓存的菜单树，key为 menu4roles: + 排序后的 角色id.版本号
+     */
+    Map<String, String> MENU_ROLES = Map.of(CACHE_NAME, "menu", CACHE_KEY, "menu4roles:");
+    /**
+     * 各角色菜单的版本号（hash，field为角色id），角色的菜单变更时加一
+     */
+    String MENU_ROLE_VERSION = "menu::role-version";
     /**
      * 角色信息
      */
@@ -77,6 +77,13 @@ public class QuartzJobController {
         return quartzJobService.queryAllLog(criteria, pageable);
     }
 
+    @Operation(summary = "查询任务执行日志(Keyset分页)")
+    @GetMapping(value = "/logs/scroll")
+    public Map<String, Object> scrollJobLog(JobQueryCriteria criteria, @RequestParam(required = false) String cursor,
+                                            @RequestParam(defaultValue = "10") int size, @RequestParam(defaultValue = "false") boolean withTotal) {
+        return quartzJobService.scrollAllLog(criteria, cursor, size, withTotal);
+    }
+
     @OprLog("新增定时任务")
     @Operation(summary = "新增定时任务")
     @PostMapping
@@ -59,6 +59,17 @@ public interface IQuartzJobService {
      */
     Map<String, Object> queryAllLog(JobQueryCriteria criteria, Pageable pageable);
 
+    /**
+     * Keyset分页查询日志，按id倒序
+     *
+     * @param criteria  条件
+     * @param cursor    上一页返回的next，首页为空
+     * @param size      每页条数
+     * @param withTotal 是否返回总数
+     * @return /
+     */
+    Map<String, Object> scrollAllLog(JobQueryCriteria criteria, String cursor, int size, boolean withTotal);
+
     /**
      * 查询全部
      *
@@ -89,7 +100,7 @@ public interface IQuartzJobService {
     void delete(Set<Long> ids);
 
     /**
-     * 记录日志，当下只有失败才记录
+     * 记录日志，成功、失败都记录，异步攒批写入
      *
      * @param quartzLog
      * @date 2022/3/17 11:47 PM
@@ -137,9 +148,10 @@ public interface IQuartzJobService {
     void downloadLog(List<QuartzLog> queryAllLog, HttpServletResponse response) throws IOException;
 
     /**
-     * 执行子任务
+     * 执行子任务，按依赖关系编排，立即返回
      *
-     * @param tasks /
+     * @param quartzJob 父任务
+     * @see com.lwohvye.sys.modules.quartz.utils.SubJobGraph
      */
-    void executionSubJob(String[] tasks);
+    void executionSubJob(QuartzJob quartzJob);
 }
@@ -15,23 +15,22 @@
  */
 package com.lwohvye.sys.modules.quartz.service.impl;
 
-import cn.hutool.core.util.IdUtil;
-import cn.hutool.core.util.ObjectUtil;
-import cn.hutool.core.util.StrUtil;
 import com.lwohvye.sys.modules.quartz.domain.QuartzJob;
 import com.lwohvye.sys.modules.quartz.domain.QuartzLog;
 import com.lwohvye.sys.modules.quartz.service.dto.JobQueryCriteria;
 import com.lwohvye.core.exception.BadRequestException;
 import com.lwohvye.core.utils.*;
-import com.lwohvye.core.utils.redis.RedisUtils;
 import com.lwohvye.sys.modules.quartz.repository.QuartzJobRepository;
 import com.lwohvye.sys.modules.quartz.repository.QuartzLogRepository;
 import com.lwohvye.sys.modules.quartz.service.IQuartzJobService;
+import com.lwohvye.sys.modules.quartz.utils.JobChainExecutor;
+import com.lwohvye.sys.modules.quartz.utils.JobInvokers;
+import com.lwohvye.sys.modules.quartz.utils.QuartzLogWriter;
 import com.lwohvye.sys.modules.quartz.utils.QuartzManage;
+import com.lwohvye.sys.modules.quartz.utils.SubJobGraph;
 import lombok.RequiredArgsConstructor;
 import org.quartz.CronExpression;
 import org.springframework.data.domain.Pageable;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -39,8 +38,7 @@ import jakarta.servlet.http.HttpServletResponse;
 
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
 
 /**
  * @author Zheng Jie
@@ -53,7 +51,9 @@ public class QuartzJobServiceImpl implements IQuartzJobService {
     private final QuartzJobRepository quartzJobRepository;
     private final QuartzLogRepository quartzLogRepository;
     private final QuartzManage quartzManage;
-    private final RedisUtils redisUtils;
+    private final JobChainExecutor jobChainExecutor;
+    private final JobInvokers jobInvokers;
+    private final QuartzLogWriter quartzLogWriter;
 
     @Override
     @Transactional(rollbackFor = Exception.class, readOnly = true)
@@ -67,6 +67,12 @@ public class QuartzJobServiceImpl implements IQuartzJobService {
         return PageUtils.toPage(quartzLogRepository.findAll((root, criteriaQuery, criteriaBuilder) -> QueryHelp.getPredicate(root, criteria, criteriaBuilder), pageable));
     }
 
+    @Override
+    @Transactional(rollbackFor = Exception.class, readOnly = true)
+    public Map<String, Object> scrollAllLog(JobQueryCriteria criteria, String cursor, int size, boolean withTotal) {
+        return KeysetPageUtils.scroll(QuartzLog.class, quartzLogRepository, criteria, cursor, size, withTotal, Function.identity());
+    }
+
     @Override
     @Transactional(rollbackFor = Exception.class, readOnly = true)
     public List<QuartzJob> queryAll(JobQueryCriteria criteria) {
@@ -93,6 +99,7 @@ public class QuartzJobServiceImpl implements IQuartzJobService {
         if (!CronExpression.isValidExpression(resources.getCronExpression())) {
             throw new BadRequestException("cron表达式格式错误");
         }
+        checkSubTask(resources);
         resources = quartzJobRepository.save(resources);
         quartzManage.addJob(resources);
     }
@@ -103,13 +110,10 @@ public class QuartzJobServiceImpl implements IQuartzJobService {
         if (!CronExpression.isValidExpression(resources.getCronExpression())) {
             throw new BadRequestException("cron表达式格式错误");
         }
-        if (StringUtils.isNotBlank(resources.getSubTask())) {
-            List<String> tasks = Arrays.asList(resources.getSubTask().split("[,，]"));
-            if (tasks.contains(resources.getId().toString())) {
-                throw new BadRequestException("子任务中不能添加当前任务ID");
-            }
-        }
+        checkSubTask(resources);
         resources = quartzJobRepository.save(resources);
+        // 调用的bean、方法可能变了，下次执行时重新解析
+        jobInvokers.evict(resources.getId());
         quartzManage.updateJobCron(resources);
     }
 
@@ -138,40 +142,33 @@ public class QuartzJobServiceImpl implements IQuartzJobService {
             QuartzJob quartzJob = findById(id);
             quartzManage.deleteJob(quartzJob);
             quartzJobRepository.delete(quartzJob);
+            jobInvokers.evict(id);
         }
     }
 
     @Override
     public void saveLog(QuartzLog quartzLog) {
-        quartzLogRepository.save(quartzLog);
+        quartzLogWriter.submit(quartzLog);
     }
 
-    @Async
     @Override
-    @Transactional(rollbackFor = Exception.class)
-    public void executionSubJob(String[] tasks) {
-        for (String id : tasks) {
-            if (StrUtil.isBlank(id)) {
-                // 如果是手动清除子任务id，会出现id为空字符串的问题
-                continue;
-            }
-            QuartzJob quartzJob = findById(Long.parseLong(id));
-            // 执行任务
-            String uuid = IdUtil.simpleUUID();
-            quartzJob.setUuid(uuid);
-            // 执行任务
-            execution(quartzJob);
-            // 获取执行状态，如果执行失败则停止后面的子任务执行
-            Boolean result = (Boolean) redisUtils.get(uuid);
-            while (ObjectUtil.isNull(result)) {
-                // 休眠5秒，再次获取子任务执行情况
-                LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(5L));
-                result = (Boolean) redisUtils.get(uuid);
-            }
-            if (Boolean.FALSE.equals(result)) {
-                redisUtils.delete(uuid);
-                break;
-            }
+    public void executionSubJob(QuartzJob quartzJob) {
+        // 子任务完成时由ExecutionJob发出事件推进，不再轮询等待
+        jobChainExecutor.start(quartzJob);
+    }
+
+    // 子任务的格式及依赖关系，见SubJobGraph
+    private void checkSubTask(QuartzJob resources) {
+        if (StringUtils.isBlank(resources.getSubTask()))
+            return;
+        SubJobGraph graph;
+        try {
+            graph = SubJobGraph.parse(resources.getSubTask());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+        if (Objects.nonNull(resources.getId()) && graph.dependencies().containsKey(resources.getId())) {
+            throw new BadRequestException("子任务中不能添加当前任务ID");
         }
     }
 
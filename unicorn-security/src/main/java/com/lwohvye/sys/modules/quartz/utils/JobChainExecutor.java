@@ -0,0 +1,263 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.sys.modules.quartz.utils;
+
+import cn.hutool.core.util.IdUtil;
+import com.lwohvye.core.utils.StringUtils;
+import com.lwohvye.core.utils.redis.RedisUtils;
+import com.lwohvye.sys.modules.quartz.domain.QuartzJob;
+import com.lwohvye.sys.modules.quartz.repository.QuartzJobRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 子任务编排。按SubJobGraph的依赖关系触发子任务，依赖都成功的子任务并行执行；某个子任务失败时，依赖它的子任务不再执行，其他分支照常。
+ * <p>
+ * 子任务的完成由ExecutionJob通过complete发出JobCompletedEvent，收到后再触发下一批，不再轮询等待，也不占用线程。
+ * 默认在JVM内通过Spring事件传递；local.quartz.chain.cluster为true时经Redisson topic广播，由发起编排的实例处理。
+ * 执行结果同时写入Redis（带TTL），定期检查一次，用于兜底丢失的事件，超时未完成的子任务视为失败
+ *
+ * @date 2025/10/16
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class JobChainExecutor implements InitializingBean, DisposableBean {
+
+    private static final String TOPIC = "quartz::job-completed";
+
+    private static final String RESULT_KEY = "quartz::job-result::";
+
+    private static final long SWEEP_INTERVAL_SECONDS = 30L;
+
+    private final QuartzJobRepository quartzJobRepository;
+
+    private final QuartzManage quartzManage;
+
+    private final RedisUtils redisUtils;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ObjectProvider<RedissonClient> redissonClientProvider;
+
+    // 未引入actuator时没有MeterRegistry，此时不做指标统计
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    @Value("${local.quartz.chain.cluster:false}")
+    private boolean cluster;
+
+    // 执行结果在Redis中的保留时间(s)
+    @Value("${local.quartz.chain.result-ttl:3600}")
+    private long resultTtl;
+
+    // 子任务触发后的最长等待时间(s)
+    @Value("${local.quartz.chain.timeout:3600}")
+    private long timeout;
+
+    // uuid -> 已触发、还没有结果的子任务
+    private final Map<String, Node> running = new ConcurrentHashMap<>();
+
+    private RTopic topic;
+
+    private MeterRegistry meterRegistry;
+
+    private ScheduledExecutorService sweeper;
+
+    private enum State {WAITING, RUNNING, SUCCEEDED, FAILED, SKIPPED}
+
+    private record Node(Chain chain, Long jobId, long deadline) {
+    }
+
+    private static final class Chain {
+        private final String chainId = IdUtil.simpleUUID();
+        private final String rootName;
+        private final SubJobGraph graph;
+        private final Map<Long, State> states = new HashMap<>();
+        private final long startNanos = System.nanoTime();
+        // 最后两个子任务同时结束时，两边都可能看到全部结束，只记录一次
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        private Chain(String rootName, SubJobGraph graph) {
+            this.rootName = rootName;
+            this.graph = graph;
+            graph.dependencies().keySet().forEach(jobId -> states.put(jobId, State.WAITING));
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        meterRegistry = meterRegistryProvider.getIfAvailable();
+        if (cluster) {
+            topic = redissonClientProvider.getObject().getTopic(TOPIC, StringCodec.INSTANCE);
+            // 消息格式 uuid|success，各实例都会收到，没有对应子任务的直接忽略
+            topic.addListener(String.class, (channel, msg) -> {
+                var index = msg.lastIndexOf('|');
+                eventPublisher.publishEvent(new JobCompletedEvent(msg.substring(0, index), Boolean.parseBoolean(msg.substring(index + 1))));
+            });
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "job-chain-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweep, SWEEP_INTERVAL_SECONDS, SWEEP_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        sweeper.shutdownNow();
+        if (Objects.nonNull(topic))
+            topic.removeAllListeners();
+    }
+
+    /**
+     * 开始执行quartzJob的子任务，立即返回
+     *
+     * @param quartzJob 父任务
+     */
+    public void start(QuartzJob quartzJob) {
+        var graph = SubJobGraph.parse(quartzJob.getSubTask());
+        if (graph.isEmpty())
+            return;
+        var chain = new Chain(quartzJob.getJobName(), graph);
+        log.debug("Start sub jobs of {}, chain {}, graph {}", chain.rootName, chain.chainId, graph.dependencies());
+        launchReady(chain);
+    }
+
+    /**
+     * 标记任务执行完成，由ExecutionJob调用。非子任务(uuid为空)时忽略
+     *
+     * @param uuid    QuartzJob.uuid
+     * @param success 是否成功
+     */
+    public void complete(String uuid, boolean success) {
+        if (StringUtils.isBlank(uuid))
+            return;
+        redisUtils.set(RESULT_KEY + uuid, success, resultTtl);
+        if (Objects.nonNull(topic))
+            topic.publishAsync(uuid + "|" + success);
+        else
+            eventPublisher.publishEvent(new JobCompletedEvent(uuid, success));
+    }
+
+    @EventListener
+    public void onCompleted(JobCompletedEvent event) {
+        var node = running.remove(event.uuid());
+        if (Objects.isNull(node))
+            return;
+        synchronized (node.chain()) {
+            node.chain().states.put(node.jobId(), event.success() ? State.SUCCEEDED : State.FAILED);
+        }
+        launchReady(node.chain());
+    }
+
+    // 触发依赖均已成功的子任务，依赖中有失败或跳过的标记为跳过。全部结束时记录整个编排的耗时
+    private void launchReady(Chain chain) {
+        var ready = new ArrayList<Long>();
+        boolean done;
+        synchronized (chain) {
+            // 按拓扑序遍历，跳过状态可一次传递下去
+            chain.graph.dependencies().forEach((jobId, deps) -> {
+                if (chain.states.get(jobId) != State.WAITING)
+                    return;
+                var depStates = deps.stream().map(chain.states::get).toList();
+                if (depStates.stream().anyMatch(state -> state == State.FAILED || state == State.SKIPPED)) {
+                    chain.states.put(jobId, State.SKIPPED);
+                } else if (depStates.stream().allMatch(state -> state == State.SUCCEEDED)) {
+                    chain.states.put(jobId, State.RUNNING);
+                    ready.add(jobId);
+                }
+            });
+            done = ready.isEmpty() && chain.states.values().stream().noneMatch(state -> state == State.WAITING || state == State.RUNNING);
+        }
+        ready.forEach(jobId -> trigger(chain, jobId));
+        if (done && chain.finished.compareAndSet(false, true))
+            finish(chain);
+    }
+
+    private void trigger(Chain chain, Long jobId) {
+        var uuid = chain.chainId + "-" + jobId;
+        running.put(uuid, new Node(chain, jobId, System.nanoTime() + TimeUnit.SECONDS.toNanos(timeout)));
+        try {
+            var quartzJob = quartzJobRepository.findById(jobId).orElseThrow(() -> new IllegalStateException("子任务 " + jobId + " 不存在"));
+            quartzJob.setUuid(uuid);
+            quartzManage.runJobNow(quartzJob);
+        } catch (RuntimeException e) {
+            log.error("Trigger sub job {} of {} failed, reason: {}", jobId, chain.rootName, e.getMessage());
+            onCompleted(new JobCompletedEvent(uuid, false));
+        }
+    }
+
+    private void finish(Chain chain) {
+        Map<Long, State> states;
+        synchronized (chain) {
+            states = Map.copyOf(chain.states);
+        }
+        var success = states.values().stream().allMatch(state -> state == State.SUCCEEDED);
+        var elapsed = System.nanoTime() - chain.startNanos;
+        log.info("Sub jobs of {} finished, chain {}, success {}, cost {}ms, states {}", chain.rootName, chain.chainId, success,
+                TimeUnit.NANOSECONDS.toMillis(elapsed), states);
+        if (Objects.nonNull(meterRegistry))
+            Timer.builder("quartz.job.chain")
+                    .description("子任务编排从开始到全部结束的耗时")
+                    .tag("job", String.valueOf(chain.rootName))
+                    .tag("outcome", success ? "success" : "failure")
+                    .register(meterRegistry)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+    }
+
+    // 兜底：事件丢失时从Redis取结果，超时的视为失败
+    private void sweep() {
+        var now = System.nanoTime();
+        List.copyOf(running.entrySet()).forEach(entry -> {
+            try {
+                var result = redisUtils.get(RESULT_KEY + entry.getKey());
+                if (result instanceof Boolean success) {
+                    onCompleted(new JobCompletedEvent(entry.getKey(), success));
+                } else if (now - entry.getValue().deadline() > 0) {
+                    log.warn("Sub job {} of {} timeout", entry.getValue().jobId(), entry.getValue().chain().rootName);
+                    onCompleted(new JobCompletedEvent(entry.getKey(), false));
+                }
+            } catch (RuntimeException e) {
+                log.warn("Sweep sub job {} failed, reason: {}", entry.getKey(), e.getMessage());
+            }
+        });
+    }
+}
@@ -0,0 +1,27 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.sys.modules.quartz.utils;
+
+/**
+ * 任务执行完成，由ExecutionJob发出，JobChainExecutor据此推进子任务
+ *
+ * @param uuid    子任务唯一标识，见QuartzJob.uuid
+ * @param success 是否成功
+ * @date 2025/10/16
+ */
+public record JobCompletedEvent(String uuid, boolean success) {
+}
@@ -0,0 +1,163 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.sys.modules.quartz.utils;
+
+import cn.hutool.core.util.StrUtil;
+import com.lwohvye.core.utils.MailAdapter;
+import com.lwohvye.core.utils.ThrowableUtils;
+import com.lwohvye.sys.modules.quartz.domain.QuartzJob;
+import com.lwohvye.sys.modules.quartz.domain.QuartzLog;
+import com.lwohvye.sys.modules.quartz.service.IQuartzJobService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 执行定时任务：通过JobInvoker调用任务方法，记录执行日志，成功后推进子任务，失败时按配置暂停、邮件报警。
+ * <p>
+ * 默认直接在Quartz的线程上执行；local.quartz.executor.virtual为true时交给虚拟线程执行，Quartz线程立即返回，
+ * 此时max-concurrency限制同时执行的任务数，达到上限后Quartz线程等待
+ *
+ * @date 2025/10/16
+ */
+@Slf4j
+@Component
+public class JobExecutor implements DisposableBean {
+
+    private final JobInvokers jobInvokers;
+
+    private final JobChainExecutor jobChainExecutor;
+
+    private final QuartzLogWriter quartzLogWriter;
+
+    // 避免与QuartzJobService之间的循环依赖
+    private final ObjectProvider<IQuartzJobService> quartzJobServiceProvider;
+
+    private final ExecutorService executor;
+
+    private final Semaphore permits;
+
+    public JobExecutor(JobInvokers jobInvokers, JobChainExecutor jobChainExecutor, QuartzLogWriter quartzLogWriter,
+                       ObjectProvider<IQuartzJobService> quartzJobServiceProvider,
+                       @Value("${local.quartz.executor.virtual:false}") boolean virtual,
+                       @Value("${local.quartz.executor.max-concurrency:0}") int maxConcurrency) {
+        this.jobInvokers = jobInvokers;
+        this.jobChainExecutor = jobChainExecutor;
+        this.quartzLogWriter = quartzLogWriter;
+        this.quartzJobServiceProvider = quartzJobServiceProvider;
+        this.executor = virtual ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("Virtual-Job-", 0L).factory()) : null;
+        this.permits = virtual && maxConcurrency > 0 ? new Semaphore(maxConcurrency) : null;
+    }
+
+    public void execute(QuartzJob quartzJob) {
+        if (Objects.isNull(executor)) {
+            run(quartzJob);
+            return;
+        }
+        if (Objects.nonNull(permits))
+            permits.acquireUninterruptibly();
+        try {
+            executor.execute(() -> {
+                try {
+                    run(quartzJob);
+                } finally {
+                    if (Objects.nonNull(permits))
+                        permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 关闭中，在当前线程执行
+            if (Objects.nonNull(permits))
+                permits.release();
+            run(quartzJob);
+        }
+    }
+
+    private void run(QuartzJob quartzJob) {
+        var uuid = quartzJob.getUuid();
+        var quartzLog = new QuartzLog();
+        quartzLog.setJobName(quartzJob.getJobName());
+        quartzLog.setBeanName(quartzJob.getBeanName());
+        quartzLog.setMethodName(quartzJob.getMethodName());
+        quartzLog.setParams(quartzJob.getParams());
+        quartzLog.setCronExpression(quartzJob.getCronExpression());
+        var startTime = System.nanoTime();
+        try {
+            // 执行任务
+            jobInvokers.get(quartzJob).invoke(quartzJob.getParams());
+            quartzLog.setTime(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+            // 任务状态
+            quartzLog.setIsSuccess(true);
+        } catch (Throwable e) {
+            jobChainExecutor.complete(uuid, false);
+            quartzLog.setTime(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+            // 任务状态 0：成功 1：失败
+            quartzLog.setIsSuccess(false);
+            quartzLog.setExceptionDetail(ThrowableUtils.getStackTrace(e));
+            // 任务如果失败了则暂停
+            if (quartzJob.getPauseAfterFailure() != null && quartzJob.getPauseAfterFailure()) {
+                quartzJob.setIsPause(true);
+                //更新状态
+                quartzJobServiceProvider.getObject().updateIsPause(quartzJob);
+            }
+            // 邮箱报警
+            if (StrUtil.isNotBlank(quartzJob.getEmail())) {
+                var to = quartzJob.getEmail();
+                var subject = "定时任务【" + quartzJob.getJobName() + "】执行失败，请尽快处理！";
+                var templateName = "email/taskAlarm.ftl";
+                Map<String, Object> paramsMap = Map.of("task", quartzJob, "msg", ThrowableUtils.getStackTrace(e)); // 这里用var类型推断，会是Map<String, Serializable>
+                var res = MailAdapter.sendTemplatedMail(to, subject, templateName, paramsMap);
+                log.error("Task Error，Name {} || Reason {} || NoticeRes {} ", quartzJob.getJobName(), e.getMessage(), res);
+            }
+            return;
+        } finally {
+            // 成功、失败都记录，攒批写入
+            quartzLogWriter.submit(quartzLog);
+        }
+        // 任务本身已成功，通知编排、触发子任务时的异常（Redis不可用、旧格式的subTask无法解析等）只记录，不按任务失败处理
+        try {
+            // 作为子任务执行时，通知编排继续
+            jobChainExecutor.complete(uuid, true);
+            // 判断是否存在子任务
+            if (StrUtil.isNotBlank(quartzJob.getSubTask())) {
+                // 执行子任务
+                quartzJobServiceProvider.getObject().executionSubJob(quartzJob);
+            }
+        } catch (RuntimeException e) {
+            log.error("Task {} succeeded but dispatching its job chain failed, reason: {}", quartzJob.getJobName(), e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        if (Objects.isNull(executor))
+            return;
+        executor.shutdown();
+        if (!executor.awaitTermination(30L, TimeUnit.SECONDS))
+            log.warn("Some quartz jobs are still running after 30s");
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.sys.modules.quartz.utils;
+
+import com.lwohvye.core.utils.SpringContextHolder;
+import com.lwohvye.core.utils.StringUtils;
+import com.lwohvye.sys.modules.quartz.domain.QuartzJob;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Objects;
+
+/**
+ * 定时任务的调用方式，按QuartzJob解析一次：bean + 绑定好的MethodHandle。
+ * 类型统一为(String)void，无参方法忽略传入的参数，返回值丢弃
+ *
+ * @param beanName   /
+ * @param methodName /
+ * @param withParams 是否为带一个String参数的方法，取决于QuartzJob是否配置了参数
+ * @param handle     /
+ * @date 2025/10/16
+ */
+record JobInvoker(String beanName, String methodName, boolean withParams, MethodHandle handle) {
+
+    private static final MethodType INVOKE_TYPE = MethodType.methodType(void.class, String.class);
+
+    static JobInvoker resolve(QuartzJob quartzJob) throws NoSuchMethodException, IllegalAccessException {
+        var target = SpringContextHolder.getBean(quartzJob.getBeanName());
+        var withParams = StringUtils.isNotBlank(quartzJob.getParams());
+        var method = withParams
+                ? target.getClass().getDeclaredMethod(quartzJob.getMethodName(), String.class)
+                : target.getClass().getDeclaredMethod(quartzJob.getMethodName());
+        ReflectionUtils.makeAccessible(method);
+        var handle = MethodHandles.lookup().unreflect(method).bindTo(target);
+        if (!withParams)
+            handle = MethodHandles.dropArguments(handle, 0, String.class);
+        return new JobInvoker(quartzJob.getBeanName(), quartzJob.getMethodName(), withParams, handle.asType(INVOKE_TYPE));
+    }
+
+    // 任务修改后（包括其他实例上的修改）需重新解析
+    boolean matches(QuartzJob quartzJob) {
+        return Objects.equals(beanName, quartzJob.getBeanName()) && Objects.equals(methodName, quartzJob.getMethodName())
+               && withParams == StringUtils.isNotBlank(quartzJob.getParams());
+    }
+
+    void invoke(String params) throws Throwable {
+        handle.invokeExact(params);
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.sys.modules.quartz.utils;
+
+import com.lwohvye.sys.modules.quartz.domain.QuartzJob;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按任务ID缓存JobInvoker，避免每次触发都查找bean、反射取方法。任务修改、删除时由QuartzJobService清除
+ *
+ * @date 2025/10/16
+ */
+@Component
+public class JobInvokers {
+
+    private final Map<Long, JobInvoker> invokers = new ConcurrentHashMap<>();
+
+    JobInvoker get(QuartzJob quartzJob) throws NoSuchMethodException, IllegalAccessException {
+        var id = quartzJob.getId();
+        var invoker = Objects.nonNull(id) ? invokers.get(id) : null;
+        if (Objects.nonNull(invoker) && invoker.matches(quartzJob))
+            return invoker;
+        invoker = JobInvoker.resolve(quartzJob);
+        if (Objects.nonNull(id))
+            invokers.put(id, invoker);
+        return invoker;
+    }
+
+    public void evict(Long id) {
+        if (Objects.nonNull(id))
+            invokers.remove(id);
+    }
+}
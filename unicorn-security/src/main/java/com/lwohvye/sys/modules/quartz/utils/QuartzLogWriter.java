@@ -0,0 +1,88 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.sys.modules.quartz.utils;
+
+import com.lwohvye.core.utils.batch.BatchWriter;
+import com.lwohvye.sys.modules.quartz.domain.QuartzLog;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 定时任务执行日志的批量写入。每次执行（包括成功的）都记录，攒批与写入线程的生命周期见{@link BatchWriter}，通过JDBC batch写入sys_quartz_log。
+ * QuartzLog的主键为IDENTITY，Hibernate无法对其做批量insert，因此直接使用JdbcTemplate。
+ * 队列满时的处理方式由 local.quartz.log-writer.overflow 指定：drop(丢弃) / block(默认，任务线程最多等待block-timeout，超时后丢弃)
+ *
+ * @date 2025/10/16
+ */
+@Component
+public class QuartzLogWriter extends BatchWriter<QuartzLog> {
+
+    private static final String INSERT_SQL = "insert into sys_quartz_log (job_name, bean_name, method_name, params, cron_expression, is_success, exception_detail, time, create_time) values (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public QuartzLogWriter(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, ObjectProvider<MeterRegistry> meterRegistryProvider,
+                           @Value("${local.quartz.log-writer.capacity:2048}") int capacity,
+                           @Value("${local.quartz.log-writer.batch-size:100}") int batchSize,
+                           @Value("${local.quartz.log-writer.flush-interval:1000}") long flushIntervalMillis,
+                           @Value("${local.quartz.log-writer.overflow:block}") String overflow,
+                           @Value("${local.quartz.log-writer.block-timeout:200}") long blockTimeoutMillis) {
+        super("quartz-log-writer", capacity, batchSize, flushIntervalMillis, Overflow.of(overflow), blockTimeoutMillis,
+                meterRegistryProvider.getIfAvailable(SimpleMeterRegistry::new));
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * 提交一条任务日志，异步写入
+     */
+    public void submit(QuartzLog quartzLog) {
+        if (Objects.isNull(quartzLog.getCreateTime()))
+            quartzLog.setCreateTime(new Timestamp(System.currentTimeMillis()));
+        enqueue(quartzLog);
+    }
+
+    @Override
+    protected void write(List<QuartzLog> batch) {
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), QuartzLogWriter::bind));
+    }
+
+    private static void bind(PreparedStatement ps, QuartzLog quartzLog) throws SQLException {
+        ps.setString(1, quartzLog.getJobName());
+        ps.setString(2, quartzLog.getBeanName());
+        ps.setString(3, quartzLog.getMethodName());
+        ps.setString(4, quartzLog.getParams());
+        ps.setString(5, quartzLog.getCronExpression());
+        ps.setObject(6, quartzLog.getIsSuccess());
+        ps.setString(7, quartzLog.getExceptionDetail());
+        ps.setObject(8, quartzLog.getTime());
+        ps.setTimestamp(9, quartzLog.getCreateTime());
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.sys.modules.quartz.utils;
+
+import com.lwohvye.core.utils.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 子任务的依赖关系(DAG)。
+ * <p>
+ * 格式为逗号分隔的任务ID，未指定依赖时依赖前一个（即按顺序执行，与之前的写法兼容）；
+ * 可用 id:dep1+dep2 显式指定依赖，id: 表示无依赖。依赖只能是前面出现过的子任务，所以不会成环，且按出现顺序即为拓扑序。
+ * 如 2,3:2,4:2,5:3+4 表示2执行完后3、4并行，都成功后再执行5
+ *
+ * @param dependencies 子任务ID -> 依赖的子任务ID，按出现顺序
+ * @date 2025/10/16
+ */
+public record SubJobGraph(Map<Long, List<Long>> dependencies) {
+
+    public static SubJobGraph parse(String subTask) {
+        var dependencies = new LinkedHashMap<Long, List<Long>>();
+        if (StringUtils.isBlank(subTask))
+            return new SubJobGraph(Collections.emptyMap());
+        Long previous = null;
+        for (var item : subTask.split("[,，]")) {
+            // 如果是手动清除子任务id，会出现id为空字符串的问题
+            if (StringUtils.isBlank(item))
+                continue;
+            var parts = item.trim().split("[:：]", -1);
+            var id = parseId(parts[0]);
+            var deps = new ArrayList<Long>();
+            if (parts.length == 1) {
+                if (Objects.nonNull(previous))
+                    deps.add(previous);
+            } else {
+                for (var dep : parts[1].split("\\+")) {
+                    if (StringUtils.isBlank(dep))
+                        continue;
+                    var depId = parseId(dep);
+                    if (!dependencies.containsKey(depId))
+                        throw new IllegalArgumentException("子任务 " + id + " 依赖的 " + depId + " 需在其之前声明");
+                    deps.add(depId);
+                }
+            }
+            if (dependencies.putIfAbsent(id, List.copyOf(deps)) != null)
+                throw new IllegalArgumentException("子任务 " + id + " 重复");
+            previous = id;
+        }
+        return new SubJobGraph(Collections.unmodifiableMap(dependencies));
+    }
+
+    public boolean isEmpty() {
+        return dependencies.isEmpty();
+    }
+
+    private static Long parseId(String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("子任务ID格式错误: " + value);
+        }
+    }
+}
@@ -15,16 +15,20 @@
  */
 package com.lwohvye.sys.modules.rabbitmq.service;
 
-import com.lwohvye.core.exception.UtilsException;
 import com.lwohvye.core.utils.MailAdapter;
 import com.lwohvye.core.utils.rabbitmq.AmqpMsgEntity;
+import com.lwohvye.core.utils.rabbitmq.MsgDispatcher;
 import com.lwohvye.core.utils.rabbitmq.YRabbitAbstractConsumer;
 import com.lwohvye.sys.modules.rabbitmq.config.RabbitMQConfig;
 import com.lwohvye.sys.modules.system.service.local.AuthMQService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.redisson.api.RedissonClient;
 import org.springframework.amqp.rabbit.annotation.RabbitHandler;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
@@ -51,12 +55,22 @@ import java.util.Map;
 
 // @RabbitListener 可以标注在类上面，需配合 @RabbitHandler 注解一起使用
 // @RabbitListener 标注在类上面表示当有收到消息的时候，就交给 @RabbitHandler 的方法处理，具体使用哪个方法处理，根据 MessageConverter 转换后的参数类型
-public class RabbitMQDelayMsgConsumerService extends YRabbitAbstractConsumer {
+public class RabbitMQDelayMsgConsumerService extends YRabbitAbstractConsumer implements InitializingBean {
 
     @Autowired
     private AuthMQService authMQService;
 
-    private final MethodHandles.Lookup lookup = MethodHandles.lookup();
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    // extraData -> AuthMQService中对应的方法，启动时构建
+    private MsgDispatcher dispatcher;
+
+    @Override
+    public void afterPropertiesSet() {
+        dispatcher = MsgDispatcher.of("auth", MethodHandles.lookup(), authMQService, MethodType.methodType(void.class, String.class),
+                meterRegistryProvider.getIfAvailable(SimpleMeterRegistry::new));
+    }
 
     @Autowired
     public void setRedissonClient(RedissonClient redissonClient) {
@@ -68,15 +82,8 @@ public class RabbitMQDelayMsgConsumerService extends YRabbitAbstractConsumer {
     public void handle(String amqpMsgEntityStr) {
         baseConsumer(amqpMsgEntityStr, "auth", null, msgEntity -> {
             var extraData = msgEntity.getExtraData();
-            if (StringUtils.hasText(extraData)) {
-                try {
-                    var mt = MethodType.methodType(void.class, new Class[]{String.class});
-                    var methodHandle = lookup.findVirtual(authMQService.getClass(), extraData, mt);
-                    methodHandle.invoke(authMQService, msgEntity.getMsgData());
-                } catch (Throwable e) {
-                    throw new UtilsException(e.getMessage());
-                }
-            }
+            if (StringUtils.hasText(extraData) && !dispatcher.dispatch(extraData, msgEntity.getMsgData()))
+                log.warn("Unsupported action {}, supported: {} || Msg detail: {}", extraData, dispatcher.actions(), amqpMsgEntityStr);
             return null;
         }, errMsg -> {
             // reConsumeMsg(this::handle, amqpMsgEntityStr);
@@ -17,15 +17,19 @@
 package com.lwohvye.sys.modules.rabbitmq.service;
 
 import com.lwohvye.beans.config.LocalPropertyConfig;
-import com.lwohvye.core.exception.UtilsException;
 import com.lwohvye.core.utils.rabbitmq.AmqpMsgEntity;
+import com.lwohvye.core.utils.rabbitmq.MsgDispatcher;
 import com.lwohvye.core.utils.rabbitmq.YRabbitAbstractConsumer;
 import com.lwohvye.sys.modules.security.service.UserLocalCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.redisson.api.RedissonClient;
 import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitHandler;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
@@ -35,11 +39,21 @@ import java.lang.invoke.MethodType;
 
 @Component
 @Slf4j
-public class RabbitMQSPMsgConsumerService extends YRabbitAbstractConsumer {
+public class RabbitMQSPMsgConsumerService extends YRabbitAbstractConsumer implements InitializingBean {
 
     private UserLocalCache userLocalCache;
 
-    private final MethodHandles.Lookup lookup = MethodHandles.lookup();
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    // extraData -> UserLocalCache中对应的方法，启动时构建
+    private MsgDispatcher dispatcher;
+
+    @Override
+    public void afterPropertiesSet() {
+        dispatcher = MsgDispatcher.of("sp", MethodHandles.lookup(), userLocalCache, MethodType.methodType(void.class, String.class, Boolean.class),
+                meterRegistryProvider.getIfAvailable(SimpleMeterRegistry::new));
+    }
 
     @Autowired // Spring循环依赖问题，可以通过将构造注入改为setter注入的方式解决（三个Map）。也可以使用@Lazy注解。还有些别的解决方式
     // 这里只是做一个记录。UserCacheClean并未构成循环依赖
@@ -59,19 +73,13 @@ public class RabbitMQSPMsgConsumerService extends YRabbitAbstractConsumer {
         var checkedCache = "ConsumerSpMsgId";
         baseMessageConsumer(message, "sp", curOrigin, checkedCache, msgEntity -> {
             var extraData = msgEntity.getExtraData();
-            if (StringUtils.hasText(extraData))
-                // 这里的逻辑比较简单，首先内部已经做了忽略本实例产生的消息的逻辑。视情况可能还要做：有时需要忽略本集群产生的事件，有时需要向内部传递调用方为MQ消费者从而视情况不进行事件的扩散（虽然一般都是来自消费者的调用不做数据及事件的同步）
-                try {
-                    var mt = MethodType.methodType(void.class, String.class, Boolean.class);
-                    var methodHandle = lookup.findVirtual(userLocalCache.getClass(), extraData, mt);
-                    methodHandle.invoke(userLocalCache, msgEntity.getMsgData(), false);
-                } catch (Throwable e) {
-                    throw new UtilsException(e.getMessage());
-                }
+            // 这里的逻辑比较简单，首先内部已经做了忽略本实例产生的消息的逻辑。视情况可能还要做：有时需要忽略本集群产生的事件，有时需要向内部传递调用方为MQ消费者从而视情况不进行事件的扩散（虽然一般都是来自消费者的调用不做数据及事件的同步）
+            if (StringUtils.hasText(extraData) && !dispatcher.dispatch(extraData, msgEntity.getMsgData(), Boolean.FALSE))
+                log.warn("Unsupported action {}, supported: {}", extraData, dispatcher.actions());
             return null;
         }, s -> {
             // 先移除消费过的标志，再主动重新消费一下。考虑了一下，这种cancel还是交给子类，否则要额外传个Consumer进去了
-            redissonClient.getMapCache(checkedCache + curOrigin).remove(message.getMessageProperties().getMessageId());
+            removeConsumedMark(checkedCache, curOrigin, message.getMessageProperties().getMessageId());
             reConsumeMsg(this::spMsgConsumer, message);
         });
     }
@@ -33,6 +33,8 @@ import com.lwohvye.sys.modules.security.core.handler.JwtAccessDeniedHandler;
 import com.lwohvye.sys.modules.security.core.handler.JwtAuthenticationEntryPoint;
 import com.lwohvye.sys.modules.security.service.dto.JwtUserDto;
 import com.lwohvye.sys.modules.system.service.IResourceService;
+import com.lwohvye.sys.modules.system.service.local.AuthMQService;
+import com.lwohvye.sys.modules.system.service.local.LocalIndexInvalidation;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -153,8 +155,8 @@ public class SpringSecurityConfig {
      * @return CustomFilterInvocationSecurityMetadataSource
      */
     @Bean
-    public SecurityMetadataSource customInvocationSecurityMetadataSource(IResourceService resourceService) {
-        return new CustomInvocationSecurityMetadataSource(resourceService);
+    public SecurityMetadataSource customInvocationSecurityMetadataSource(IResourceService resourceService, LocalIndexInvalidation indexInvalidation) {
+        return new CustomInvocationSecurityMetadataSource(resourceService, indexInvalidation);
     }
 
     /**
@@ -216,7 +218,7 @@ public class SpringSecurityConfig {
                 var username = request.getAttribute("username");
                 if (Objects.nonNull(username)) {
                     var ip = StringUtils.getIp(request);
-                    var lockedIp = ip + "||authLocked||";
+                    var lockedIp = AuthMQService.lockedIpKey(ip);
 
                     var infoMap = new HashMap<String, Object>();
                     infoMap.put("ip", ip);
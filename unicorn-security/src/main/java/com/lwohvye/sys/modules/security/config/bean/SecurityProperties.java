@@ -59,6 +59,16 @@ public class SecurityProperties {
     // 登录即将过期通知，单系统只通知一次
     private String expireNoticeKey = "expire-notice-token-";
 
+    /**
+     * 已验签Token的本地缓存，同一Token重复请求时跳过验签与解析。默认关闭
+     */
+    private boolean tokenCacheEnable = false;
+
+    /**
+     * 已验签Token本地缓存的最大条目数，条目本身在Token过期时失效
+     */
+    private Long tokenCacheMaxSize = 4096L;
+
     /**
      * 前缀后面要加个空格，这个无法在文件中配置，所以重写下get方法
      */
@@ -27,6 +27,11 @@ import org.springframework.security.core.Authentication;
 import java.util.function.Supplier;
 
 public final class CustomAuthorizationManager<T> implements AuthorizationManager<T> {
+
+    // AuthorizationDecision不可变，共享实例，避免每次鉴权都创建
+    private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+    private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+
     private final SecurityMetadataSource metadata;
 
     public CustomAuthorizationManager(SecurityMetadataSource securityMetadataSource) {
@@ -35,24 +40,41 @@ public final class CustomAuthorizationManager<T> implements AuthorizationManager
 
     public AuthorizationDecision check(Supplier<Authentication> authentication, T invocation) {
         var attributes = this.metadata.getAttributes(invocation);
+        // 预编译的角色位图，一次位运算完成鉴权
+        if (attributes instanceof RequiredAuthorities required)
+            return check(authentication, required);
 
         for (ConfigAttribute configAttribute : attributes) {
             // 使用凭证。访问登录即可访问的资源
             var auth = authentication.get();
             if (SecurityConstant.ROLE_LOGIN.equals(configAttribute.getAttribute()) && auth instanceof UsernamePasswordAuthenticationToken)  //如果请求Url需要的角色是ROLE_LOGIN，说明当前的Url用户登录后即可访问
-                return new AuthorizationDecision(true);
+                return GRANTED;
             // 访问可匿名访问的资源
             if (SecurityConstant.ROLE_ANONYMOUS.equals(configAttribute.getAttribute())) // 访问匿名资源，放行
-                return new AuthorizationDecision(true);
+                return GRANTED;
             // 访问受保护的资源。需校验权限
             var auths = auth.getAuthorities(); //获取登录用户具有的角色
             for (var grantedAuthority : auths) {
                 if (configAttribute.getAttribute().equals(grantedAuthority.getAuthority())) {
-                    return new AuthorizationDecision(true);
+                    return GRANTED;
                 }
             }
         }
-        return new AuthorizationDecision(false);
+        return DENIED;
         // return null; // abstain
     }
+
+    private AuthorizationDecision check(Supplier<Authentication> authentication, RequiredAuthorities required) {
+        // 访问可匿名访问的资源
+        if (required.isAnonymous())
+            return GRANTED;
+        var auth = authentication.get();
+        // 使用凭证。访问登录即可访问的资源
+        if (required.isLoginOnly())
+            return auth instanceof UsernamePasswordAuthenticationToken ? GRANTED : DENIED;
+        // 访问受保护的资源。用户角色位图在加载用户时已算好，匿名等其他类型的凭证按需计算
+        var roleBits = auth instanceof RoleBitsAuthenticationToken roleBitsToken
+                ? roleBitsToken.getRoleBits() : RoleCodeRegistry.toBits(auth.getAuthorities());
+        return required.matches(roleBits) ? GRANTED : DENIED;
+    }
 }
@@ -0,0 +1,36 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.sys.modules.security.core;
+
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+
+/**
+ * Token解析后的不可变结果。单次请求中只做一次验签与解析，后续的鉴权、密码重置校验及过期通知都基于该对象，避免重复Parse
+ *
+ * @param token      原始Token
+ * @param subject    Token中的subject，当前业务里存的用户名
+ * @param issuedAt   颁发时间
+ * @param expiration 过期时间
+ */
+public record ParsedToken(String token, String subject, Instant issuedAt, Instant expiration) {
+
+    public static ParsedToken of(String token, Claims claims) {
+        return new ParsedToken(token, claims.getSubject(), claims.getIssuedAt().toInstant(), claims.getExpiration().toInstant());
+    }
+}
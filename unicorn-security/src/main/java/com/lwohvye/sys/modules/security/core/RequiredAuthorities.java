@@ -0,0 +1,73 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.sys.modules.security.core;
+
+import org.springframework.security.access.ConfigAttribute;
+
+import java.util.AbstractList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * 请求所需的角色。对外仍是不可修改的ConfigAttribute集合，内部同时持有预先计算好的角色位图及登录/匿名标记，
+ * 供{@link CustomAuthorizationManager} 免分配地完成鉴权
+ */
+public final class RequiredAuthorities extends AbstractList<ConfigAttribute> {
+
+    private final List<ConfigAttribute> attributes;
+
+    private final BitSet roleBits;
+
+    // 可匿名访问
+    private final boolean anonymous;
+
+    // 登录即可访问
+    private final boolean loginOnly;
+
+    public RequiredAuthorities(List<ConfigAttribute> attributes, BitSet roleBits, boolean anonymous, boolean loginOnly) {
+        this.attributes = List.copyOf(attributes);
+        this.roleBits = roleBits;
+        this.anonymous = anonymous;
+        this.loginOnly = loginOnly;
+    }
+
+    public boolean isAnonymous() {
+        return anonymous;
+    }
+
+    public boolean isLoginOnly() {
+        return loginOnly;
+    }
+
+    /**
+     * @param userRoleBits 用户的角色位图
+     * @return 用户是否具备任一所需角色
+     */
+    public boolean matches(BitSet userRoleBits) {
+        return roleBits.intersects(userRoleBits);
+    }
+
+    @Override
+    public ConfigAttribute get(int index) {
+        return attributes.get(index);
+    }
+
+    @Override
+    public int size() {
+        return attributes.size();
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.sys.modules.security.core;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.io.Serial;
+import java.util.BitSet;
+import java.util.Collection;
+
+/**
+ * 携带用户角色位图的鉴权信息，供{@link CustomAuthorizationManager} 直接做位运算，不再逐个比较角色字符串
+ */
+public class RoleBitsAuthenticationToken extends UsernamePasswordAuthenticationToken {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final transient BitSet roleBits;
+
+    public RoleBitsAuthenticationToken(Object principal, Object credentials, Collection<? extends GrantedAuthority> authorities, BitSet roleBits) {
+        super(principal, credentials, authorities);
+        this.roleBits = roleBits;
+    }
+
+    /**
+     * @return 用户的角色位图，只读，不要修改
+     */
+    public BitSet getRoleBits() {
+        return roleBits;
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.sys.modules.security.core;
+
+import lombok.experimental.UtilityClass;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 角色编码(如 ROLE_admin)到小整数id的映射，用户与资源的角色以BitSet表示，鉴权时只需做一次位运算。
+ * id只增不减，数量与系统中的角色数一致，不需要清理
+ */
+@UtilityClass
+public class RoleCodeRegistry {
+
+    private static final Map<String, Integer> ROLE_IDS = new ConcurrentHashMap<>();
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    public static int idOf(String authority) {
+        var id = ROLE_IDS.get(authority);
+        return id != null ? id : ROLE_IDS.computeIfAbsent(authority, key -> SEQUENCE.getAndIncrement());
+    }
+
+    public static BitSet toBits(Collection<? extends GrantedAuthority> authorities) {
+        var bits = new BitSet();
+        for (var authority : authorities)
+            if (authority.getAuthority() != null)
+                bits.set(idOf(authority.getAuthority()));
+        return bits;
+    }
+}
@@ -16,6 +16,10 @@
 package com.lwohvye.sys.modules.security.core;
 
 import cn.hutool.core.util.IdUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
 import com.lwohvye.core.utils.DateUtils;
 import com.lwohvye.sys.modules.mnt.websocket.MsgType;
 import com.lwohvye.sys.modules.mnt.websocket.SocketMsg;
@@ -24,25 +28,39 @@ import com.lwohvye.sys.modules.security.config.bean.SecurityProperties;
 import com.lwohvye.sys.modules.security.service.dto.JwtUserDto;
 import com.lwohvye.sys.modules.security.utils.SecuritySysUtil;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.redisson.api.RTopic;
 import org.redisson.api.RedissonClient;
+import org.redisson.api.listener.BaseStatusListener;
+import org.redisson.client.codec.StringCodec;
 import org.springframework.beans.factory.InitializingBean;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
 import javax.crypto.SecretKey;
 import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.Date;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -59,12 +77,75 @@ public class TokenProvider implements InitializingBean {
     private final UserDetailsService userDetailsService;
     public static final String AUTHORITIES_KEY = "user";
 
+    // 登出时广播Token摘要，各节点从已验签缓存中移除
+    public static final String TOKEN_INVALIDATION_TOPIC = "unicorn:jwt:token-invalidation";
+
     private SecretKey secretKey;
 
+    // JwtParser是不可变且线程安全的，初始化时构建一次，避免每次解析都重新build
+    private JwtParser jwtParser;
+
+    // 未引入actuator时没有MeterRegistry，此时不做指标统计
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    // 已验签Token的本地缓存，key为Token的摘要。未开启时为null
+    // 缓存只省去验签，不承担吊销：密码修改由validateToken按pwdResetTime逐次校验，命中缓存也一样。
+    // JWT本身无状态，登出后Token在exp前依然可以验签通过，与不开缓存时一致，移除条目只是及时释放、保持各节点一致
+    private Cache<String, ParsedToken> verifiedTokenCache;
+
+    // 用户名 -> 其已缓存Token的摘要，按用户失效时直接定位，不必遍历整个缓存
+    private final Map<String, Set<String>> userTokenDigests = new ConcurrentHashMap<>();
+
+    private RTopic tokenInvalidationTopic;
+
     @Override
     public void afterPropertiesSet() {
         var secretString = properties.getBase64Secret();
         secretKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretString));
+        jwtParser = Jwts.parser()
+                // .keyLocator(keyLocator) // (2) dynamically locate signing or encryption keys
+                .verifyWith(secretKey)      //     or a constant key used to verify all signed JWTs
+                //.decryptWith(key)     //     or a constant key used to decrypt all encrypted JWTs
+                .build();
+        if (properties.isTokenCacheEnable()) {
+            verifiedTokenCache = Caffeine.newBuilder()
+                    .maximumSize(properties.getTokenCacheMaxSize())
+                    // 条目的存活时间与Token自身的exp一致，过期的Token不会从缓存中拿到
+                    .expireAfter(new Expiry<String, ParsedToken>() {
+                        @Override
+                        public long expireAfterCreate(String key, ParsedToken value, long currentTime) {
+                            return Math.max(0L, Duration.between(Instant.now(), value.expiration()).toNanos());
+                        }
+
+                        @Override
+                        public long expireAfterUpdate(String key, ParsedToken value, long currentTime, long currentDuration) {
+                            return currentDuration;
+                        }
+
+                        @Override
+                        public long expireAfterRead(String key, ParsedToken value, long currentTime, long currentDuration) {
+                            return currentDuration;
+                        }
+                    })
+                    // 过期、超量驱逐时同步移除索引。显式失效由调用处自行维护索引
+                    .evictionListener((String digest, ParsedToken parsedToken, RemovalCause cause) -> unindex(digest, parsedToken))
+                    .recordStats()
+                    .build();
+            // 命中、未命中、驱逐等指标，用于评估缓存大小
+            if (Objects.nonNull(meterRegistry))
+                CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokenCache, "jwt-verified-token");
+            tokenInvalidationTopic = redisson.getTopic(TOKEN_INVALIDATION_TOPIC, StringCodec.INSTANCE);
+            tokenInvalidationTopic.addListener(String.class, (channel, digest) -> removeCached(digest));
+            // 断线重连期间可能丢失失效消息，重新订阅后清空全部
+            tokenInvalidationTopic.addListener(new BaseStatusListener() {
+                @Override
+                public void onSubscribe(String channel) {
+                    verifiedTokenCache.invalidateAll();
+                    userTokenDigests.clear();
+                }
+            });
+        }
     }
 
     /**
@@ -121,24 +202,108 @@ public class TokenProvider implements InitializingBean {
      * @return /
      */
     public Authentication getAuthentication(String token) {
+        return getAuthentication(parseToken(token));
+    }
+
+    /**
+     * 依据解析后的Token 获取鉴权信息
+     *
+     * @param parsedToken /
+     * @return /
+     */
+    public Authentication getAuthentication(ParsedToken parsedToken) {
         // 上面createToken()中jwtBuilder中设置的属性，都在token中，解密后，得到Claims。这里用到了其subject属性，在当前业务里存的用户名
-        Claims claims = getClaims(token);
+        return getAuthentication(parsedToken, userDetailsService.loadUserByUsername(parsedToken.subject()));
+    }
+
+    /**
+     * 依据解析后的Token及已加载的用户信息 构建鉴权信息，避免重复加载用户
+     *
+     * @param parsedToken /
+     * @param userDetails /
+     * @return /
+     */
+    public Authentication getAuthentication(ParsedToken parsedToken, UserDetails userDetails) {
         //  第三个参数是 <? extends GrantedAuthority> authorities ,即为用户的权限。当前改为角色级别
-        var authorities = userDetailsService.loadUserByUsername(claims.getSubject()).getAuthorities();
-        User principal = new User(claims.getSubject(), "******", authorities);
+        var authorities = userDetails.getAuthorities();
+        User principal = new User(parsedToken.subject(), "******", authorities);
+        // 携带角色位图，鉴权时直接做位运算
+        var roleBits = userDetails instanceof JwtUserDto jwtUserDto ? jwtUserDto.getRoleBits() : RoleCodeRegistry.toBits(authorities);
         //  同上，这里第三个参数也是用户的权限。
-        return new UsernamePasswordAuthenticationToken(principal, token, authorities);
+        return new RoleBitsAuthenticationToken(principal, parsedToken.token(), authorities, roleBits);
     }
 
     public Claims getClaims(String token) {
         // 解密的算法由header中指定，后续看看有没有办法固定化。加密是🧷的
-        return Jwts.parser()
-                // .keyLocator(keyLocator) // (2) dynamically locate signing or encryption keys
-                .verifyWith(secretKey)      //     or a constant key used to verify all signed JWTs
-                //.decryptWith(key)     //     or a constant key used to decrypt all encrypted JWTs
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return jwtParser.parseSignedClaims(token).getPayload();
+    }
+
+    /**
+     * 验签并解析Token，单次请求只需调用一次，结果可在鉴权、校验、过期通知间复用
+     *
+     * @param token /
+     * @return /
+     */
+    public ParsedToken parseToken(String token) {
+        if (Objects.isNull(verifiedTokenCache))
+            return ParsedToken.of(token, getClaims(token));
+        // 验签失败时异常会直接抛出，不会写入缓存
+        var parsedToken = verifiedTokenCache.get(tokenDigest(token), key -> index(key, ParsedToken.of(token, getClaims(token))));
+        // 防御摘要碰撞，不一致时按未缓存处理
+        return token.equals(parsedToken.token()) ? parsedToken : ParsedToken.of(token, getClaims(token));
+    }
+
+    /**
+     * 失效单个Token的缓存，如登出时。本地立即移除，并广播给其他节点
+     *
+     * @param token /
+     */
+    public void invalidateToken(String token) {
+        if (Objects.isNull(verifiedTokenCache) || !StringUtils.hasText(token))
+            return;
+        var digest = tokenDigest(token);
+        removeCached(digest);
+        try {
+            tokenInvalidationTopic.publish(digest);
+        } catch (Exception e) {
+            // 发布失败时，其他节点只能依赖Token自身的过期时间兜底
+            log.error("Publish token invalidation failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 失效特定用户所有Token的缓存，如用户信息变更、修改密码时。按索引定位，开销只与该用户的Token数相关
+     *
+     * @param username /
+     */
+    public void invalidateUserTokens(String username) {
+        if (Objects.isNull(verifiedTokenCache) || !StringUtils.hasText(username))
+            return;
+        var digests = userTokenDigests.remove(username);
+        if (Objects.nonNull(digests))
+            verifiedTokenCache.invalidateAll(digests);
+    }
+
+    private void removeCached(String digest) {
+        var parsedToken = verifiedTokenCache.asMap().remove(digest);
+        if (Objects.nonNull(parsedToken))
+            unindex(digest, parsedToken);
+    }
+
+    private ParsedToken index(String digest, ParsedToken parsedToken) {
+        userTokenDigests.computeIfAbsent(parsedToken.subject(), key -> ConcurrentHashMap.newKeySet()).add(digest);
+        return parsedToken;
+    }
+
+    private void unindex(String digest, ParsedToken parsedToken) {
+        userTokenDigests.computeIfPresent(parsedToken.subject(), (key, digests) -> {
+            digests.remove(digest);
+            return digests.isEmpty() ? null : digests;
+        });
+    }
+
+    private static String tokenDigest(String token) {
+        return DigestUtils.sha256Hex(token);
     }
 
     /**
@@ -161,17 +326,20 @@ public class TokenProvider implements InitializingBean {
     // region 校验
 
     public Boolean validateToken(String token, JwtUserDto jwtUserDto) {
-        var claims = getClaims(token);
+        return validateToken(parseToken(token), jwtUserDto);
+    }
+
+    public Boolean validateToken(ParsedToken parsedToken, JwtUserDto jwtUserDto) {
         // 颁发时间
-        var issuedAt = claims.getIssuedAt();
+        var issuedAt = parsedToken.issuedAt();
         // 过期时间。JWT在认证时，会在内部校验和处理过期问题
-//        var expiration = claims.getExpiration();
+//        var expiration = parsedToken.expiration();
 //        如果token创建日期 > 最后修改密码的日期 则代表token有效
         return !isCreatedBeforeLastPasswordReset(issuedAt, jwtUserDto.getUser().getPwdResetTime());
     }
 
-    private Boolean isCreatedBeforeLastPasswordReset(Date issuedAt, Date lastPasswordReset) {
-        return (lastPasswordReset != null && issuedAt.before(lastPasswordReset));
+    private Boolean isCreatedBeforeLastPasswordReset(Instant issuedAt, Date lastPasswordReset) {
+        return (lastPasswordReset != null && issuedAt.isBefore(lastPasswordReset.toInstant()));
     }
 
     // endregion
@@ -179,10 +347,12 @@ public class TokenProvider implements InitializingBean {
     // region ⏰即将过期
     // 先validate通过。若即将过期，进行一次通知
     public void noticeExpire5Token(String token) {
-        var curDate = LocalDateTime.now();
-        var claims = getClaims(token);
-        var expirationDate = DateUtils.toLocalDateTime(claims.getExpiration());
-        if (curDate.plusSeconds(properties.getDetect()).isAfter(expirationDate)) {
+        noticeExpire5Token(parseToken(token));
+    }
+
+    public void noticeExpire5Token(ParsedToken parsedToken) {
+        var token = parsedToken.token();
+        if (Instant.now().plusSeconds(properties.getDetect()).isAfter(parsedToken.expiration())) {
             // 已通知过，跳过
             var rMapCache = redisson.getMapCache(SecuritySysUtil.getExpireNoticeKey(properties));
             // RMapCache，可以对单key设置过期时间
@@ -15,8 +15,11 @@
  */
 package com.lwohvye.sys.modules.security.core.filter;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.lwohvye.beans.config.RsaProperties;
 import com.lwohvye.sys.modules.security.service.dto.AuthUserDto;
+import com.lwohvye.sys.modules.system.service.local.AuthMQService;
 import com.lwohvye.core.utils.RsaUtils;
 import com.lwohvye.core.utils.SpringContextHolder;
 import com.lwohvye.core.utils.StringUtils;
@@ -35,6 +38,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 import java.io.InputStream;
+import java.time.Duration;
 import java.util.Objects;
 
 /**
@@ -46,6 +50,12 @@ public class CustomAuthenticationFilter extends UsernamePasswordAuthenticationFi
 
     protected RedisUtils redisUtils;
 
+    // 未锁定的结果在本地缓存一小段时间，绝大多数登录请求不必每次都访问Redis。代价是锁定后最多这么久才在本节点生效
+    private final Cache<String, Boolean> notLocked = Caffeine.newBuilder()
+            .maximumSize(10_000L)
+            .expireAfterWrite(Duration.ofSeconds(5L))
+            .build();
+
     public void doRegister() {
         if (Objects.isNull(redisUtils)) redisUtils = SpringContextHolder.getBean(RedisUtils.class);
     }
@@ -67,13 +77,17 @@ public class CustomAuthenticationFilter extends UsernamePasswordAuthenticationFi
                 username = !username.isBlank() ? username : "";
 
                 var ip = StringUtils.getIp(request);
-                var lockedIp = ip + "||authLocked||";
                 // 当某ip多次登录失败导致用户锁定时，会同时锁定ip 15分钟
-                if (redisUtils.hasKey(lockedIp)) {
+                if (isLocked(AuthMQService.lockedIpKey(ip))) {
                     ResultUtils.resultJson(response, HttpServletResponse.SC_BAD_REQUEST, "频繁访问，请稍后再试");
                     // return null即可返回，AbstractAuthenticationProcessingFilter将不再执行其他逻辑。后续走返回流程
                     return null;
                 }
+                // 用户锁定1小时，到期自动解除
+                if (!username.isEmpty() && isLocked(AuthMQService.lockedUserKey(username))) {
+                    ResultUtils.resultJson(response, HttpServletResponse.SC_BAD_REQUEST, "登录失败次数过多，账号已锁定，请稍后再试");
+                    return null;
+                }
                 // 密码解密
                 var password = authUser.getPassword();
                 password = !password.isBlank() ? RsaUtils.decryptByPrivateKey(RsaProperties.privateKey, password) : "";
@@ -112,6 +126,16 @@ public class CustomAuthenticationFilter extends UsernamePasswordAuthenticationFi
         }
     }
 
+    // 只缓存未锁定的结果，锁定的每次都查Redis，以便到期后及时解除
+    private boolean isLocked(String lockedKey) {
+        if (Objects.nonNull(notLocked.getIfPresent(lockedKey)))
+            return false;
+        if (redisUtils.hasKey(lockedKey))
+            return true;
+        notLocked.put(lockedKey, Boolean.TRUE);
+        return false;
+    }
+
     protected boolean extraVerifyFailed(HttpServletResponse response, AuthUserDto authUser) {
         return false;
     }
@@ -16,21 +16,19 @@
 package com.lwohvye.sys.modules.security.core.filter;
 
 import com.lwohvye.core.annotation.AnonymousAccess;
-import com.lwohvye.core.constant.SecurityConstant;
 import com.lwohvye.core.utils.SpringContextHolder;
-import com.lwohvye.core.utils.StringUtils;
 import com.lwohvye.core.enums.RequestMethodEnum;
 import com.lwohvye.sys.modules.security.config.SpringSecurityConfig;
+import com.lwohvye.sys.modules.system.event.ResEvent;
+import com.lwohvye.sys.modules.system.event.RoleEvent;
 import com.lwohvye.sys.modules.system.service.IResourceService;
-import org.springframework.http.server.PathContainer;
+import com.lwohvye.sys.modules.system.service.local.LocalIndexInvalidation;
 import org.springframework.security.access.ConfigAttribute;
-import org.springframework.security.access.SecurityConfig;
 import org.springframework.security.access.SecurityMetadataSource;
 import org.springframework.security.web.FilterInvocation;
 import org.springframework.security.web.access.intercept.DefaultFilterInvocationSecurityMetadataSource;
 import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
-import org.springframework.util.AntPathMatcher;
-import org.springframework.util.PathMatcher;
+import org.springframework.transaction.event.TransactionalEventListener;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.mvc.condition.PathPatternsRequestCondition;
 import org.springframework.web.servlet.mvc.condition.PatternsRequestCondition;
@@ -39,7 +37,10 @@ import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandl
 import org.springframework.web.util.pattern.PathPattern;
 import org.springframework.web.util.pattern.PathPatternParser;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -54,14 +55,25 @@ import java.util.stream.Stream;
  */
 public final class CustomInvocationSecurityMetadataSource implements SecurityMetadataSource {
 
-    PathMatcher antPathMatcher = new AntPathMatcher();  //用来实现ant风格的Url匹配
+    private static final String INDEX_NAME = "resource-authority";
+
+    // 变更通过LocalIndexInvalidation广播到各节点，到期重建只兜底广播丢失的情况
+    private static final Duration INDEX_MAX_AGE = Duration.ofMinutes(1L);
 
     private final IResourceService resourceService;
 
+    private final LocalIndexInvalidation indexInvalidation;
+
+    private final Lock indexLock = new ReentrantLock();
+
+    private volatile ResourceAuthorityIndex authorityIndex;
+
     private Map<String, List<PathPattern>> anonymousPaths;
 
-    public CustomInvocationSecurityMetadataSource(IResourceService resourceService) {
+    public CustomInvocationSecurityMetadataSource(IResourceService resourceService, LocalIndexInvalidation indexInvalidation) {
         this.resourceService = resourceService;
+        this.indexInvalidation = indexInvalidation;
+        indexInvalidation.register(INDEX_NAME, this::discardAuthorityIndex);
         SpringContextHolder.addCallBacks(this::initAnonymousPaths);
     }
 
@@ -79,28 +91,47 @@ public final class CustomInvocationSecurityMetadataSource implements SecurityMet
         var authorizationContext = (RequestAuthorizationContext) object;
         var url = authorizationContext.getRequest().getRequestURI(); // 获取当前请求的Url
         var httpMethod = authorizationContext.getRequest().getMethod(); // 请求方法GET、POST、PUT、DELETE
-        List<ConfigAttribute> attributes;
-        // Lookup your database (or other source) using this information and populate the
-        // list of attributes
-        var securityConfigStream = resourceService.queryAllRes().stream() //获取数据库中的所有资源信息，即本案例中的resource以及对应的role
-                .filter(resource -> antPathMatcher.match(resource.getPattern(), url) // URI匹配
-                        && !resource.getRoleCodes().isEmpty() // 有关联角色（需要特定角色权限）
-                        && (StringUtils.isBlank(resource.getReqMethod()) || Objects.equals(resource.getReqMethod(), httpMethod))) // 请求方法类型匹配。资源未配置请求方法视为全部
-                .flatMap(resource -> resource.getRoleCodes().stream()) // 用flatMap合并流
-                .distinct() // 排重。到这里，因为是角色级别的，理论上不会太多，排重与否影响不大
-                .map(role -> new SecurityConfig("ROLE_" + role.trim())); // 需注意，toList的结果是ImmutableCollections
-        // 处理匿名注解部分
-        var requestPath = PathContainer.parsePath(url);
-        var anonymousSecurityConfigStream = Stream.concat(anonymousPaths.getOrDefault(httpMethod, Collections.emptyList()).stream(), // 方法与请求匹配的部分
-                        anonymousPaths.getOrDefault(RequestMethodEnum.ALL.getType(), Collections.emptyList()).stream()) // 方法无类型
-                .filter(pathPattern -> pathPattern.matches(requestPath)) // 匹配上
-                .map(pathPattern -> new SecurityConfig(SecurityConstant.ROLE_ANONYMOUS));
-        var securityConfigs = Stream.concat(securityConfigStream, anonymousSecurityConfigStream).toList(); // 合并两股流
-        if (!securityConfigs.isEmpty())
-            attributes = new ArrayList<>(securityConfigs); // 构建返回
-        else
-            attributes = Collections.singletonList(new SecurityConfig(SecurityConstant.ROLE_LOGIN)); //如果请求Url在资源表中不存在相应的模式，则该请求登陆后即可访问
-        return attributes;
+        // 资源及匿名访问部分都已预编译到索引中，这里只做查找。需注意，返回的是不可修改的集合
+        return getAuthorityIndex().getAttributes(httpMethod, url);
+    }
+
+    private ResourceAuthorityIndex getAuthorityIndex() {
+        var index = authorityIndex;
+        if (Objects.nonNull(index) && !index.isExpired())
+            return index;
+        indexLock.lock();
+        try {
+            index = authorityIndex;
+            if (Objects.isNull(index) || index.isExpired()) {
+                // Lookup your database (or other source) using this information and populate the list of attributes
+                // 获取数据库中的所有资源信息，即本案例中的resource以及对应的role。构建完成后整体替换
+                index = ResourceAuthorityIndex.build(resourceService.queryAllRes(), anonymousPaths, INDEX_MAX_AGE);
+                authorityIndex = index;
+            }
+            return index;
+        } finally {
+            indexLock.unlock();
+        }
+    }
+
+    /**
+     * 资源或角色变更时，丢弃本节点的索引并通知其他节点，下次请求时重建。
+     * 事务提交后再丢弃，避免提交前被其他请求用旧数据重建；没有事务时直接执行
+     */
+    @TransactionalEventListener(classes = {ResEvent.class, RoleEvent.class}, fallbackExecution = true)
+    public void resetAuthorityIndex() {
+        discardAuthorityIndex();
+        indexInvalidation.publish(INDEX_NAME);
+    }
+
+    // 与重建互斥，正在用旧数据重建的索引会在重建完成后被丢弃
+    private void discardAuthorityIndex() {
+        indexLock.lock();
+        try {
+            authorityIndex = null;
+        } finally {
+            indexLock.unlock();
+        }
     }
 
     public void initAnonymousPaths() {
@@ -141,6 +172,8 @@ public final class CustomInvocationSecurityMetadataSource implements SecurityMet
                     );
                 }).reduce(Stream::concat).orElse(Stream.empty())
                 .collect(Collectors.groupingBy(PatternMatchCarrier::methodType, Collectors.mapping(PatternMatchCarrier::pathPattern, Collectors.toUnmodifiableList())));
+        // 匿名部分已变化，索引需重建。只涉及本节点
+        discardAuthorityIndex();
     }
 
     /**
@@ -28,7 +28,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.GenericFilterBean;
@@ -55,17 +54,17 @@ public class JwtAuthenticationTokenFilter extends GenericFilterBean {
         // 对于 Token 为空的不需要去查 Redis
         if (StringUtils.hasText(token)) {
             try {
-                // 获取用户基础信息(从token中)
-                Authentication authentication = tokenProvider.getAuthentication(token);
-                if (authentication.getPrincipal() instanceof UserDetails userDetails) {
-                    // 根据用户名，从服务侧获取用户详细信息
-                    var jwtUserDto = (JwtUserDto) userDetailsService.loadUserByUsername(userDetails.getUsername());
-                    // 校验
-                    if (Boolean.TRUE.equals(tokenProvider.validateToken(token, jwtUserDto))) {
-                        // 剩余时常不足时，进行通知（只通知一次）
-                        tokenProvider.noticeExpire5Token(token);
-                        SecurityContextHolder.getContext().setAuthentication(authentication);
-                    }
+                // 验签并解析Token，整个过滤流程只解析这一次
+                var parsedToken = tokenProvider.parseToken(token);
+                // 根据用户名(从token中)，从服务侧获取用户详细信息
+                var jwtUserDto = (JwtUserDto) userDetailsService.loadUserByUsername(parsedToken.subject());
+                // 校验
+                if (Boolean.TRUE.equals(tokenProvider.validateToken(parsedToken, jwtUserDto))) {
+                    // 剩余时常不足时，进行通知（只通知一次）
+                    tokenProvider.noticeExpire5Token(parsedToken);
+                    // 基于已加载的用户信息构建鉴权信息
+                    Authentication authentication = tokenProvider.getAuthentication(parsedToken, jwtUserDto);
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
                 }
             } catch (JwtException e) {
                 log.error(e.getMessage());
@@ -0,0 +1,227 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.sys.modules.security.core.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lwohvye.api.modules.system.service.dto.ResourceDto;
+import com.lwohvye.core.constant.SecurityConstant;
+import com.lwohvye.core.enums.RequestMethodEnum;
+import com.lwohvye.core.utils.StringUtils;
+import com.lwohvye.sys.modules.security.core.RequiredAuthorities;
+import com.lwohvye.sys.modules.security.core.RoleCodeRegistry;
+import org.springframework.http.server.PathContainer;
+import org.springframework.security.access.ConfigAttribute;
+import org.springframework.security.access.SecurityConfig;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PatternParseException;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * 资源(URL) -> 角色的预编译索引。构建后不可变，资源或角色变更时整体重建并替换
+ * <p>
+ * 按请求方法分组，组内按pattern的字面量前缀(通配符、路径变量之前的部分)构建前缀树，
+ * 请求只需与其路径前缀上挂载的pattern做匹配，而非遍历全部资源。匹配结果按 (method, 规范化后的path) 缓存，索引重建时随之丢弃
+ */
+final class ResourceAuthorityIndex {
+
+    // 资源未配置请求方法，视为全部
+    private static final String ANY_METHOD = "";
+
+    private static final RequiredAuthorities LOGIN_ATTRIBUTES = new RequiredAuthorities(List.of(new SecurityConfig(SecurityConstant.ROLE_LOGIN)), new BitSet(), false, true);
+    private static final ConfigAttribute ANONYMOUS_ATTRIBUTE = new SecurityConfig(SecurityConstant.ROLE_ANONYMOUS);
+
+    private static final PathPatternParser PATH_PATTERN_PARSER = new PathPatternParser();
+    private static final PathMatcher ANT_PATH_MATCHER = new AntPathMatcher();
+
+    // method -> 字面量前缀树
+    private final Map<String, PrefixNode> resourceMatchers;
+
+    private final Map<String, List<PathPattern>> anonymousPaths;
+
+    private final Cache<String, RequiredAuthorities> resolvedAttributes = Caffeine.newBuilder()
+            .maximumSize(2048)
+            .build();
+
+    private final long expireAt;
+
+    private ResourceAuthorityIndex(Map<String, PrefixNode> resourceMatchers, Map<String, List<PathPattern>> anonymousPaths, Duration maxAge) {
+        this.resourceMatchers = resourceMatchers;
+        this.anonymousPaths = anonymousPaths;
+        this.expireAt = System.nanoTime() + maxAge.toNanos();
+    }
+
+    /**
+     * @param resources      全部资源
+     * @param anonymousPaths 可匿名访问的路径，按请求方法分组
+     * @param maxAge         索引的最长存活时间，用于兜底集群中其他节点的资源变更
+     * @return /
+     */
+    static ResourceAuthorityIndex build(Collection<ResourceDto> resources, Map<String, List<PathPattern>> anonymousPaths, Duration maxAge) {
+        var matchers = new HashMap<String, PrefixNode>();
+        for (var resource : resources) {
+            // 无关联角色的资源，不参与鉴权
+            if (Objects.isNull(resource.getRoleCodes()) || resource.getRoleCodes().isEmpty())
+                continue;
+            var method = StringUtils.isBlank(resource.getReqMethod()) ? ANY_METHOD : resource.getReqMethod();
+            var node = matchers.computeIfAbsent(method, key -> new PrefixNode());
+            for (var segment : literalPrefix(resource.getPattern()))
+                node = node.children.computeIfAbsent(segment, key -> new PrefixNode());
+            node.matchers.add(ResourceMatcher.of(resource));
+        }
+        return new ResourceAuthorityIndex(Map.copyOf(matchers), Objects.isNull(anonymousPaths) ? Map.of() : anonymousPaths, maxAge);
+    }
+
+    boolean isExpired() {
+        return System.nanoTime() - expireAt > 0;
+    }
+
+    /**
+     * @param httpMethod 请求方法
+     * @param url        请求路径，可带查询串
+     * @return 当前请求所需要的角色，结果不可修改
+     */
+    RequiredAuthorities getAttributes(String httpMethod, String url) {
+        // 查询串、路径参数等不参与匹配，去掉后再作为key，否则每个不同的查询串都会占一条缓存
+        var path = normalize(url);
+        return resolvedAttributes.get(httpMethod + ' ' + path, key -> resolve(httpMethod, path));
+    }
+
+    /**
+     * 去掉查询串、片段及各段的路径参数(;jsessionid=...)，合并连续的 /
+     */
+    static String normalize(String url) {
+        var end = url.length();
+        for (int i = 0; i < end; i++) {
+            var c = url.charAt(i);
+            if (c == '?' || c == '#') {
+                end = i;
+                break;
+            }
+        }
+        var path = new StringBuilder(end);
+        var inParams = false;
+        for (int i = 0; i < end; i++) {
+            var c = url.charAt(i);
+            if (c == '/') {
+                inParams = false;
+                if (!path.isEmpty() && path.charAt(path.length() - 1) == '/')
+                    continue;
+            } else if (c == ';') {
+                inParams = true;
+            }
+            if (!inParams)
+                path.append(c);
+        }
+        return path.length() == url.length() ? url : path.toString();
+    }
+
+    RequiredAuthorities resolve(String httpMethod, String url) {
+        var requestPath = PathContainer.parsePath(url);
+        var segments = url.split("/");
+        // 排重。LinkedHashSet保持资源部分在前，匿名部分在后
+        var attributes = new LinkedHashSet<ConfigAttribute>();
+        var roleBits = new BitSet();
+        collect(resourceMatchers.get(httpMethod), segments, url, requestPath, attributes, roleBits);
+        collect(resourceMatchers.get(ANY_METHOD), segments, url, requestPath, attributes, roleBits);
+        // 处理匿名注解部分
+        var anonymous = anyMatch(anonymousPaths.get(httpMethod), requestPath) || anyMatch(anonymousPaths.get(RequestMethodEnum.ALL.getType()), requestPath);
+        if (anonymous)
+            attributes.add(ANONYMOUS_ATTRIBUTE);
+        //如果请求Url在资源表中不存在相应的模式，则该请求登陆后即可访问
+        return attributes.isEmpty() ? LOGIN_ATTRIBUTES : new RequiredAuthorities(new ArrayList<>(attributes), roleBits, anonymous, false);
+    }
+
+    // 沿请求路径下行，只匹配路径前缀上挂载的pattern
+    private static void collect(PrefixNode node, String[] segments, String url, PathContainer requestPath,
+                                Set<ConfigAttribute> attributes, BitSet roleBits) {
+        var i = 0;
+        while (Objects.nonNull(node)) {
+            for (var matcher : node.matchers)
+                if (matcher.matches(url, requestPath)) {
+                    attributes.addAll(matcher.attributes());
+                    roleBits.or(matcher.roleBits());
+                }
+            // 跳过空段，如开头的 /
+            while (i < segments.length && segments[i].isEmpty())
+                i++;
+            node = i < segments.length ? node.children.get(segments[i++]) : null;
+        }
+    }
+
+    private static boolean anyMatch(List<PathPattern> pathPatterns, PathContainer requestPath) {
+        if (Objects.isNull(pathPatterns))
+            return false;
+        for (var pathPattern : pathPatterns)
+            if (pathPattern.matches(requestPath))
+                return true;
+        return false;
+    }
+
+    /**
+     * pattern中通配符、路径变量之前的字面量段
+     */
+    private static List<String> literalPrefix(String pattern) {
+        var prefix = new ArrayList<String>();
+        if (Objects.isNull(pattern))
+            return prefix;
+        for (var segment : pattern.split("/")) {
+            if (segment.isEmpty())
+                continue;
+            if (segment.indexOf('*') >= 0 || segment.indexOf('?') >= 0 || segment.indexOf('{') >= 0)
+                break;
+            prefix.add(segment);
+        }
+        return prefix;
+    }
+
+    // 前缀树节点，只在build时写入
+    private static final class PrefixNode {
+        private final Map<String, PrefixNode> children = new HashMap<>();
+        private final List<ResourceMatcher> matchers = new ArrayList<>();
+    }
+
+    /**
+     * 单个资源的匹配器。pattern优先解析为PathPattern，PathPattern不支持的写法(如中间的 **)回退到AntPathMatcher
+     */
+    private record ResourceMatcher(PathPattern pathPattern, String antPattern, List<ConfigAttribute> attributes, BitSet roleBits) {
+
+        static ResourceMatcher of(ResourceDto resource) {
+            var attributes = resource.getRoleCodes().stream()
+                    .map(role -> (ConfigAttribute) new SecurityConfig("ROLE_" + role.trim()))
+                    .distinct()
+                    .toList();
+            // 角色编码在构建索引时即转为id
+            var roleBits = new BitSet();
+            attributes.forEach(attribute -> roleBits.set(RoleCodeRegistry.idOf(attribute.getAttribute())));
+            try {
+                return new ResourceMatcher(PATH_PATTERN_PARSER.parse(resource.getPattern()), null, attributes, roleBits);
+            } catch (PatternParseException e) {
+                return new ResourceMatcher(null, resource.getPattern(), attributes, roleBits);
+            }
+        }
+
+        boolean matches(String url, PathContainer requestPath) {
+            return Objects.nonNull(pathPattern) ? pathPattern.matches(requestPath) : ANT_PATH_MATCHER.match(antPattern, url);
+        }
+    }
+}
@@ -35,25 +35,30 @@ public record CustomLogoutHandler(TokenProvider tokenProvider) implements Logout
 
     @Override
     public void logout(HttpServletRequest request, HttpServletResponse response, Authentication authentication) {
-        // 根据过滤器的执行顺序。LogoutFilter在UsernamePasswordAuthenticationFilter之前执行。所以在这里时，是还没包办好的，要自己处理
-        if (Objects.isNull(authentication)) {
-            try {
-                String token = tokenProvider.getToken(request);
-                authentication = tokenProvider.getAuthentication(token);
-            } catch (Exception ignored) {
-                // 这里出异常后，不要再抛了，因为会被异常处理器处理，可能被重定向到logout，这就构成♻️了
+        var token = tokenProvider.getToken(request);
+        try {
+            // 根据过滤器的执行顺序。LogoutFilter在UsernamePasswordAuthenticationFilter之前执行。所以在这里时，是还没包办好的，要自己处理
+            if (Objects.isNull(authentication)) {
+                try {
+                    authentication = tokenProvider.getAuthentication(token);
+                } catch (Exception ignored) {
+                    // 这里出异常后，不要再抛了，因为会被异常处理器处理，可能被重定向到logout，这就构成♻️了
+                }
+                // 如果还拿不到，就返回了。无情
+                if (Objects.isNull(authentication))
+                    return;
+                // 先放进去，因为后面还有个处理登出成功的要用
+                // SecurityContextLogoutHandler在这之后执行，会清除信息
+                // SecurityContextHolder.getContext().setAuthentication(authentication);
             }
-            // 如果还拿不到，就返回了。无情
-            if (Objects.isNull(authentication))
-                return;
-            // 先放进去，因为后面还有个处理登出成功的要用
-            // SecurityContextLogoutHandler在这之后执行，会清除信息
-            // SecurityContextHolder.getContext().setAuthentication(authentication);
-        }
 
-        if (authentication.getPrincipal() instanceof UserDetails userDetails) {
-            String username = userDetails.getUsername();
-            log.info("username: {}  is offline now", username);
+            if (authentication.getPrincipal() instanceof UserDetails userDetails) {
+                String username = userDetails.getUsername();
+                log.info("username: {}  is offline now", username);
+            }
+        } finally {
+            // 登出的Token，从各节点的已验签缓存中移除。放在最后，上面解析Token时会重新放入缓存
+            tokenProvider.invalidateToken(token);
         }
     }
 }
@@ -22,6 +22,7 @@ import com.lwohvye.api.modules.system.service.dto.UserInnerDto;
 import com.lwohvye.beans.config.LocalPropertyConfig;
 import com.lwohvye.sys.modules.rabbitmq.config.RabbitMQConfig;
 import com.lwohvye.sys.modules.rabbitmq.service.RabbitMQProducerService;
+import com.lwohvye.sys.modules.security.core.TokenProvider;
 import com.lwohvye.sys.modules.security.service.dto.JwtUserDto;
 import com.lwohvye.sys.modules.system.service.IRoleService;
 import com.lwohvye.sys.modules.system.service.IUserService;
@@ -57,6 +58,10 @@ public class UserLocalCache {
     @Autowired
     private RabbitMQProducerService rabbitMQProducerService;
 
+    @Lazy // TokenProvider -> UserDetailsService -> UserLocalCache
+    @Autowired
+    private TokenProvider tokenProvider;
+
     /**
      * 用户信息缓存
      */
@@ -114,6 +119,7 @@ public class UserLocalCache {
                 rabbitMQProducerService.sendSyncDelayMsgEntity(RabbitMQConfig.SP_SYNC_ROUTE_KEY, amqpMsg);
             }
             userLRUCache.invalidate(userName); // 清除单个key
+            tokenProvider.invalidateUserTokens(userName); // 修改密码等场景，已验签的Token不能再从缓存中获取
         }
     }
 
@@ -17,11 +17,12 @@ package com.lwohvye.sys.modules.security.service.dto;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.lwohvye.api.modules.system.service.dto.UserInnerDto;
-import lombok.AllArgsConstructor;
+import com.lwohvye.sys.modules.security.core.RoleCodeRegistry;
 import lombok.Getter;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.util.BitSet;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -33,7 +34,6 @@ import java.util.stream.Collectors;
  * @date 2018-11-23
  */
 @Getter
-@AllArgsConstructor
 public class JwtUserDto implements UserDetails {
 
     private final UserInnerDto user;
@@ -49,6 +49,16 @@ public class JwtUserDto implements UserDetails {
      */
     private final transient List<GrantedAuthority> authorities;
 
+    // 角色位图，加载用户时计算一次，鉴权时与资源所需角色做位运算。只读，不要修改
+    @JsonIgnore
+    private final transient BitSet roleBits;
+
+    public JwtUserDto(UserInnerDto user, List<GrantedAuthority> authorities) {
+        this.user = user;
+        this.authorities = authorities;
+        this.roleBits = RoleCodeRegistry.toBits(authorities);
+    }
+
     // 可能名称易被误解，这里的roles是用户的权限信息，类似与permission，通过该属性，前端判断🔘的显示等，没有该属性就不会在登录后跳转首页。所以不能注释掉
     public Set<String> getRoles() {
         return authorities.stream().map(GrantedAuthority::getAuthority).collect(Collectors.toSet());
@@ -16,6 +16,7 @@
 package com.lwohvye.sys.modules.system.repository;
 
 import com.lwohvye.api.modules.system.domain.Dept;
+import com.lwohvye.core.base.TreeNode;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
@@ -48,6 +49,14 @@ public interface DeptRepository extends JpaRepository<Dept, Long>, JpaSpecificat
      */
     List<Dept> findByPidIsNull();
 
+    /**
+     * 一次查出全部部门的层级信息，用于构建部门树
+     *
+     * @return 按deptSort排序
+     */
+    @Query("select new com.lwohvye.core.base.TreeNode(d.id, d.name, d.pid, d.enabled) from Dept d order by d.deptSort asc")
+    List<TreeNode> findAllTreeNodes();
+
     /**
      * 判断是否存在子节点
      *
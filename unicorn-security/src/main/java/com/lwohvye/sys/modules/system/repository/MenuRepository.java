@@ -16,6 +16,7 @@
 package com.lwohvye.sys.modules.system.repository;
 
 import com.lwohvye.api.modules.system.domain.Menu;
+import com.lwohvye.core.base.TreeNode;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
@@ -75,6 +76,13 @@ public interface MenuRepository extends JpaRepository<Menu, Long>, JpaSpecificat
     @Query(value = "SELECT m.* FROM sys_menu m, sys_roles_menus r WHERE " +
                    "m.menu_id = r.menu_id AND r.role_id IN ?1 AND m.pid = ?2 AND type != ?3 order by m.menu_sort asc",nativeQuery = true)
     Optional<LinkedHashSet<Menu>> findByRoleIdsAndPidAndTypeNot(Set<Long> roleIds, Long pid, int typeNot);
+    /**
+     * 一次查出全部菜单的层级信息，用于构建菜单树
+     * @return 按menuSort排序
+     */
+    @Query("select new com.lwohvye.core.base.TreeNode(m.id, m.title, m.pid, true) from Menu m order by m.menuSort asc")
+    List<TreeNode> findAllTreeNodes();
+
     /**
      * 获取节点数量
      * @param id /
@@ -19,6 +19,8 @@ import cn.hutool.core.collection.CollectionUtil;
 import com.lwohvye.api.modules.system.domain.Dept;
 import com.lwohvye.api.modules.system.service.dto.DeptDto;
 import com.lwohvye.api.modules.system.service.dto.DeptQueryCriteria;
+import com.lwohvye.core.base.TreeNode;
+import com.lwohvye.core.custom.Hierarchy;
 import com.lwohvye.core.exception.BadRequestException;
 import com.lwohvye.core.utils.*;
 import com.lwohvye.sys.modules.system.event.DeptEvent;
@@ -26,6 +28,7 @@ import com.lwohvye.sys.modules.system.repository.DeptRepository;
 import com.lwohvye.sys.modules.system.service.IDeptService;
 import com.lwohvye.sys.modules.system.service.IRoleService;
 import com.lwohvye.sys.modules.system.service.IUserService;
+import com.lwohvye.sys.modules.system.service.local.HierarchyLocalCache;
 import com.lwohvye.sys.modules.system.service.mapstruct.DeptMapper;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
@@ -42,6 +45,8 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * @author Zheng Jie
@@ -58,6 +63,7 @@ public class DeptServiceImpl implements IDeptService, ApplicationEventPublisherA
     private final IRoleService roleService;
 
     private final ConversionService conversionService;
+    private final HierarchyLocalCache hierarchyLocalCache;
 
     private ApplicationEventPublisher eventPublisher;
 
@@ -152,12 +158,15 @@ public class DeptServiceImpl implements IDeptService, ApplicationEventPublisherA
 //    此类List入参的不建议缓存
     @Transactional(rollbackFor = Exception.class, readOnly = true)
     public Set<DeptDto> getDeleteDepts(List<Dept> menuList, Set<DeptDto> deptDtos) {
+        // 子孙部门的id在层级索引中算出，再一次查出。删除时不能漏掉其他节点刚新增的下级，使用与集群版本一致的索引
+        var hierarchy = hierarchyLocalCache.currentDepts();
+        var childIds = new LinkedHashSet<Long>();
         for (Dept dept : menuList) {
             deptDtos.add(conversionService.convert(dept, DeptDto.class));
-            List<Dept> depts = deptRepository.findByPid(dept.getId());
-            if (depts != null && !depts.isEmpty()) {
-                getDeleteDepts(depts, deptDtos);
-            }
+            hierarchy.descendants(dept.getId(), false).forEach(node -> childIds.add(node.id()));
+        }
+        if (!childIds.isEmpty()) {
+            deptRepository.findAllById(childIds).forEach(dept -> deptDtos.add(conversionService.convert(dept, DeptDto.class)));
         }
         return deptDtos;
     }
@@ -166,54 +175,38 @@ public class DeptServiceImpl implements IDeptService, ApplicationEventPublisherA
     @Cacheable
     @Transactional(rollbackFor = Exception.class)
     public List<Long> fetchDeptChildByPid(Long pid) {
-        var deptChildren = Optional.of(findByPid(pid)).orElseGet(Collections::emptyList);
-        return getDeptChildren(deptChildren);
-    }
-
-    private List<Long> getDeptChildren(List<Dept> deptList) {
-        var deptIds = deptList.stream().filter(Dept::getEnabled).map(Dept::getId).toList();
-        if (deptIds.isEmpty())
-            return Collections.emptyList();
-        List<Long> list = new ArrayList<>(deptIds);
-        var optionalDepts = deptRepository.findByPidIn(deptIds);
-        optionalDepts.ifPresent(depts -> list.addAll(getDeptChildren(depts)));
-        return list;
+        // 停用的部门及其下级都不包含。结果缓存在Redis中各节点共享，使用与集群版本一致的索引，避免把本节点过期的结果写回
+        return new ArrayList<>(hierarchyLocalCache.currentDepts().descendants(pid, false, node -> Boolean.TRUE.equals(node.enabled())).stream()
+                .map(TreeNode::id).toList());
     }
 
     @Override
     @Transactional(rollbackFor = Exception.class, readOnly = true)
     public List<DeptDto> getSuperior(DeptDto deptDto, List<Dept> depts) {
-        if (deptDto.getPid() == null) {
-            depts.addAll(deptRepository.findByPidIsNull());
-            return depts.stream().map(dept -> conversionService.convert(dept, DeptDto.class)).toList();
-        }
-        depts.addAll(deptRepository.findByPid(deptDto.getPid()));
-        return getSuperior(findById(deptDto.getPid()), depts);
+        // 自身及各级上级的同级节点，先在层级索引中算出id，再一次查出
+        var hierarchy = hierarchyLocalCache.depts(deptDto.getId());
+        var ids = new ArrayList<Long>();
+        hierarchy.siblings(deptDto.getId()).forEach(node -> ids.add(node.id()));
+        hierarchy.ancestors(deptDto.getId()).forEach(ancestor -> hierarchy.siblings(ancestor.id()).forEach(node -> ids.add(node.id())));
+        var deptMap = deptRepository.findAllById(ids).stream().collect(Collectors.toMap(Dept::getId, Function.identity()));
+        ids.stream().map(deptMap::get).filter(Objects::nonNull).forEach(depts::add);
+        return depts.stream().map(dept -> conversionService.convert(dept, DeptDto.class)).toList();
     }
 
     @Override
     public Map<String, Object> buildTree(List<DeptDto> deptDtos) {
+        // 先按id建索引，再按pid挂到上级下，整体是线性的
+        var tops = Hierarchy.assemble(deptDtos, DeptDto::getId, DeptDto::getPid, DeptDto::setChildren);
         Set<DeptDto> trees = new LinkedHashSet<>();
         Set<DeptDto> depts = new LinkedHashSet<>();
-        List<String> deptNames = deptDtos.stream().map(DeptDto::getName).toList();
-        boolean isChild;
+        var topSet = Collections.newSetFromMap(new IdentityHashMap<DeptDto, Boolean>());
+        topSet.addAll(tops);
         for (DeptDto deptDTO : deptDtos) {
-            isChild = false;
             if (deptDTO.getPid() == null) {
                 trees.add(deptDTO);
             }
-            for (DeptDto it : deptDtos) {
-                if (it.getPid() != null && deptDTO.getId().equals(it.getPid())) {
-                    isChild = true;
-                    if (deptDTO.getChildren() == null) {
-                        deptDTO.setChildren(new ArrayList<>());
-                    }
-                    deptDTO.getChildren().add(it);
-                }
-            }
-            if (isChild) {
-                depts.add(deptDTO);
-            } else if (deptDTO.getPid() != null && !deptNames.contains(findById(deptDTO.getPid()).getName())) {
+            // 有下级，或上级不在集合中
+            if (CollectionUtil.isNotEmpty(deptDTO.getChildren()) || deptDTO.getPid() != null && topSet.contains(deptDTO)) {
                 depts.add(deptDTO);
             }
         }
@@ -15,7 +15,6 @@
  */
 package com.lwohvye.sys.modules.system.service.impl;
 
-import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.collection.CollectionUtil;
 import cn.hutool.core.util.ObjectUtil;
 import cn.hutool.core.util.ReflectUtil;
@@ -27,31 +26,33 @@ import com.lwohvye.api.modules.system.service.dto.MenuQueryCriteria;
 import com.lwohvye.api.modules.system.service.dto.RoleSmallDto;
 import com.lwohvye.sys.common.constant.SysCacheKey;
 import com.lwohvye.core.base.SimplePOJO;
-import com.lwohvye.core.context.CycleAvoidingMappingContext;
+import com.lwohvye.core.constant.LocalCoreConstant;
+import com.lwohvye.core.custom.Hierarchy;
 import com.lwohvye.core.exception.BadRequestException;
 import com.lwohvye.core.utils.*;
 import com.lwohvye.core.utils.redis.RedisUtils;
 import com.lwohvye.sys.modules.system.event.MenuEvent;
-import com.lwohvye.sys.modules.system.event.UserEvent;
+import com.lwohvye.sys.modules.system.event.RoleEvent;
 import com.lwohvye.sys.modules.system.repository.MenuRepository;
 import com.lwohvye.sys.modules.system.service.IMenuService;
 import com.lwohvye.sys.modules.system.service.IRoleService;
-import com.lwohvye.sys.modules.system.service.mapstruct.MenuMapper;
+import com.lwohvye.sys.modules.system.service.local.HierarchyLocalCache;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheConfig;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.ApplicationEventPublisherAware;
-import org.springframework.context.event.EventListener;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import jakarta.persistence.EntityExistsException;
 import jakarta.servlet.http.HttpServletResponse;
@@ -59,7 +60,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -71,12 +72,13 @@ import java.util.stream.Collectors;
 public class MenuServiceImpl implements IMenuService, ApplicationEventPublisherAware {
 
     private static final Logger log = LoggerFactory.getLogger(MenuServiceImpl.class);
-    private final MenuMapper menuMapper;
     private final MenuRepository menuRepository;
 
     private final ConversionService conversionService;
     private final IRoleService roleService;
     private final RedisUtils redisUtils;
+    private final HierarchyLocalCache hierarchyLocalCache;
+    private final CacheManager cacheManager;
 
     private ApplicationEventPublisher eventPublisher;
 
@@ -149,6 +151,8 @@ public class MenuServiceImpl implements IMenuService, ApplicationEventPublisherA
         resources.setSubCount(0);
         // 更新父节点菜单数目
         updateSubCnt(resources.getPid());
+        // 清理缓存
+        delCaches(resources.getId());
     }
 
     @Override
@@ -198,25 +202,14 @@ public class MenuServiceImpl implements IMenuService, ApplicationEventPublisherA
     @Cacheable
     @Transactional(rollbackFor = Exception.class)
     public List<SimplePOJO> fetchMenuByPid(Long pid) {
-        var menuSet = new HashSet<Menu>();
-        var targetPMenu = findOne(pid);
-        menuSet.add(targetPMenu);
-
-        var menuList = fetchRootOrTargetMenus(pid);
-        getChildMenus(menuMapper.toEntity(menuList, new CycleAvoidingMappingContext()), menuSet);
-        return menuSet.stream()
-                .map(menu -> new SimplePOJO(menu.getId(), menu.getTitle(), null, menu.getPid()))
-                .toList();
-    }
-
-    private void getChildMenus(List<Menu> menuList, Set<Menu> menuSet) {
-        for (Menu menu : menuList) {
-            menuSet.add(menu);
-            List<Menu> menus = menuRepository.findByPid(menu.getId());
-            if (menus != null && !menus.isEmpty()) {
-                getChildMenus(menus, menuSet);
-            }
-        }
+        // 结果缓存在Redis中各节点共享，使用与集群版本一致的索引，避免把本节点过期的结果写回
+        var hierarchy = hierarchyLocalCache.currentMenus();
+        if (pid == null || !hierarchy.contains(pid))
+            ValidationUtils.isNull(null, "Menu", "id", pid);
+        // 自身及全部子孙节点，层级索引中一次取出，不再逐层查库
+        return new ArrayList<>(hierarchy.descendants(pid, true).stream()
+                .map(node -> new SimplePOJO(node.id(), node.name(), null, node.pid()))
+                .toList());
     }
 
     @Override
@@ -248,103 +241,44 @@ public class MenuServiceImpl implements IMenuService, ApplicationEventPublisherA
     @Override
     @Transactional(rollbackFor = Exception.class, readOnly = true)
     public List<MenuDto> getSuperior(MenuDto menuDto, List<Menu> menus) {
-        if (menuDto.getPid() == null) {
-            menus.addAll(menuRepository.findByPidIsNull());
-            return menus.stream().map(menu -> conversionService.convert(menu, MenuDto.class)).toList();
-        }
-        menus.addAll(menuRepository.findByPid(menuDto.getPid()));
-        return getSuperior(findById(menuDto.getPid()), menus);
+        // 自身及各级上级的同级节点，先在层级索引中算出id，再一次查出
+        var hierarchy = hierarchyLocalCache.menus(menuDto.getId());
+        var ids = new ArrayList<Long>();
+        hierarchy.siblings(menuDto.getId()).forEach(node -> ids.add(node.id()));
+        hierarchy.ancestors(menuDto.getId()).forEach(ancestor -> hierarchy.siblings(ancestor.id()).forEach(node -> ids.add(node.id())));
+        menus.addAll(findAllInOrder(ids));
+        return menus.stream().map(menu -> conversionService.convert(menu, MenuDto.class)).toList();
     }
 
-    // 一次查询，聚合 + 单次循环。效率较优
+    private List<Menu> findAllInOrder(List<Long> ids) {
+        var menuMap = menuRepository.findAllById(ids).stream().collect(Collectors.toMap(Menu::getId, Function.identity()));
+        return ids.stream().map(menuMap::get).filter(Objects::nonNull).toList();
+    }
+
+    // 一次查询，线性组装
     @Override
     public List<MenuDto> buildTree(List<MenuDto> menuDtos) {
         // 这里主要是利用了实体是引用传递的理念。在将实体add进集合后，对原实体对修改，对集合中对实体同样生效（因为指向同一内存地址）
-        // 较传统的一级一级递归查询，效率更高  1次查询 + n^2次循环 与 1 + 1+n 次查询 的差异
-        // 但双层循环，执行了 n^2 次，待优化
-        // 一次优化，将双层循环 调整成 一次聚合 + 单层循环（聚合的时间开销并不大，随着数据量的增加，效率提升明显，空间换时间）
-        var trees = new CopyOnWriteArrayList<MenuDto>();
-//        Set<Long> ids = new HashSet<>();
-        // 根据上级id做聚合
-        var listMap = menuDtos.parallelStream()
-                .filter(menuDto -> {
-                    var pid = menuDto.getPid();
-                    if (ObjectUtil.isNotNull(pid))
-                        return true;
-                    trees.add(menuDto);
-                    return false;
-                }).collect(Collectors.groupingBy(MenuDto::getPid));
-        // 遍历并设置 子级
-        // peek、map不会修改遍历的对象，需要将最终的结果进行赋值
-        // forEach是操作的遍历的对象，对于引用类型的实体，需要注意这一点
-        // 下面的逻辑里，要用forEach
-        menuDtos.parallelStream().forEach(menuDto -> {
-            var id = menuDto.getId();
-            var childList = listMap.get(id);
-            if (CollUtil.isNotEmpty(childList))
-                menuDto.setChildren(childList);
-        });
-
-        // 老版本可能第一级的pid = 0，下面是兼容原数据，新版第一级是null，统一后，下面的逻辑可移除
-//        if (trees.isEmpty()) {
-//            return menuDtos.stream().filter(s -> !ids.contains(s.getId())).sorted(Comparator.comparing(MenuDto::getMenuSort)).toList();
-//        }
-        return trees.stream().sorted(Comparator.comparing(MenuDto::getMenuSort)).toList();
+        // 较传统的一级一级递归查询，效率更高。先按id建索引，再按pid挂到上级下，整体是线性的
+        // 只返回pid为null的一级菜单，上级不在集合中的节点不展示
+        return Hierarchy.assemble(menuDtos, MenuDto::getId, MenuDto::getPid, MenuDto::setChildren).stream()
+                .filter(menuDto -> menuDto.getPid() == null)
+                .sorted(Comparator.comparing(MenuDto::getMenuSort))
+                .toList();
     }
 
-    // 一次查询，嵌套循环处理。大幅减少数据库IO
+    // 与buildTree相同，但没有一级菜单时，返回上级不在集合中的节点
     @Override
     public List<MenuDto> buildTree2(List<MenuDto> menuDtos) {
-        // 这里主要是利用了实体是引用传递的理念。在将实体add进集合后，对原实体对修改，对集合中对实体同样生效（因为指向同一内存地址）
-        // 较传统的一级一级递归查询，效率更高  1次查询 + n^2次循环 与 1 + 1+n 次查询 的差异
-        // 但双层循环，执行了 n^2 次，待优化
-        var trees = new CopyOnWriteArrayList<MenuDto>();
-        Set<Long> ids = new HashSet<>();
-        menuDtos.parallelStream().forEach(menuDto -> {
-            if (menuDto.getPid() == null) {
-                trees.add(menuDto);
-            }
-            for (MenuDto it : menuDtos) {
-                if (menuDto.getId().equals(it.getPid())) {
-                    if (menuDto.getChildren() == null) {
-                        menuDto.setChildren(new ArrayList<>());
-                    }
-                    menuDto.getChildren().add(it);
-                    ids.add(it.getId());
-                }
-            }
-        });
-        if (trees.isEmpty()) {
-            return menuDtos.stream().filter(s -> !ids.contains(s.getId())).sorted(Comparator.comparing(MenuDto::getMenuSort)).toList();
-        }
-        return trees.stream().sorted(Comparator.comparing(MenuDto::getMenuSort)).toList();
+        var tops = Hierarchy.assemble(menuDtos, MenuDto::getId, MenuDto::getPid, MenuDto::setChildren);
+        var trees = tops.stream().filter(menuDto -> menuDto.getPid() == null).toList();
+        return (trees.isEmpty() ? tops : trees).stream().sorted(Comparator.comparing(MenuDto::getMenuSort)).toList();
     }
 
-    // 递归，多次调用数据库。不建议
+    // 按角色一次查出全部菜单，再在内存中组装
     @Override
     public List<MenuDto> buildTree3(Long currentUserId) {
-        List<RoleSmallDto> roles = roleService.findByUserId(currentUserId);
-        Set<Long> roleIds = roles.stream().map(RoleSmallDto::getId).collect(Collectors.toSet());
-        return menuRepository.findByRoleIdsAndPidIsNullAndTypeNot(roleIds, 2).orElseGet(LinkedHashSet::new)
-                .parallelStream().map(menu -> {
-                    var dto = conversionService.convert(menu, MenuDto.class);
-                    assert dto != null;
-                    var id = dto.getId();
-                    dto.setChildren(getChild4CurUser(id, roleIds));
-                    return dto;
-                }).toList();
-
-    }
-
-    private List<MenuDto> getChild4CurUser(Long pid, Set<Long> roleIds) {
-        return menuRepository.findByRoleIdsAndPidAndTypeNot(roleIds, pid, 2).orElseGet(LinkedHashSet::new)
-                .parallelStream().map(menu -> {
-                    var dto = conversionService.convert(menu, MenuDto.class);
-                    assert dto != null;
-                    var id = dto.getId();
-                    dto.setChildren(getChild4CurUser(id, roleIds));
-                    return dto;
-                }).toList();
+        return buildTree(findByUser(currentUserId));
     }
 
     @Override
@@ -408,12 +342,39 @@ public class MenuServiceImpl implements IMenuService, ApplicationEventPublisherA
         }
     }
 
-    @SneakyThrows
+    /**
+     * 同一组角色的用户共享一棵菜单树。key为排序后的角色id及各自的版本号，某个角色的菜单变更后版本号加一，
+     * 只有包含该角色的组合会在下次访问时重建，其他组合不受影响
+     *
+     * @param uid 用户ID
+     * @return /
+     */
     @Override
-    @Cacheable(key = "'menu4user:' + #p0")
     @Transactional(rollbackFor = Exception.class, readOnly = true)
     public List<MenuVo> buildWebMenus(Long uid) {
-        CompletableFuture<List<MenuVo>> cf = CompletableFuture.completedFuture(findByUser(uid))
+        var roleIds = roleService.findByUserId(uid).stream().map(RoleSmallDto::getId).filter(Objects::nonNull).distinct().sorted().toList();
+        if (roleIds.isEmpty())
+            return new ArrayList<>();
+        var cache = Objects.requireNonNull(cacheManager.getCache(SysCacheKey.MENU_ROLES.get(LocalCoreConstant.CACHE_NAME)));
+        var key = SysCacheKey.MENU_ROLES.get(LocalCoreConstant.CACHE_KEY) + roleSignature(roleIds);
+        return cache.get(key, () -> buildRoleMenus(new LinkedHashSet<>(roleIds)));
+    }
+
+    // 角色id.版本号，以逗号拼接。版本号一次HMGET取出
+    private String roleSignature(List<Long> roleIds) {
+        var versions = redisUtils.hMultiGet(SysCacheKey.MENU_ROLE_VERSION, roleIds.stream().map(String::valueOf).toList());
+        var signature = new StringJoiner(",");
+        for (int i = 0; i < roleIds.size(); i++) {
+            var version = versions.get(i);
+            signature.add(roleIds.get(i) + "." + (Objects.isNull(version) ? "0" : version));
+        }
+        return signature.toString();
+    }
+
+    @SneakyThrows
+    private List<MenuVo> buildRoleMenus(Set<Long> roleIds) {
+        CompletableFuture<List<MenuVo>> cf = CompletableFuture.completedFuture(menuRepository.findByRoleIdsAndTypeNot(roleIds, 2))
+                .thenApply(menus -> menus.stream().map(menu -> conversionService.convert(menu, MenuDto.class)).toList())
                 .thenApply(this::buildTree)
                 .thenApply(this::buildMenus);
         // Exception Handler，we can use exceptionally() or handle() to handle exception
@@ -487,8 +448,9 @@ public class MenuServiceImpl implements IMenuService, ApplicationEventPublisherA
         eventPublisher.publishEvent(new MenuEvent(this, menu));
     }
 
-    @EventListener
-    public void objUpdate(UserEvent userEvent) {
-        redisUtils.delInRC(SysCacheKey.MENU_USER, userEvent.getDataId());
+    // 角色的菜单变更后（含角色删除、菜单解绑），递增其版本号，使包含该角色的菜单树失效。用户的角色变更会改变其角色组合，无需再按用户清理
+    @TransactionalEventListener(fallbackExecution = true)
+    public void objUpdate(RoleEvent roleEvent) {
+        redisUtils.hIncrBy(SysCacheKey.MENU_ROLE_VERSION, String.valueOf(roleEvent.getDataId()), 1L);
     }
 }
@@ -155,6 +155,8 @@ public class RoleServiceImpl implements IRoleService, ApplicationEventPublisherA
     @CacheEvict(allEntries = true)
     @Transactional(rollbackFor = Exception.class)
     public void untiedMenu(Long menuId) {
+        // 关联了该菜单的角色，需要通知更新（如重建这些角色的菜单树）
+        roleRepository.findInMenuId(Collections.singletonList(menuId)).forEach(role -> delCaches(role.getId()));
         // 更新菜单
         roleRepository.untiedMenu(menuId);
     }
@@ -248,9 +250,8 @@ public class RoleServiceImpl implements IRoleService, ApplicationEventPublisherA
 
     @EventListener
     public void objUpdate(MenuEvent menuEvent) {
-        roleRepository.findInMenuId(Collections.singletonList(menuEvent.getDataId())).forEach(role -> {
-            redisUtils.delInRC(SysCacheKey.ROLE_ID, role.getId());
-            publishRoleEvent(role);
-        });
+        var roles = roleRepository.findInMenuId(Collections.singletonList(menuEvent.getDataId()));
+        redisUtils.delByKeys4Business(SysCacheKey.ROLE_ID, roles.stream().map(Role::getId).toList());
+        roles.forEach(this::publishRoleEvent);
     }
 }
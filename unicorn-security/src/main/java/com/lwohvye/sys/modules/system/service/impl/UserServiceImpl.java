@@ -383,31 +383,28 @@ public class UserServiceImpl implements IUserService, ApplicationEventPublisherA
         eventPublisher.publishEvent(new UserEvent(this, user));
     }
 
-    // 需注意，这里方法的参数是Event对象。另点击方法旁的标志可以查看publisher和listener
-    @EventListener
-    public void objUpdate(RoleEvent roleEvent) {
-        userRepository.findByRoleId(roleEvent.getDataId()).forEach(user -> {
+    // 批量清除用户的缓存，Redis中的一次删除
+    private void cleanUsersCache(List<User> users) {
+        redisUtils.delByKeys4Business(SysCacheKey.USER_ID, users.stream().map(User::getId).toList());
+        users.forEach(user -> {
             userLocalCache.cleanUserCache(user.getUsername(), true);
-            redisUtils.delInRC(SysCacheKey.USER_ID, user.getId());
             publishUserEvent(user);
         });
     }
 
+    // 需注意，这里方法的参数是Event对象。另点击方法旁的标志可以查看publisher和listener
+    @EventListener
+    public void objUpdate(RoleEvent roleEvent) {
+        cleanUsersCache(userRepository.findByRoleId(roleEvent.getDataId()));
+    }
+
     @EventListener
     public void objUpdate(MenuEvent menuEvent) {
-        userRepository.findByMenuId(menuEvent.getDataId()).forEach(user -> {
-            userLocalCache.cleanUserCache(user.getUsername(), true);
-            redisUtils.delInRC(SysCacheKey.USER_ID, user.getId());
-            publishUserEvent(user);
-        });
+        cleanUsersCache(userRepository.findByMenuId(menuEvent.getDataId()));
     }
 
     @EventListener
     public void objUpdate(DeptEvent deptEvent) {
-        userRepository.findByDept_Id(deptEvent.getDataId()).forEach(user -> {
-            userLocalCache.cleanUserCache(user.getUsername(), true);
-            redisUtils.delInRC(SysCacheKey.USER_ID, user.getId());
-            publishUserEvent(user);
-        });
+        cleanUsersCache(userRepository.findByDept_Id(deptEvent.getDataId()));
     }
 }
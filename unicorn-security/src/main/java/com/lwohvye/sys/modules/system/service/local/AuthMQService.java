@@ -15,18 +15,16 @@
  */
 package com.lwohvye.sys.modules.system.service.local;
 
-import cn.hutool.core.util.ObjectUtil;
 import cn.hutool.core.util.StrUtil;
-import com.lwohvye.sys.modules.rabbitmq.service.RabbitMQProducerService;
-import com.lwohvye.sys.modules.security.service.UserLocalCache;
 import com.lwohvye.sys.modules.system.service.IUserService;
 import com.lwohvye.core.utils.json.JsonUtils;
-import com.lwohvye.core.utils.rabbitmq.AmqpMsgEntity;
 import com.lwohvye.core.utils.redis.RedisUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -43,20 +41,44 @@ import java.util.concurrent.TimeUnit;
 public class AuthMQService {
     //    ----------------------登录失败-----------------------------
 
+    // 窗口内允许的失败次数，超过时锁定
+    private static final int MAX_FAILURES = 5;
+
+    private static final Duration FAILURE_WINDOW = Duration.ofMinutes(5L);
+
+    private static final Duration IP_LOCK = Duration.ofMinutes(15L);
+
+    private static final Duration USER_LOCK = Duration.ofHours(1L);
+
     @Autowired
     private RedisUtils redisUtils;
 
     @Autowired
     private IUserService userService;
 
-    @Autowired
-    private UserLocalCache userLocalCache;
+    /**
+     * 登录失败次数过多时锁定的ip对应的key，锁定期间该ip不可登录
+     */
+    public static String lockedIpKey(String ip) {
+        return ip + "||authLocked||";
+    }
 
-    @Autowired
-    private RabbitMQProducerService rabbitMQProducerService;
+    /**
+     * 登录失败次数过多时锁定的用户对应的key，锁定期间该用户不可登录。与失败计数带相同的hash tag，集群下位于同一slot
+     */
+    public static String lockedUserKey(String username) {
+        return "||authLocked||user::{" + username + "}";
+    }
+
+    // 用户名 + ip 的失败计数
+    private static String authFailedKey(String username, String ip) {
+        return "{" + username + "}||authFailures||" + ip;
+    }
 
     /**
-     * 消费登录验证不通过的消息
+     * 消费登录验证不通过的消息。
+     * 计数、判断、锁定用户由一个lua脚本原子完成，并发的失败不会互相覆盖；锁定依靠key到期自动解除，不再修改用户状态、也不再发延迟解锁消息。
+     * ip的锁定与用户无关，不能与计数放在同一slot，触发锁定后单独设置
      *
      * @param record /
      * @date 2021/10/13 10:22 下午
@@ -67,39 +89,26 @@ public class AuthMQService {
         var infoMap = JsonUtils.toMap(record);
         var ip = JsonUtils.getString(infoMap, "ip");
         var username = JsonUtils.getString(infoMap, "username");
-        //          使用 用户名 + ip 作为key
-        String authFailedKey = username + "||authFailed||" + ip;
-        var countKey = "failed-count";
-        var byKey = redisUtils.hGet(authFailedKey, countKey);
-        var failCount = ObjectUtil.isNotEmpty(byKey) ? (Integer) byKey : 0;
-        log.info(" {} fail-count is {} ", authFailedKey, failCount);
-        if (failCount < 5) {
-            ++failCount;
-            if (ObjectUtil.equal(failCount, 1)) {
-//                        新建时设置过期时间5分钟
-                redisUtils.hPut(authFailedKey, countKey, failCount, 5 * 60L);
-            } else {
-//                        更新时只更新值。过期时间不做改动
-                redisUtils.hPut(authFailedKey, countKey, failCount);
-            }
-        } else {
-            var lockedIp = JsonUtils.getString(infoMap, "lockedIp");
-            // 限制Ip登录 15分钟
-            redisUtils.set(lockedIp, authFailedKey, 15L, TimeUnit.MINUTES);
-
-//                  修改用户状态为锁定
-            userService.updateEnabled(username, false);
-//                  删除缓存中的用户信息
-            userLocalCache.cleanUserCache(username, true);
-//                  超过5次锁定一小时。创建延迟解锁消息
-            var wait4Unlock = new AmqpMsgEntity().setMsgType("auth").setMsgData(username).setExtraData("unlockUser")
-                    .setExpire(1L).setTimeUnit(TimeUnit.HOURS);
-//                    延时消息发给RabbitMQ
-            rabbitMQProducerService.sendDelayMsg(wait4Unlock);
-        }
+        //          使用 用户名 + ip 作为key，用户名为hash tag。原先的计数为hash，换用有序集合后换个key，避免类型冲突
+        var authFailedKey = authFailedKey(username, ip);
+        var lockedIp = JsonUtils.getString(infoMap, "lockedIp");
+        if (StrUtil.isBlank(lockedIp))
+            lockedIp = lockedIpKey(ip);
+        // 超过5次，限制Ip登录15分钟，锁定用户1小时
+        var failCount = redisUtils.hitSlidingWindow(authFailedKey, FAILURE_WINDOW, MAX_FAILURES,
+                Map.of(lockedUserKey(username), USER_LOCK), authFailedKey);
+        if (failCount < 0) {
+            redisUtils.set(lockedIp, authFailedKey, IP_LOCK.toMillis(), TimeUnit.MILLISECONDS);
+            log.warn(" {} failed {} times in {}, lock ip and user ", authFailedKey, -failCount, FAILURE_WINDOW);
+        } else
+            log.info(" {} fail-count is {} ", authFailedKey, failCount);
     }
 
-
+    /**
+     * 解锁用户。之前的锁定方式会禁用用户并发延迟消息解锁，保留以消费升级前已发出的消息
+     *
+     * @param record 用户名
+     */
     public void unlockUser(String record) {
         if (StrUtil.isBlank(record))
             return;
@@ -0,0 +1,135 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.sys.modules.system.service.local;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.lwohvye.core.base.TreeNode;
+import com.lwohvye.core.custom.Hierarchy;
+import com.lwohvye.sys.modules.system.event.DeptEvent;
+import com.lwohvye.sys.modules.system.event.MenuEvent;
+import com.lwohvye.sys.modules.system.repository.DeptRepository;
+import com.lwohvye.sys.modules.system.repository.MenuRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 菜单、部门的层级索引。整表只查一次（只取id、pid等几列），之后的子树、祖先等都在内存中完成。
+ * 变更通过MenuEvent/DeptEvent在提交后失效本节点的索引，并经LocalIndexInvalidation通知其他节点，过期时间兜底广播丢失的情况。
+ * 广播有延迟，结果会写入集群共享的缓存、或用于删除的，使用current开头的方法：先比对Redis中的版本号，本地索引落后时才重新加载
+ */
+@Component
+public class HierarchyLocalCache {
+
+    private static final String MENU = "menu";
+    private static final String DEPT = "dept";
+
+    private static final String INDEX_PREFIX = "hierarchy-";
+
+    private final MenuRepository menuRepository;
+    private final DeptRepository deptRepository;
+    private final LocalIndexInvalidation localIndexInvalidation;
+
+    // version为加载前读到的集群版本，加载结果至少包含该版本之前已提交的变更
+    private record Snapshot(long version, Hierarchy<TreeNode> hierarchy) {
+    }
+
+    private final LoadingCache<String, Snapshot> hierarchyCache = Caffeine.newBuilder()
+            .maximumSize(4)
+            .expireAfterWrite(5L, TimeUnit.MINUTES)
+            .build(this::snapshot);
+
+    public HierarchyLocalCache(MenuRepository menuRepository, DeptRepository deptRepository, LocalIndexInvalidation localIndexInvalidation) {
+        this.menuRepository = menuRepository;
+        this.deptRepository = deptRepository;
+        this.localIndexInvalidation = localIndexInvalidation;
+        localIndexInvalidation.register(INDEX_PREFIX + MENU, () -> hierarchyCache.invalidate(MENU));
+        localIndexInvalidation.register(INDEX_PREFIX + DEPT, () -> hierarchyCache.invalidate(DEPT));
+    }
+
+    /**
+     * 索引中找不到某个节点时（可能是其他节点刚新增的），重新加载一次
+     *
+     * @param id 需要存在的节点
+     */
+    public Hierarchy<TreeNode> menus(Long id) {
+        return ensure(MENU, id);
+    }
+
+    public Hierarchy<TreeNode> depts(Long id) {
+        return ensure(DEPT, id);
+    }
+
+    /**
+     * 不受其他节点的变更尚未广播到的影响。每次读取一次Redis中的版本号，本地索引落后时重新加载，版本号读取失败时直接查库
+     */
+    public Hierarchy<TreeNode> currentMenus() {
+        return current(MENU);
+    }
+
+    public Hierarchy<TreeNode> currentDepts() {
+        return current(DEPT);
+    }
+
+    private Hierarchy<TreeNode> ensure(String type, Long id) {
+        var hierarchy = hierarchyCache.get(type).hierarchy();
+        if (id == null || hierarchy.contains(id))
+            return hierarchy;
+        hierarchyCache.invalidate(type);
+        return hierarchyCache.get(type).hierarchy();
+    }
+
+    private Hierarchy<TreeNode> current(String type) {
+        var version = localIndexInvalidation.version(INDEX_PREFIX + type);
+        if (version < 0L)
+            return load(type);
+        var snapshot = hierarchyCache.get(type);
+        if (snapshot.version() >= version)
+            return snapshot.hierarchy();
+        hierarchyCache.invalidate(type);
+        return hierarchyCache.get(type).hierarchy();
+    }
+
+    private Snapshot snapshot(String type) {
+        // 先读版本再加载，期间提交的变更会使版本号更新，下次读取时再加载
+        var version = localIndexInvalidation.version(INDEX_PREFIX + type);
+        return new Snapshot(version, load(type));
+    }
+
+    private Hierarchy<TreeNode> load(String type) {
+        var nodes = MENU.equals(type) ? menuRepository.findAllTreeNodes() : deptRepository.findAllTreeNodes();
+        return Hierarchy.of(nodes, TreeNode::id, TreeNode::pid);
+    }
+
+    // 事务提交后再失效，避免提交前被其他线程用旧数据重新加载。没有事务时直接执行
+    @TransactionalEventListener(fallbackExecution = true)
+    public void objUpdate(MenuEvent menuEvent) {
+        invalidate(MENU);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void objUpdate(DeptEvent deptEvent) {
+        invalidate(DEPT);
+    }
+
+    private void invalidate(String type) {
+        hierarchyCache.invalidate(type);
+        localIndexInvalidation.publish(INDEX_PREFIX + type);
+    }
+}
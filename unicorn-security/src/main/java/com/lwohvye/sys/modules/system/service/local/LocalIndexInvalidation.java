@@ -0,0 +1,116 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.sys.modules.system.service.local;
+
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.listener.BaseStatusListener;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 各节点本地索引（权限索引、层级索引等）的失效广播。
+ * 本节点失效后通过Redisson的RTopic通知其他节点，本节点发出的消息会被忽略；断线重连后可能丢失了消息，全部失效一次。
+ * 另在Redis中为每个索引维护一个版本号，随失效递增。广播有延迟，不能容忍旧数据的读取可先比对版本号
+ *
+ * @date 2025/10/16
+ */
+@Slf4j
+@Component
+public class LocalIndexInvalidation {
+
+    public static final String TOPIC = "unicorn:local-index:invalidation";
+
+    public static final String VERSION_PREFIX = "unicorn:local-index:version:";
+
+    private static final String SEPARATOR = "|";
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Map<String, Runnable> handlers = new ConcurrentHashMap<>();
+
+    private final RedissonClient redissonClient;
+
+    private final RTopic topic;
+
+    public LocalIndexInvalidation(RedissonClient redissonClient) {
+        this.redissonClient = redissonClient;
+        this.topic = redissonClient.getTopic(TOPIC, StringCodec.INSTANCE);
+        this.topic.addListener(String.class, (channel, msg) -> onMessage(msg));
+        this.topic.addListener(new BaseStatusListener() {
+            @Override
+            public void onSubscribe(String channel) {
+                handlers.values().forEach(Runnable::run);
+            }
+        });
+    }
+
+    /**
+     * 注册本地索引的失效方法
+     *
+     * @param name       索引名，各节点一致
+     * @param invalidate 只失效本节点，不再广播
+     */
+    public void register(String name, Runnable invalidate) {
+        handlers.put(name, invalidate);
+    }
+
+    /**
+     * 通知其他节点失效。本节点的需调用方自行失效
+     *
+     * @param name 索引名
+     */
+    public void publish(String name) {
+        try {
+            redissonClient.getAtomicLong(VERSION_PREFIX + name).incrementAndGet();
+            topic.publish(nodeId + SEPARATOR + name);
+        } catch (Exception e) {
+            // 发布失败时，其他节点只能依赖索引的过期时间兜底
+            log.error("Publish local index invalidation failed: {}, reason: {}", name, e.getMessage());
+        }
+    }
+
+    /**
+     * 索引在集群中的当前版本，每次publish加一
+     *
+     * @param name 索引名
+     * @return 版本号，读取失败时返回-1
+     */
+    public long version(String name) {
+        try {
+            return redissonClient.getAtomicLong(VERSION_PREFIX + name).get();
+        } catch (Exception e) {
+            log.error("Read local index version failed: {}, reason: {}", name, e.getMessage());
+            return -1L;
+        }
+    }
+
+    private void onMessage(String msg) {
+        var index = msg.indexOf(SEPARATOR);
+        if (index < 0 || msg.startsWith(nodeId + SEPARATOR))
+            return;
+        var handler = handlers.get(msg.substring(index + 1));
+        if (Objects.nonNull(handler))
+            handler.run();
+    }
+}
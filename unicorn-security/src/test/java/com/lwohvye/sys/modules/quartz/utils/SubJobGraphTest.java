@@ -0,0 +1,60 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.sys.modules.quartz.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SubJobGraphTest {
+
+    @Test
+    void plainListRunsInOrder() {
+        var graph = SubJobGraph.parse("2, 3，,4");
+        assertEquals(Map.of(2L, List.of(), 3L, List.of(2L), 4L, List.of(3L)), graph.dependencies());
+        assertEquals(List.of(2L, 3L, 4L), List.copyOf(graph.dependencies().keySet()));
+    }
+
+    @Test
+    void explicitDependencies() {
+        var graph = SubJobGraph.parse("2,3:2,4:2,5:3+4,6:");
+        assertEquals(List.of(), graph.dependencies().get(2L));
+        assertEquals(List.of(2L), graph.dependencies().get(3L));
+        assertEquals(List.of(2L), graph.dependencies().get(4L));
+        assertEquals(List.of(3L, 4L), graph.dependencies().get(5L));
+        assertEquals(List.of(), graph.dependencies().get(6L));
+    }
+
+    @Test
+    void blankIsEmpty() {
+        assertTrue(SubJobGraph.parse(null).isEmpty());
+        assertTrue(SubJobGraph.parse(" , ").isEmpty());
+    }
+
+    @Test
+    void rejectsInvalid() {
+        // 依赖需先声明，从而不会成环
+        assertThrows(IllegalArgumentException.class, () -> SubJobGraph.parse("3:2,2"));
+        assertThrows(IllegalArgumentException.class, () -> SubJobGraph.parse("2,3,2"));
+        assertThrows(IllegalArgumentException.class, () -> SubJobGraph.parse("2,x"));
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.sys.modules.security.core;
+
+import com.lwohvye.core.bench.BenchmarkSupport;
+import com.lwohvye.sys.modules.security.config.bean.SecurityProperties;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.io.Encoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.RunnerException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import javax.crypto.SecretKey;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对比单次请求中Token的旧解析方式(每次都重新build parser，共解析三次)与新的ParsedToken方式(预构建parser，只解析一次)
+ */
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TokenParseBenchmark extends BenchmarkSupport {
+
+    private SecretKey secretKey;
+    private TokenProvider tokenProvider;
+    private String token;
+
+    @Setup
+    public void setup() {
+        var properties = new SecurityProperties();
+        properties.setBase64Secret(Encoders.BASE64.encode(Jwts.SIG.HS512.key().build().getEncoded()));
+        secretKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(properties.getBase64Secret()));
+        // 基准中只涉及解析，不需要Redis与UserDetailsService
+        tokenProvider = new TokenProvider(properties, null, null);
+        tokenProvider.afterPropertiesSet();
+        token = tokenProvider.createToken(new UsernamePasswordAuthenticationToken("admin", null, List.of()));
+    }
+
+    // getAuthentication、validateToken、noticeExpire5Token 各自解析一次
+    @Benchmark
+    public void legacyParseThrice(Blackhole bh) {
+        bh.consume(legacyClaims().getSubject());
+        bh.consume(legacyClaims().getIssuedAt());
+        bh.consume(legacyClaims().getExpiration());
+    }
+
+    @Benchmark
+    public void parseOnce(Blackhole bh) {
+        var parsedToken = tokenProvider.parseToken(token);
+        bh.consume(parsedToken.subject());
+        bh.consume(parsedToken.issuedAt());
+        bh.consume(parsedToken.expiration());
+    }
+
+    private Claims legacyClaims() {
+        return Jwts.parser().verifyWith(secretKey).build().parseSignedClaims(token).getPayload();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        run(TokenParseBenchmark.class);
+    }
+}
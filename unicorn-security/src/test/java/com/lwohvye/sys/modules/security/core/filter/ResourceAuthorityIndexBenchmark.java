@@ -0,0 +1,98 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.sys.modules.security.core.filter;
+
+import com.lwohvye.api.modules.system.service.dto.ResourceDto;
+import com.lwohvye.core.bench.BenchmarkSupport;
+import com.lwohvye.core.constant.SecurityConstant;
+import com.lwohvye.core.utils.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.runner.RunnerException;
+import org.springframework.security.access.ConfigAttribute;
+import org.springframework.security.access.SecurityConfig;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对比逐条AntPathMatcher匹配全部资源与预编译索引的鉴权元数据查找
+ */
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResourceAuthorityIndexBenchmark extends BenchmarkSupport {
+
+    private static final String[] METHODS = {"GET", "POST", "PUT", "DELETE", null};
+
+    @Param({"1000", "10000", "50000"})
+    private int resourceCount;
+
+    private final PathMatcher antPathMatcher = new AntPathMatcher();
+    private List<ResourceDto> resources;
+    private ResourceAuthorityIndex index;
+    private String url;
+
+    @Setup
+    public void setup() {
+        resources = new ArrayList<>(resourceCount);
+        for (int i = 0; i < resourceCount; i++) {
+            var resource = new ResourceDto();
+            resource.setPattern("/api/mod" + (i % 64) + "/res" + i + "/**");
+            resource.setReqMethod(METHODS[i % METHODS.length]);
+            resource.setRoleCodes(List.of("role" + (i % 16), "admin"));
+            resources.add(resource);
+        }
+        index = ResourceAuthorityIndex.build(resources, Map.of(), Duration.ofHours(1L));
+        url = "/api/mod" + (resourceCount / 2 % 64) + "/res" + (resourceCount / 2) + "/detail";
+    }
+
+    @Benchmark
+    public List<ConfigAttribute> legacyStream() {
+        var attributes = resources.stream()
+                .filter(resource -> antPathMatcher.match(resource.getPattern(), url)
+                        && !resource.getRoleCodes().isEmpty()
+                        && (StringUtils.isBlank(resource.getReqMethod()) || Objects.equals(resource.getReqMethod(), "GET")))
+                .flatMap(resource -> resource.getRoleCodes().stream())
+                .distinct()
+                .map(role -> (ConfigAttribute) new SecurityConfig("ROLE_" + role.trim()))
+                .toList();
+        return attributes.isEmpty() ? Collections.singletonList(new SecurityConfig(SecurityConstant.ROLE_LOGIN)) : new ArrayList<>(attributes);
+    }
+
+    // 不走(method, path)缓存，只衡量分组后的匹配开销
+    @Benchmark
+    public List<ConfigAttribute> indexResolve() {
+        return index.resolve("GET", url);
+    }
+
+    @Benchmark
+    public List<ConfigAttribute> indexCached() {
+        return index.getAttributes("GET", url);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        run(ResourceAuthorityIndexBenchmark.class);
+    }
+}
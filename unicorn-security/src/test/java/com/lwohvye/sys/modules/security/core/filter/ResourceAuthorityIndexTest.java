@@ -0,0 +1,39 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.sys.modules.security.core.filter;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ResourceAuthorityIndexTest {
+
+    @Test
+    void normalizeStripsQueryAndPathParameters() {
+        assertEquals("/api/users", ResourceAuthorityIndex.normalize("/api/users?page=1&size=10"));
+        assertEquals("/api/users", ResourceAuthorityIndex.normalize("/api/users#top"));
+        assertEquals("/api/users/1", ResourceAuthorityIndex.normalize("/api;jsessionid=abc/users/1"));
+        assertEquals("/api/users/", ResourceAuthorityIndex.normalize("//api///users/"));
+    }
+
+    @Test
+    void normalizeKeepsCleanPath() {
+        var path = "/api/users/1";
+        assertSame(path, ResourceAuthorityIndex.normalize(path));
+    }
+}
@@ -110,4 +110,7 @@ dependencies {
     "businessLogApi"(libs.bizlog)
     "businessLogApi"(project(":unicorn-beans"))
     testImplementation("org.springframework.boot:spring-boot-starter-test")
+    // JMH benchmarks live in src/test, run them via their main method
+    testImplementation(testFixtures(project(":unicorn-core")))
+    testAnnotationProcessor(libs.jmh.generator)
 }
@@ -0,0 +1,123 @@
+/*
+ *    Copyright (c) 2025.  lWoHvYe(Hongyan Wang)
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lwohvye.api.modules.system.service.dto;
+
+import com.lwohvye.core.bench.BenchmarkSupport;
+import com.lwohvye.core.custom.ConcurrentFreshMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.runner.RunnerException;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对比localCacheManager中三种FreshMode（JSON深拷贝、逐字段拷贝、快照）在菜单树与用户上的取值开销，用的是实际缓存的MenuDto、UserDto
+ */
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ValueCopierBenchmark extends BenchmarkSupport {
+
+    @Param({"JSON", "CLONER", "SNAPSHOT"})
+    private ConcurrentFreshMap.FreshMode freshMode;
+
+    private ConcurrentFreshMap<String, Object> map;
+
+    @Setup
+    public void setup() {
+        map = new ConcurrentFreshMap<>(16, freshMode);
+        // 3层，每层8个，共584个节点，与常见的后台菜单规模相当
+        map.put("menus", menuTree(0L, 3, 8));
+        map.put("user", user());
+    }
+
+    @Benchmark
+    public Object getMenuTree() {
+        return map.get("menus");
+    }
+
+    @Benchmark
+    public Object getUser() {
+        return map.get("user");
+    }
+
+    private static List<MenuDto> menuTree(Long pid, int depth, int width) {
+        var menus = new ArrayList<MenuDto>(width);
+        for (int i = 0; i < width; i++) {
+            var menu = new MenuDto();
+            menu.setId(pid * 10 + i + 1);
+            menu.setPid(pid);
+            menu.setType(depth > 1 ? 0 : 1);
+            menu.setTitle("menu-" + menu.getId());
+            menu.setMenuSort(i);
+            menu.setPath("/path/" + menu.getId());
+            menu.setComponent("views/" + menu.getId());
+            menu.setComponentName("Component" + menu.getId());
+            menu.setIcon("icon");
+            menu.setIFrame(false);
+            menu.setCache(false);
+            menu.setHidden(false);
+            menu.setCreateBy("admin");
+            menu.setCreateTime(new Timestamp(System.currentTimeMillis()));
+            menu.setSubCount(depth > 1 ? width : 0);
+            if (depth > 1)
+                menu.setChildren(menuTree(menu.getId(), depth - 1, width));
+            menus.add(menu);
+        }
+        return menus;
+    }
+
+    private static UserDto user() {
+        var user = new UserDto();
+        user.setId(1L);
+        user.setUsername("admin");
+        user.setNickName("管理员");
+        user.setEmail("admin@lwohvye.com");
+        user.setPhone("18888888888");
+        user.setGender("男");
+        user.setEnabled(true);
+        user.setPwdResetTime(new Date());
+        var roles = new HashSet<RoleSmallDto>();
+        for (long i = 1; i <= 4; i++) {
+            var role = new RoleSmallDto();
+            role.setId(i);
+            role.setName("role-" + i);
+            role.setCode("ROLE_" + i);
+            role.setLevel((int) i);
+            roles.add(role);
+        }
+        user.setRoles(roles);
+        var job = new JobSmallDto();
+        job.setId(1L);
+        job.setName("dev");
+        user.setJobs(new HashSet<>(List.of(job)));
+        var dept = new DeptSmallDto();
+        dept.setId(1L);
+        dept.setName("研发部");
+        user.setDept(dept);
+        return user;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        run(ValueCopierBenchmark.class);
+    }
+}
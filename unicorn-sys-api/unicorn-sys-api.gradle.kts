@@ -87,4 +87,7 @@ publishing {
 
 dependencies {
     api(project(":unicorn-core"))
+    // JMH benchmarks live in src/test, run them via their main method
+    testImplementation(testFixtures(project(":unicorn-core")))
+    testAnnotationProcessor(libs.jmh.generator)
 }